@@ -1,16 +1,77 @@
 package edu.moravian.csci299.tictactoe;
 
-import java.util.Random;
-
 /**
  * An AI for playing Tic-Tac-Toe. This is the abstract base class and doesn't implement a specific
  * strategy but provides the abstract play() method which is implemented by subclasses for their
  * individual strategies along with several other methods that are useful for the subclasses to use
  * when implementing their strategies.
+ *
+ * Moves are passed around as the index of a location on the board, r*size+c, so that choosing a
+ * move never has to allocate anything.
+ *
+ * Each AI has its own random number generator, which can be seeded to make its choices
+ * reproducible. Since the generator isn't thread-safe, an AI should only be used by one thread at
+ * a time.
+ *
+ * AIs that search can also be given a Deadline, after which they return the best move they have
+ * found so far along with how deep and how many positions they searched.
  */
 public abstract class AI {
-    /** One, and only one, random variable for generating values. */
-    private static final Random random = new Random();
+    /** The location returned when there is no move to make */
+    public static final int NO_MOVE = -1;
+
+    /**
+     * The result of a search with a deadline: the move chosen, how deep the search went, and how
+     * many positions it looked at.
+     */
+    public static final class SearchResult {
+        /** The chosen location, or NO_MOVE if the game is over */
+        private final int move;
+        /** The number of moves ahead that were completely searched */
+        private final int depth;
+        /** The number of positions looked at */
+        private final long nodes;
+        /** True if the search finished before the deadline */
+        private final boolean complete;
+
+        /**
+         * @param move the chosen location, or NO_MOVE if the game is over
+         * @param depth the number of moves ahead that were completely searched
+         * @param nodes the number of positions looked at
+         * @param complete true if the search finished before the deadline
+         */
+        public SearchResult(int move, int depth, long nodes, boolean complete) {
+            this.move = move;
+            this.depth = depth;
+            this.nodes = nodes;
+            this.complete = complete;
+        }
+
+        /** @return the chosen location (r*size+c), or NO_MOVE if the game is over */
+        public int getMove() { return move; }
+
+        /** @return the number of moves ahead that were completely searched, 0 for AIs that don't search */
+        public int getDepth() { return depth; }
+
+        /** @return the number of positions looked at, 0 for AIs that don't search */
+        public long getNodes() { return nodes; }
+
+        /** @return true if the search finished before the deadline, false if it was cut short */
+        public boolean isComplete() { return complete; }
+
+        @Override
+        public String toString() {
+            return "SearchResult{" +
+                    "move=" + move +
+                    ", depth=" + depth +
+                    ", nodes=" + nodes +
+                    ", complete=" + complete +
+                    '}';
+        }
+    }
+
+    /** The random number generator for this AI */
+    private final SplitRandom random = new SplitRandom();
 
     /**
      * Asks the AI to play the given piece onto the given board. The actual implementation of this
@@ -21,52 +82,125 @@ public abstract class AI {
     public abstract void play(Board board, char piece);
 
     /**
-     * Play the piece randomly onto the board. It will continually try to place the piece until it
-     * succeeds.
+     * Asks the AI where it would play the given piece on the given board without actually playing
+     * it. Sub-classes should override this to choose the move directly, the default implementation
+     * plays on a copy of the board to find out where the piece went.
+     * @param board the board to play on, which is not changed
+     * @param piece the piece to play (either 'X' or 'O')
+     * @return the index of the location to play (r*size+c), or NO_MOVE if the game is over
+     */
+    public int selectMove(Board board, char piece) {
+        if (board.isGameOver()) { return NO_MOVE; }
+        Board copy = new Board(board);
+        play(copy, piece);
+        for (int i = 0, n = board.getSize() * board.getSize(); i < n; i++) {
+            if (board.getPiece(i) != copy.getPiece(i)) { return i; }
+        }
+        return NO_MOVE;
+    }
+
+    /**
+     * Asks the AI where it would play, stopping at the deadline with the best move found so far.
+     * The default implementation is for AIs that don't search: it just calls selectMove() and
+     * reports a depth and node count of 0. AIs that search override this, searching deeper and
+     * deeper until the deadline.
+     * @param board the board to play on, which is not changed
+     * @param piece the piece to play (either 'X' or 'O')
+     * @param deadline when to stop searching
+     * @return the chosen move along with how much searching was done
+     */
+    public SearchResult selectMove(Board board, char piece, Deadline deadline) {
+        return new SearchResult(selectMove(board, piece), 0, 0, true);
+    }
+
+    /**
+     * Plays the piece at the given location unless there is no move to make.
+     * @param board the board to play on
+     * @param location the index of the location to play (r*size+c), or NO_MOVE
+     * @param piece the piece to play (either 'X' or 'O')
+     */
+    protected void playMove(Board board, int location, char piece) {
+        if (location != NO_MOVE) { board.playPiece(location, piece); }
+    }
+
+    /**
+     * Seeds the random number generator of this AI so that it makes the same choices every time it
+     * is given the same boards.
+     * @param seed the seed for the random number generator
+     */
+    public void setSeed(long seed) { random.setSeed(seed); }
+
+    /**
+     * @return the random number generator for this AI, for sub-classes that need their own random
+     * choices
+     */
+    protected SplitRandom getRandom() { return random; }
+
+    /**
+     * Play the piece randomly onto any empty location on the board.
      * @param board the board to play on
      * @param piece the piece to play (either 'X' or 'O')
      */
     protected void playRandomMove(Board board, char piece) {
-        int r = random.nextInt(3);
-        int c = random.nextInt(3);
-        int count = 0;
-        while (!board.playPiece(r, c, piece)) {
-            r = random.nextInt(3);
-            c = random.nextInt(3);
-            if (count++ > 10000) { throw new RuntimeException("playRandomMove() unable to succeed"); }
-        }
+        playMove(board, selectRandomMove(board), piece);
+    }
+
+    /**
+     * Chooses a random empty location on the board in constant time, picking directly from the
+     * board's empty locations.
+     * @param board the board to be played on
+     * @return the index of an empty location (r*size+c), or NO_MOVE if the game is over
+     */
+    protected int selectRandomMove(Board board) {
+        if (board.isGameOver()) { return NO_MOVE; }
+        return board.getEmptyLocation(random.nextInt(board.countPieces(' ')));
     }
 
     /**
      * Finds an empty location on the board where placing the given piece would win the game. These
-     * are locations where the piece is seen to be twice in a row, column, or diagonal with the
-     * third space being empty.
+     * are locations where the piece is seen to be one less than needed in a row, column, or diagonal
+     * with the remaining space being empty.
      *
      * This may be used to either find a place where the AI can win or where the AI can block the
-     * other player.
+     * other player. If there are several, the first one (in location order) is found.
      *
      * @param board the board to be played on
      * @param piece the piece to play (either 'X' or 'O') that would cause the win
-     * @return a 2-element list with the row and column of the empty location to get the win, or
-     * null if no immediate wins are found
+     * @return the index (r*size+c) of the empty location to get the win, or NO_MOVE if no
+     * immediate wins are found
      */
-    protected int[] findWin(Board board, char piece) {
-        for (int r = 0; r < 3; r++) {
-            for (int c = 0; c < 3; c++) {
+    protected int findWin(Board board, char piece) {
+        int size = board.getSize();
+        if (size * size <= 64) {
+            long wins = findWins(board, piece);
+            return wins == 0 ? NO_MOVE : Long.numberOfTrailingZeros(wins);
+        }
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
                 if (isWinningLocation(board, r, c, piece)) {
-                    return new int[] {r, c};
+                    return r * size + c;
                 }
             }
         }
-        return null;
+        return NO_MOVE;
     }
 
     /**
-     * This checks if the given location is empty, and one of the following is true:
-     *  - the other two pieces in the row are equal to the given piece
-     *  - the other two pieces in the column are equal to the given piece
-     *  - the piece is along a diagonal and the other two pieces in the diagonal are equal to the
-     *    given piece
+     * Finds every empty location on the board where placing the given piece would win the game, in
+     * a single pass. For the opponent's piece these are all of the locations that need blocking, so
+     * more than one means the opponent has a fork. Only allowed for boards with at most 64
+     * locations (up to 8x8).
+     *
+     * @param board the board to be played on
+     * @param piece the piece to play (either 'X' or 'O') that would cause the win
+     * @return a mask of the winning locations, with location (r, c) as bit r*size+c
+     */
+    protected long findWins(Board board, char piece) { return board.winningLocations(piece); }
+
+    /**
+     * This checks if the given location is empty, and placing the given piece there would make
+     * enough of that piece in a row, column, or diagonal to win. Only the four lines through the
+     * location are looked at.
      *
      * @param board the board to be played on
      * @param r the row which would receive the piece
@@ -76,26 +210,7 @@ public abstract class AI {
      * win the game for that player
      */
     protected boolean isWinningLocation(Board board, int r, int c, char piece) {
-        return board.isLocationEmpty(r, c) && ( // destination must be empty
-                // check the row
-                (       (r == 0 || board.getPiece(0, c) == piece) &&
-                        (r == 1 || board.getPiece(1, c) == piece) &&
-                        (r == 2 || board.getPiece(2, c) == piece)) ||
-                // check the column
-                (       (c == 0 || board.getPiece(r, 0) == piece) &&
-                        (c == 1 || board.getPiece(r, 1) == piece) &&
-                        (c == 2 || board.getPiece(r, 2) == piece)) ||
-                // check the forward diagonal
-                (r == c &&
-                        (r == 0 || board.getPiece(0, 0) == piece) &&
-                        (r == 1 || board.getPiece(1, 1) == piece) &&
-                        (r == 2 || board.getPiece(2, 2) == piece)) ||
-                // check the reverse diagonal
-                (r == 2 - c &&
-                        (r == 0 || board.getPiece(0, 2) == piece) &&
-                        (r == 1 || board.getPiece(1, 1) == piece) &&
-                        (r == 2 || board.getPiece(2, 0) == piece))
-        );
+        return board.isLocationEmpty(r, c) && board.completesLine(r, c, piece);
     }
 
     /**
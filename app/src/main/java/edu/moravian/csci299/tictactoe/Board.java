@@ -1,53 +1,233 @@
 package edu.moravian.csci299.tictactoe;
 
 import androidx.annotation.NonNull;
+
 import java.util.Arrays;
 
 /**
- * A Tic-Tac-Toe game board. It is always 3x3 and contains the chars ' ' (space) for an empty spot,
- * 'X' and 'O' for player moves.
+ * A Tic-Tac-Toe game board. It contains the chars ' ' (space) for an empty spot, 'X' and 'O' for
+ * player moves. By default it is 3x3 and a player needs 3 in a row to win, but any square size and
+ * number in a row can be used (for example 15x15 and 5 in a row).
+ *
+ * Internally the board is stored as two occupancy bitsets, one for X and one for O, where the
+ * location (r, c) is bit r*size+c. This makes checking if a location is empty and counting pieces
+ * just a few bitwise operations instead of walking the entire board. The empty locations are also
+ * kept in a list so that a random one can be picked without searching for it. The same list
+ * remembers the order the pieces were played in, so the last piece can be taken back with undo(),
+ * letting searches play and take back moves on a single board instead of copying it for every
+ * position they look at.
+ *
+ * Every board also keeps a 64-bit Zobrist key of its position, updated with a single XOR each time
+ * a piece is played or taken back, so caches and transposition tables can use a primitive long as
+ * the key instead of hashing or comparing whole boards.
+ *
+ * A position looks the same as up to 7 others when the board is rotated or reflected (the 8
+ * symmetries of a square). getCanonicalKey() gives the same key for all of them so that caches only
+ * need one entry for each, and getCanonicalTransform() and transformLocation() convert locations
+ * between the board and the canonical orientation. On 3x3 boards this is done entirely with
+ * precomputed tables of the transformed occupancy masks.
+ *
+ * The status of the game and the number of moves made are kept up to date as pieces are played,
+ * only looking along the four directions through the location just played, so asking if the game
+ * is over is just reading a field.
  */
 public class Board implements Cloneable {
-    /** The actual board of characters */
-    private static final int BOARD_SIZE = 3;
-    private final char[][] board = new char[BOARD_SIZE][BOARD_SIZE];
+    /** The possible states of the game on a board */
+    public enum Status { IN_PROGRESS, X_WON, O_WON, TIED }
+
+    /** The number of rows and columns on a default board */
+    public static final int DEFAULT_SIZE = 3;
+    /** The number of pieces in a row needed to win on a default board */
+    public static final int DEFAULT_WIN_LENGTH = 3;
+    /** The row and column steps for the four directions a line can go: across, down, and diagonals */
+    private static final int[][] DIRECTIONS = { {0, 1}, {1, 0}, {1, 1}, {1, -1} };
+    /** The seed for the random Zobrist values, fixed so keys are the same every time the app runs */
+    private static final long ZOBRIST_SEED = 0x5DEECE66DL;
+    /** The precomputed Zobrist values for X (even entries) and O (odd entries) at each location */
+    private static final long[] ZOBRIST = new long[2 * 32 * 32];
+    static {
+        for (int i = 0; i < ZOBRIST.length; i++) { ZOBRIST[i] = SplitRandom.streamSeed(ZOBRIST_SEED, i); }
+    }
+    /** The number of symmetries of a square board: 4 rotations, each with or without a reflection */
+    public static final int TRANSFORMS = 8;
+    /** For 3x3 boards, each 9-bit occupancy mask after being transformed by each transform */
+    private static final short[][] MASK_TRANSFORMS = new short[TRANSFORMS][1 << 9];
+    /** For 3x3 boards, the XOR of the Zobrist values of X and of O at every location in each mask */
+    private static final long[] X_MASK_ZOBRIST = new long[1 << 9], O_MASK_ZOBRIST = new long[1 << 9];
+    static {
+        for (int mask = 1; mask < 1 << 9; mask++) {
+            int i = Integer.numberOfTrailingZeros(mask), rest = mask & (mask - 1);
+            for (int t = 0; t < TRANSFORMS; t++) {
+                MASK_TRANSFORMS[t][mask] = (short) (MASK_TRANSFORMS[t][rest] | 1 << transformLocation(i, t, 3));
+            }
+            X_MASK_ZOBRIST[mask] = X_MASK_ZOBRIST[rest] ^ zobrist(i, 'X');
+            O_MASK_ZOBRIST[mask] = O_MASK_ZOBRIST[rest] ^ zobrist(i, 'O');
+        }
+    }
+
+    /** The largest size of board whose locations all fit in a single 64-bit mask */
+    static final int MAX_MASK_SIZE = 8;
+    /**
+     * For each board size that fits in a single mask and each win length, the masks of every line
+     * of exactly that many locations across, down, or diagonally
+     */
+    private static final long[][][] LINES = new long[MAX_MASK_SIZE + 1][][];
+    /**
+     * For 3x3 boards with 3 in a row, the locations that complete a line for each occupancy mask of
+     * one piece (whether or not they are empty)
+     */
+    private static final short[] WINNING_MOVES = new short[1 << 9];
+    static {
+        for (int size = 1; size <= MAX_MASK_SIZE; size++) {
+            LINES[size] = new long[size + 1][];
+            for (int winLength = 1; winLength <= size; winLength++) { LINES[size][winLength] = lines(size, winLength); }
+        }
+        for (int mask = 0; mask < 1 << 9; mask++) {
+            for (long line : LINES[3][3]) {
+                if (Long.bitCount(line & mask) == 2) { WINNING_MOVES[mask] |= line & ~mask; }
+            }
+        }
+    }
+
+    /** The number of rows and columns on the board */
+    private final int size;
+    /** The number of pieces in a row needed to win */
+    private final int winLength;
+    /** The locations of the X pieces on the board */
+    private final long[] xBits;
+    /** The locations of the O pieces on the board */
+    private final long[] oBits;
+    /**
+     * The empty locations, in no particular order, are the first (size*size - moveCount) entries
+     * and the played locations come after them, with the last one played first
+     */
+    private final int[] empties;
+    /** The index of each location within empties */
+    private final int[] emptyIndex;
+    /** The index within empties that each move's location was swapped out of, by move number */
+    private final int[] removedFrom;
+    /** The number of pieces that have been played on the board */
+    private int moveCount;
+    /** The current state of the game, updated every time a piece is played */
+    private Status status = Status.IN_PROGRESS;
+    /** The Zobrist key of the position, updated every time a piece is played or taken back */
+    private long zobristKey;
+
+    /**
+     * Construct a new 3x3 board that is filled in completely with spaces.
+     */
+    public Board() { this(DEFAULT_SIZE, DEFAULT_WIN_LENGTH); }
 
     /**
-     * Construct a new board that is filled in completely with spaces.
+     * Construct a new board of any size that is filled in completely with spaces.
+     * @param size the number of rows and columns on the board
+     * @param winLength the number of pieces in a row needed to win, from 1 to size
      */
-    public Board() {
-        for (char[] chars : this.board) Arrays.fill(chars, ' ');
+    public Board(int size, int winLength) {
+        checkDimensions(size, winLength);
+        this.size = size;
+        this.winLength = winLength;
+        this.xBits = new long[(size * size + 63) >>> 6];
+        this.oBits = new long[this.xBits.length];
+        this.empties = new int[size * size];
+        this.emptyIndex = new int[size * size];
+        for (int i = 0; i < this.empties.length; i++) { this.empties[i] = this.emptyIndex[i] = i; }
+        this.removedFrom = new int[size * size];
+        // boards of different sizes never have the same key, even when they are empty
+        this.zobristKey = SplitRandom.streamSeed(ZOBRIST_SEED, -((long) size << 32 | winLength));
+    }
+
+    /**
+     * Checks that a board can be made with the given size and win length, without making one.
+     * @param size the number of rows and columns on the board
+     * @param winLength the number of pieces in a row needed to win, from 1 to size
+     * @throws IllegalArgumentException if there can't be such a board
+     */
+    static void checkDimensions(int size, int winLength) {
+        if (size < 1 || winLength < 1 || winLength > size) {
+            throw new IllegalArgumentException("invalid board size " + size + " with " + winLength + " in a row");
+        }
     }
 
     /**
      * Construct a new board that is filled in with the same contents of the other board.
      */
     public Board(Board board) {
-        for (int i = 0; i < this.board.length; i++) {
-            for (int j = 0; j < this.board[i].length; j++) {
-                this.board[i][j] = board.getPiece(i, j);
-            }
-        }
+        this.size = board.size;
+        this.winLength = board.winLength;
+        this.xBits = board.xBits.clone();
+        this.oBits = board.oBits.clone();
+        this.empties = board.empties.clone();
+        this.emptyIndex = board.emptyIndex.clone();
+        this.removedFrom = board.removedFrom.clone();
+        this.moveCount = board.moveCount;
+        this.status = board.status;
+        this.zobristKey = board.zobristKey;
     }
 
+    /**
+     * @return the number of rows and columns on the board
+     */
+    public int getSize() { return this.size; }
+
+    /**
+     * @return the number of pieces in a row needed to win
+     */
+    public int getWinLength() { return this.winLength; }
+
     /**
      * Gets a piece on the board (either 'X' or 'O') or if it is empty (returning ' ').
-     * @param r the row on the board to look up (0-2)
-     * @param c the column on the board to look up (0-2)
+     * @param r the row on the board to look up (0 to size-1)
+     * @param c the column on the board to look up (0 to size-1)
      * @return one of 'X', 'O', or ' '
      */
     public char getPiece(int r, int c) {
-        return this.board[r][c];
+        int i = index(r, c);
+        long bit = 1L << i;
+        return (this.xBits[i >>> 6] & bit) != 0 ? 'X' : (this.oBits[i >>> 6] & bit) != 0 ? 'O' : ' ';
+    }
+
+    /**
+     * Gets a piece on the board (either 'X' or 'O') or if it is empty (returning ' ').
+     * @param location the index of the location on the board to look up (r*size+c)
+     * @return one of 'X', 'O', or ' '
+     */
+    public char getPiece(int location) {
+        return this.getPiece(location / this.size, location % this.size);
     }
 
     /**
      * Returns true if the location on the board is empty.
-     * @param r the row on the board to look up (0-2)
-     * @param c the column on the board to look up (0-2)
+     * @param r the row on the board to look up (0 to size-1)
+     * @param c the column on the board to look up (0 to size-1)
      * @return same as getPiece(r, c) == ' '
      */
     public boolean isLocationEmpty(int r, int c) {
-        return this.getPiece(r, c) == ' ';
+        int i = index(r, c);
+        return ((this.xBits[i >>> 6] | this.oBits[i >>> 6]) & (1L << i)) == 0;
+    }
+
+    /**
+     * Returns true if the location on the board is empty.
+     * @param location the index of the location on the board to look up (r*size+c)
+     * @return same as getPiece(location) == ' '
+     */
+    public boolean isLocationEmpty(int location) {
+        return this.isLocationEmpty(location / this.size, location % this.size);
+    }
+
+    /**
+     * Gets one of the empty locations on the board. Together with countPieces(' ') this allows
+     * choosing a random empty location in constant time.
+     * @param n which empty location to get, from 0 to countPieces(' ')-1, the order is arbitrary
+     * and changes as pieces are played
+     * @return the index of the empty location (r*size+c)
+     */
+    public int getEmptyLocation(int n) {
+        if (n < 0 || n >= this.empties.length - this.moveCount) {
+            throw new IndexOutOfBoundsException("there is no empty location " + n);
+        }
+        return this.empties[n];
     }
 
     /**
@@ -56,70 +236,236 @@ public class Board implements Cloneable {
      * @return the number of those pieces on the board
      */
     public int countPieces(char piece) {
+        if (piece == ' ') return this.size * this.size - this.moveCount;
+        if (piece != 'X' && piece != 'O') return 0;
         int count = 0;
-        for (int i = 0; i < this.board.length; i++) {
-            for (int j = 0; j < this.board[i].length; j++) {
-                if (getPiece(i, j) == piece) count++;
-            }
-        }
+        for (long word : piece == 'X' ? this.xBits : this.oBits) count += Long.bitCount(word);
         return count;
     }
 
     /**
      * Play a piece onto the board, checking to make sure that the space is empty first.
-     * @param r the row where to place the piece (0-2)
-     * @param c the column where to place the piece (0-2)
+     * @param r the row where to place the piece (0 to size-1)
+     * @param c the column where to place the piece (0 to size-1)
      * @param piece the piece to place, either 'X' or 'O'
      * @return true if the space was empty and the play was successful, false otherwise
      */
     public boolean playPiece(int r, int c, char piece) {
-        boolean canPlay = this.getPiece(r, c) == ' ' && !this.isGameOver();
-        if (canPlay) this.board[r][c] = piece;
+        boolean canPlay = this.isLocationEmpty(r, c) && !this.isGameOver();
+        if (canPlay) {
+            this.place(r * this.size + c, piece);
+            this.updateStatus(r, c, piece);
+        }
 
         return canPlay;
     }
 
     /**
-     * @param piece the piece to check for a win with
-     * @return true if the player with the given piece has won, false otherwise
+     * Puts a piece in an empty location without updating the status of the game.
+     * @param i the index of the location, which must be empty
+     * @param piece the piece to place, either 'X' or 'O'
      */
-    public boolean hasWon(char piece) {
-        return this.rowOrColWinner(piece) || this.diagonalWinner(piece);
+    private void place(int i, char piece) {
+        if (piece == 'X') this.xBits[i >>> 6] |= 1L << i;
+        else if (piece == 'O') this.oBits[i >>> 6] |= 1L << i;
+        else throw new IllegalArgumentException("piece must be 'X' or 'O'");
+        this.removeEmpty(i);
+        this.zobristKey ^= zobrist(i, piece);
+        this.moveCount++;
     }
 
     /**
-     * Determine if there is a row or column of all X's or O's.
-     * @param piece 'X' or 'O'.
-     * @return Whether or not someone won.
+     * Removes a location from the list of empty locations by swapping it with the last empty one,
+     * remembering where it was so that undo() can swap it back.
+     * @param location the index of the location that was just played
      */
-    private boolean rowOrColWinner(char piece) {
-        int rowNum = 0, colNum = 0;
+    private void removeEmpty(int location) {
+        int index = this.emptyIndex[location], last = this.empties.length - this.moveCount - 1;
+        this.removedFrom[this.moveCount] = index;
+        int other = this.empties[last];
+        this.empties[index] = other;
+        this.emptyIndex[other] = index;
+        this.empties[last] = location;
+        this.emptyIndex[location] = last;
+    }
 
-        for (int i = 0; i < BOARD_SIZE; i ++) {
-            for (int j = 0; j < BOARD_SIZE; j ++) {
-                if (this.getPiece(i, j) == piece) rowNum++;
-                if (this.getPiece(j, i) == piece) colNum++;
-            }
-            if (rowNum == BOARD_SIZE || colNum == BOARD_SIZE) return true;
-            rowNum = colNum = 0;
+    /**
+     * Play a piece onto the board, checking to make sure that the space is empty first.
+     * @param location the index of the location where to place the piece (r*size+c)
+     * @param piece the piece to place, either 'X' or 'O'
+     * @return true if the space was empty and the play was successful, false otherwise
+     */
+    public boolean playPiece(int location, char piece) {
+        return this.playPiece(location / this.size, location % this.size, piece);
+    }
+
+    /**
+     * Checks if the given piece at the given location would be part of enough pieces in a row to
+     * win, looking only along the four lines through that location. The location itself is counted
+     * as having the piece whether or not it is actually there.
+     * @param r the row of the location (0 to size-1)
+     * @param c the column of the location (0 to size-1)
+     * @param piece the piece to check for, either 'X' or 'O'
+     * @return true if the piece at that location completes a line
+     */
+    public boolean completesLine(int r, int c, char piece) {
+        for (int[] dir : DIRECTIONS) {
+            int count = 1 + this.countInDirection(r, c, dir[0], dir[1], piece)
+                    + this.countInDirection(r, c, -dir[0], -dir[1], piece);
+            if (count >= this.winLength) return true;
         }
         return false;
     }
 
     /**
-     * Determine if there is a diagonal of all X's or O's.
-     * @param piece 'X' or 'O'.
-     * @return Whether or not there is a winner.
+     * Counts the pieces in a row starting next to a location and going in one direction, stopping
+     * once enough have been found to win.
+     * @param r the row of the starting location
+     * @param c the column of the starting location
+     * @param dr the row step
+     * @param dc the column step
+     * @param piece the piece to count
+     * @return the number of the pieces directly in a row
+     */
+    private int countInDirection(int r, int c, int dr, int dc, char piece) {
+        long[] bits = piece == 'X' ? this.xBits : this.oBits;
+        int count = 0;
+        for (r += dr, c += dc; count < this.winLength && r >= 0 && r < this.size && c >= 0 && c < this.size;
+             r += dr, c += dc) {
+            int i = r * this.size + c;
+            if ((bits[i >>> 6] & (1L << i)) == 0) break;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Finds every empty location where playing the given piece would complete a line, all at once.
+     * This gives all of the immediate wins for a piece, or all of the locations that have to be
+     * blocked against it; more than one means it has a fork. On 3x3 boards this is a single table
+     * lookup, on other boards it is one pass over precomputed masks of every line. Only allowed
+     * for boards with at most 64 locations.
+     * @param piece the piece to check for, either 'X' or 'O'
+     * @return the mask of the winning locations, location (r, c) being bit r*size+c
+     */
+    long winningLocations(char piece) {
+        long own = this.mask(piece), other = this.mask(piece == 'X' ? 'O' : 'X');
+        if (this.size == 3 && this.winLength == 3) { return WINNING_MOVES[(int) own] & ~(own | other); }
+        long wins = 0;
+        for (long line : LINES[this.size][this.winLength]) {
+            // the one location of the line without the piece is empty since the other piece isn't on the line
+            if ((line & other) == 0 && Long.bitCount(line & own) == this.winLength - 1) { wins |= line & ~own; }
+        }
+        return wins;
+    }
+
+    /**
+     * Gets the masks of every line that wins on this board, which are shared and must not be
+     * changed. Only allowed for boards with at most 64 locations.
+     * @return the masks of every line of winLength locations across, down, or diagonally
+     */
+    long[] lines() {
+        if (this.xBits.length != 1) throw new UnsupportedOperationException("board is too large for a single mask");
+        return LINES[this.size][this.winLength];
+    }
+
+    /**
+     * Makes the masks of every line on a board that fits in a single mask.
+     * @param size the number of rows and columns on the board
+     * @param winLength the number of locations in each line
+     * @return the masks of every line of winLength locations across, down, or diagonally
      */
-    private boolean diagonalWinner(char piece) {
-        int diagonalNum = 0, antiDiagonalNum = 0;
+    private static long[] lines(int size, int winLength) {
+        long[] lines = new long[4 * size * size];
+        int count = 0;
+        for (int[] dir : DIRECTIONS) {
+            for (int r = 0; r < size; r++) {
+                for (int c = 0; c < size; c++) {
+                    int endR = r + dir[0] * (winLength - 1), endC = c + dir[1] * (winLength - 1);
+                    if (endR < 0 || endR >= size || endC < 0 || endC >= size) { continue; }
+                    long line = 0;
+                    for (int i = 0; i < winLength; i++) { line |= 1L << ((r + dir[0] * i) * size + c + dir[1] * i); }
+                    // a single location is a line in every direction, only count it once
+                    if (winLength > 1 || dir == DIRECTIONS[0]) { lines[count++] = line; }
+                }
+            }
+        }
+        return Arrays.copyOf(lines, count);
+    }
 
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            if (this.getPiece(i, i) == piece) diagonalNum++;
-            if (this.getPiece(i, BOARD_SIZE - 1 - i) == piece) antiDiagonalNum++;
+    /**
+     * Updates the status of the game after a piece was played. Only the lines that go through the
+     * location just played can have been completed by it.
+     * @param r the row just played
+     * @param c the column just played
+     * @param piece the piece just played, either 'X' or 'O'
+     */
+    private void updateStatus(int r, int c, char piece) {
+        if (this.completesLine(r, c, piece)) {
+            this.status = piece == 'X' ? Status.X_WON : Status.O_WON;
+        } else if (this.moveCount == this.size * this.size) {
+            this.status = Status.TIED;
         }
+    }
+
+    /**
+     * @return the current state of the game on this board
+     */
+    public Status getStatus() { return this.status; }
+
+    /**
+     * @return the number of pieces that have been played on this board
+     */
+    public int getMoveCount() { return this.moveCount; }
+
+    /**
+     * Gets one of the locations that has been played, in the order they were played.
+     * @param n which move to get, from 0 (the first piece played) to getMoveCount()-1
+     * @return the index of the location played (r*size+c)
+     */
+    public int getMove(int n) {
+        if (n < 0 || n >= this.moveCount) { throw new IndexOutOfBoundsException("there is no move " + n); }
+        return this.empties[this.empties.length - 1 - n];
+    }
+
+    /**
+     * @return the index of the location of the last piece played (r*size+c), or -1 if the board
+     * is empty
+     */
+    public int getLastMove() {
+        return this.moveCount == 0 ? -1 : this.empties[this.empties.length - this.moveCount];
+    }
 
-        return diagonalNum == BOARD_SIZE || antiDiagonalNum == BOARD_SIZE;
+    /**
+     * Takes back the last piece played, putting the board back exactly how it was before it was
+     * played. This takes constant time.
+     * @return the index of the location that was emptied (r*size+c)
+     * @throws IllegalStateException if no pieces have been played
+     */
+    public int undo() {
+        if (this.moveCount == 0) { throw new IllegalStateException("no moves to undo"); }
+        // the last location played is right after the empty locations, so including it again in
+        // the empty locations and swapping it back where it was puts them back in the same order
+        int last = this.empties.length - this.moveCount, location = this.empties[last];
+        this.zobristKey ^= zobrist(location, this.getPiece(location));
+        this.xBits[location >>> 6] &= ~(1L << location);
+        this.oBits[location >>> 6] &= ~(1L << location);
+        this.moveCount--;
+        int index = this.removedFrom[this.moveCount], other = this.empties[index];
+        this.empties[last] = other;
+        this.emptyIndex[other] = last;
+        this.empties[index] = location;
+        this.emptyIndex[location] = index;
+        this.status = Status.IN_PROGRESS; // a piece can only be played when the game is in progress
+        return location;
+    }
+
+    /**
+     * @param piece the piece to check for a win with
+     * @return true if the player with the given piece has won, false otherwise
+     */
+    public boolean hasWon(char piece) {
+        return piece == 'X' ? this.status == Status.X_WON : piece == 'O' && this.status == Status.O_WON;
     }
 
     /**
@@ -127,14 +473,171 @@ public class Board implements Cloneable {
      * has won
      */
     public boolean hasTied() {
-        return this.countPieces(' ') == 0 && !this.hasWon('X') && !this.hasWon('O');
+        return this.status == Status.TIED;
     }
 
     /**
      * @return true if X or O has won or the game is tied
      */
     public boolean isGameOver() {
-        return this.hasWon('X') || this.hasWon('O') || this.hasTied();
+        return this.status != Status.IN_PROGRESS;
+    }
+
+    /**
+     * Gets the Zobrist key of the position on this board, suitable for looking the position up in
+     * caches and transposition tables. Boards with the same pieces in the same locations (and the
+     * same size and number in a row) always have the same key no matter what order the pieces were
+     * played in. Different positions have different keys except for extremely rare collisions.
+     * @return the 64-bit position key
+     */
+    public long getZobristKey() { return this.zobristKey; }
+
+    /**
+     * Gets a key that is the same for this position and every rotation and reflection of it. It is
+     * the Zobrist key of the board after applying getCanonicalTransform() to it.
+     * @return the 64-bit key of the canonical orientation of the position
+     */
+    public long getCanonicalKey() {
+        return this.getTransformedKey(this.getCanonicalTransform());
+    }
+
+    /**
+     * Gets the transform that turns this board into the canonical orientation of its position,
+     * which is the same for every rotation and reflection of the position. A location on this
+     * board is at transformLocation(location, transform, size) on the canonical board, and a
+     * location on the canonical board is at transformLocation(location, inverseTransform(transform),
+     * size) on this board.
+     * @return the transform, from 0 to TRANSFORMS-1
+     */
+    public int getCanonicalTransform() {
+        int best = 0;
+        if (this.size == 3) {
+            // the orientation with the smallest pair of masks, using only table lookups
+            int x = (int) this.xBits[0], o = (int) this.oBits[0], bestCode = Integer.MAX_VALUE;
+            for (int t = 0; t < TRANSFORMS; t++) {
+                int code = MASK_TRANSFORMS[t][x] | MASK_TRANSFORMS[t][o] << 9;
+                if (code < bestCode) { best = t; bestCode = code; }
+            }
+        } else {
+            // the orientation with the smallest Zobrist key
+            long bestKey = Long.MAX_VALUE;
+            for (int t = 0; t < TRANSFORMS; t++) {
+                long key = this.getTransformedKey(t);
+                if (key < bestKey) { best = t; bestKey = key; }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gets the Zobrist key this board would have after being transformed.
+     * @param transform the transform, from 0 to TRANSFORMS-1
+     * @return the key of the transformed board
+     */
+    public long getTransformedKey(int transform) {
+        if (this.size == 3) {
+            int x = (int) this.xBits[0], o = (int) this.oBits[0];
+            return this.zobristKey ^ X_MASK_ZOBRIST[x] ^ O_MASK_ZOBRIST[o] // the empty board
+                    ^ X_MASK_ZOBRIST[MASK_TRANSFORMS[transform][x]] ^ O_MASK_ZOBRIST[MASK_TRANSFORMS[transform][o]];
+        }
+        long key = this.zobristKey;
+        for (int n = 0; n < this.moveCount; n++) {
+            int location = this.getMove(n);
+            char piece = this.getPiece(location);
+            key ^= zobrist(location, piece) ^ zobrist(transformLocation(location, transform, this.size), piece);
+        }
+        return key;
+    }
+
+    /**
+     * Moves a location on a board by one of the symmetries of the square. Transforms 0-3 rotate
+     * the board clockwise 0, 90, 180, or 270 degrees and transforms 4-7 first reflect the board
+     * left-to-right and then do the same rotations.
+     * @param location the index of the location (r*size+c)
+     * @param transform the transform, from 0 to TRANSFORMS-1
+     * @param size the size of the board
+     * @return the index of the location after it is transformed
+     */
+    public static int transformLocation(int location, int transform, int size) {
+        int r = location / size, c = location % size, last = size - 1;
+        if ((transform & 4) != 0) { c = last - c; }
+        for (int k = transform & 3; k > 0; k--) {
+            int t = r; r = c; c = last - t;
+        }
+        return r * size + c;
+    }
+
+    /**
+     * Gets the transform that undoes another transform.
+     * @param transform the transform, from 0 to TRANSFORMS-1
+     * @return the inverse transform, from 0 to TRANSFORMS-1
+     */
+    public static int inverseTransform(int transform) {
+        return transform >= 4 ? transform : (4 - transform) & 3; // reflections are their own inverse
+    }
+
+    /**
+     * Gets the random Zobrist value for a piece at a location.
+     * @param location the index of the location (r*size+c)
+     * @param piece 'X' or 'O'
+     * @return the value that is XORed into the key when the piece is played or taken back
+     */
+    private static long zobrist(int location, char piece) {
+        int i = 2 * location + (piece == 'X' ? 0 : 1);
+        return i < ZOBRIST.length ? ZOBRIST[i] : SplitRandom.streamSeed(ZOBRIST_SEED, i);
+    }
+
+    /**
+     * Gets the occupancy mask for a piece. Only allowed for boards with at most 64 locations.
+     * @param piece 'X' or 'O', anything else has no pieces on the board
+     * @return the mask of locations that piece occupies, location (r, c) being bit r*size+c
+     */
+    long mask(char piece) {
+        if (this.xBits.length != 1) throw new UnsupportedOperationException("board is too large for a single mask");
+        return piece == 'X' ? this.xBits[0] : piece == 'O' ? this.oBits[0] : 0;
+    }
+
+    /**
+     * Creates a board with the pieces given as bitmasks like the ones from mask(), for example to
+     * restore a saved board. Since the order the pieces were played in is not known, they are
+     * recorded as played in location order. The status of the game is worked out from the pieces.
+     * @param size the number of rows and columns on the board, at most 8
+     * @param winLength the number of pieces in a row needed to win, from 1 to size
+     * @param oMask the locations of the O pieces
+     * @param xMask the locations of the X pieces
+     * @return the new board
+     */
+    static Board fromMasks(int size, int winLength, long oMask, long xMask) {
+        Board board = new Board(size, winLength);
+        long cells = size * size == 64 ? -1L : (1L << (size * size)) - 1;
+        if (board.xBits.length != 1 || (oMask & xMask) != 0 || ((oMask | xMask) & ~cells) != 0) {
+            throw new IllegalArgumentException("invalid masks for a board of size " + size);
+        }
+        for (int i = 0; i < size * size; i++) {
+            if ((oMask & (1L << i)) != 0) board.place(i, 'O');
+            else if ((xMask & (1L << i)) != 0) board.place(i, 'X');
+        }
+        for (int i = 0; i < size * size && !board.isGameOver(); i++) {
+            char piece = board.getPiece(i);
+            if (piece != ' ' && board.completesLine(i / size, i % size, piece)) {
+                board.status = piece == 'X' ? Status.X_WON : Status.O_WON;
+            }
+        }
+        if (!board.isGameOver() && board.moveCount == size * size) board.status = Status.TIED;
+        return board;
+    }
+
+    /**
+     * Gets the index of a location on the board, making sure it is on the board.
+     * @param r the row (0 to size-1)
+     * @param c the column (0 to size-1)
+     * @return the index of that location, r*size+c
+     */
+    private int index(int r, int c) {
+        if (r < 0 || r >= this.size || c < 0 || c >= this.size) {
+            throw new IndexOutOfBoundsException("location (" + r + ", " + c + ") is not on the board");
+        }
+        return r * this.size + c;
     }
 
 
@@ -145,13 +648,30 @@ public class Board implements Cloneable {
     protected Object clone() { return new Board(this); }
 
     @Override
-    public String toString() { return "Board{board=" + Arrays.deepToString(board) + '}'; }
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Board{board=[");
+        for (int r = 0; r < this.size; r++) {
+            sb.append(r == 0 ? "[" : ", [");
+            for (int c = 0; c < this.size; c++) {
+                if (c > 0) sb.append(", ");
+                sb.append(this.getPiece(r, c));
+            }
+            sb.append(']');
+        }
+        return sb.append("]}").toString();
+    }
 
     @Override
     public boolean equals(Object o) {
-        return this == o || (o != null && getClass() == o.getClass() && Arrays.deepEquals(board, ((Board)o).board));
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Board board = (Board) o;
+        return this.zobristKey == board.zobristKey && this.size == board.size && this.winLength == board.winLength &&
+                Arrays.equals(this.xBits, board.xBits) && Arrays.equals(this.oBits, board.oBits);
     }
 
     @Override
-    public int hashCode() { return Arrays.deepHashCode(board); }
+    public int hashCode() {
+        return (int) (this.zobristKey ^ (this.zobristKey >>> 32));
+    }
 }
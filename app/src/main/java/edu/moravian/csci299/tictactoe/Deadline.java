@@ -0,0 +1,73 @@
+package edu.moravian.csci299.tictactoe;
+
+/**
+ * When a search has to stop: at a point in time, when it is cancelled, or both. Searches check
+ * isExpired() every so often and return the best move found so far once it is true, so cancelling
+ * is cooperative. Cancelling can be done from any thread.
+ */
+public final class Deadline {
+    /** When the deadline passes, from System.nanoTime(), only used if timed */
+    private final long nanoTime;
+    /** True if there is a time limit */
+    private final boolean timed;
+    /** True once the deadline has been cancelled */
+    private volatile boolean cancelled;
+
+    /**
+     * Deadlines are only created through the static methods.
+     * @param nanoTime when the deadline passes
+     * @param timed true if there is a time limit
+     */
+    private Deadline(long nanoTime, boolean timed) {
+        this.nanoTime = nanoTime;
+        this.timed = timed;
+    }
+
+    /**
+     * @return a new deadline without a time limit, which only expires when cancelled
+     */
+    public static Deadline none() { return new Deadline(0, false); }
+
+    /**
+     * Creates a deadline a number of milliseconds from now.
+     * @param millis the time allowed in milliseconds
+     * @return the new deadline
+     */
+    public static Deadline after(long millis) { return at(System.nanoTime() + millis * 1000000L); }
+
+    /**
+     * Creates a deadline at a point in time.
+     * @param nanoTime when the deadline passes, from System.nanoTime()
+     * @return the new deadline
+     */
+    public static Deadline at(long nanoTime) { return new Deadline(nanoTime, true); }
+
+    /**
+     * @return true if the deadline has a time limit, false if it only expires when cancelled
+     */
+    public boolean hasTimeLimit() { return timed; }
+
+    /**
+     * Cancels the deadline, so it is expired from now on.
+     */
+    public void cancel() { cancelled = true; }
+
+    /**
+     * @return true if the deadline has been cancelled
+     */
+    public boolean isCancelled() { return cancelled; }
+
+    /**
+     * @return true if the deadline has been cancelled or its time has passed
+     */
+    public boolean isExpired() { return cancelled || (timed && System.nanoTime() - nanoTime >= 0); }
+
+    /**
+     * @return the time left in nanoseconds (0 once expired), or Long.MAX_VALUE if there is no time
+     * limit and it hasn't been cancelled
+     */
+    public long remainingNanos() {
+        if (cancelled) { return 0; }
+        return timed ? Math.max(0, nanoTime - System.nanoTime()) : Long.MAX_VALUE;
+    }
+}
@@ -13,4 +13,15 @@ public class EasyAI extends AI {
     public void play(Board board, char piece) {
         playRandomMove(board, piece);
     }
+
+    /**
+     * The easy AI always chooses a random location.
+     * @param board the board to play on, which is not changed
+     * @param piece the piece to play (either 'X' or 'O')
+     * @return the index of a random empty location, or NO_MOVE if the game is over
+     */
+    @Override
+    public int selectMove(Board board, char piece) {
+        return selectRandomMove(board);
+    }
 }
@@ -1,73 +1,78 @@
 package edu.moravian.csci299.tictactoe;
 
+import android.os.Handler;
+import android.os.Looper;
+
 import androidx.lifecycle.ViewModel;
 
-import java.util.Arrays;
-import java.util.Objects;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
- * The model of the entire game. The wraps up several rounds of the game into a single model.
+ * The model of the entire game. The wraps up several rounds of the game into a single model. All of
+ * the work is done by a Match, this just keeps it alive across configuration changes.
+ *
+ * The AI's turns can also be taken in the background (see playPieceAsync()) so that the UI thread
+ * never waits on the AI. The AI chooses its move on a copy of the board and the move is posted back
+ * to the main thread to be played, so the board is only ever changed on the main thread. A turn
+ * still running when the game is cleared (or cancelAITurn() is called) is thrown away, and if the
+ * AI fails with an exception or chooses a location that can't be played, a random move is played
+ * for it so the game can go on.
  */
 public class Game extends ViewModel {
-    /** The AI being used to play against the human */
-    private AI ai;
-    /** The current board for the game, replaced for each new round */
-    private Board board;
-    /** The pieces used by the human and AI players */
-    private final char[] pieces = {'?', '?'};
-    /** The number of wins by the human ndn AI players */
-    private final int[] wins = {0, 0};
-    /** The number of ties between the human and AI players */
-    private int ties = 0;
+    /** The match being played */
+    private final Match match = new Match();
+    /** Runs the AI's turns in the background, one at a time */
+    private final ExecutorService aiExecutor = Executors.newSingleThreadExecutor();
+    /** Posts the AI's moves back to the main thread, created when first needed */
+    private Handler mainHandler;
+    /** The AI's turn running in the background, or null if there isn't one */
+    private Future<?> aiTurn;
+    /** Stops the AI's turn running in the background when cancelled */
+    private Deadline aiDeadline;
+    /** Counts the AI's turns so that the result of a cancelled turn is recognized */
+    private int aiTurns;
+    /** Called on the main thread after the AI plays in the background, may be null */
+    private Runnable onAIPlayed;
 
     /**
      * @return true if the game has been started at all (i.e. startNewRound() has ever been called)
      */
-    public boolean hasStarted() {
-        return board != null;
-    }
+    public boolean hasStarted() { return match.hasStarted(); }
 
     /**
      * Set the AI for this game. This must be called before any other method is called. It should
      * only be called once.
      * @param ai the AI to use for this game.
      */
-    public void setAI(AI ai) {
-        this.ai = ai;
-    }
+    public void setAI(AI ai) { match.setAI(ai); }
+
+    /**
+     * Seeds the random choice of who goes first in each round so that the same sequence of rounds
+     * can be played again. This doesn't seed the AI, use AI.setSeed() for that.
+     * @param seed the seed for the random number generator
+     */
+    public void setSeed(long seed) { match.setSeed(seed); }
 
     /**
      * Start a new round of the game. This is only allowed right after the game is created or the
-     * previous round has ended. At any other point this will raise an exception.
-     *
-     * This creates a new board for the game and randomly assigns the human and AI to the X and O
-     * pieces. If the AI is selected to go first (it is the 'O' piece), it takes its first turn.
+     * previous round has ended. At any other point this will raise an exception. See
+     * Match.startNewRound() for details.
      */
-    public void startNewRound() {
-        if (board != null && !board.isGameOver()) {
-            throw new IllegalStateException("wrong time to start a round");
-        }
-        board = new Board();
-        if (Math.random() < 0.5) {
-            pieces[0] = 'X';
-            pieces[1] = 'O';
-            ai.play(board, 'O'); // AI (piece O) goes first
-        } else {
-            pieces[0] = 'O';
-            pieces[1] = 'X';
-        }
-    }
+    public void startNewRound() { match.startNewRound(); }
 
     /**
      * Gets the human player's piece, either 'O' or 'X'. Must be called after startNewRound().
      * @return either 'O' or 'X' for the human player's piece
      */
-    public char getPlayerPiece() { return pieces[0]; }
+    public char getPlayerPiece() { return match.getPlayerPiece(); }
 
     /**
      * @return the current game board, which is null before the first round
      */
-    public Board getBoard() { return board; }
+    public Board getBoard() { return match.getBoard(); }
 
     /**
      * Has the human play on the board in the given row and column. This returns false if the move
@@ -79,64 +84,164 @@ public class Game extends ViewModel {
      * @param c the column to play in, from 0 to 2
      * @return true the player's piece was successfully played, false otherwise
      */
-    public boolean playPiece(int r, int c) {
-        if (board == null || board.isGameOver()) {
-            throw new IllegalStateException("wrong time to play a piece");
-        }
-        if (!board.playPiece(r, c, pieces[0])) { return false; }
-        if (!checkGameOver()) {
-            ai.play(board, pieces[1]);
-            checkGameOver();
+    public boolean playPiece(int r, int c) { return match.playPiece(r, c); }
+
+    /**
+     * Start a new round of the game like startNewRound(), except that if the AI goes first it takes
+     * its turn in the background.
+     */
+    public void startNewRoundAsync() {
+        match.startNewRound(false);
+        startAITurn();
+    }
+
+    /**
+     * Has the human play on the board in the given row and column and then has the AI take its
+     * turn in the background, calling the listener set with setOnAIPlayedListener() once it has
+     * played. Nothing is played (and false is returned) if the move is illegal, the round is over,
+     * or the AI is still taking its turn.
+     *
+     * @param r the row to play in, from 0 to 2
+     * @param c the column to play in, from 0 to 2
+     * @return true the player's piece was successfully played, false otherwise
+     */
+    public boolean playPieceAsync(int r, int c) {
+        Board board = match.getBoard();
+        if (board == null || board.isGameOver() || match.isAITurn() || !match.playPlayerPiece(r, c)) {
+            return false;
         }
+        startAITurn();
         return true;
     }
 
     /**
-     * @return true if the game is over and the human player has won
+     * Starts the AI's turn in the background if it is the AI's turn and it isn't already running,
+     * for example after the game is restored from a snapshot.
      */
-    public boolean hasPlayerWon() {
-        return board.hasWon(pieces[0]);
+    public void startAITurn() {
+        if (aiTurn != null || !match.isAITurn()) { return; }
+        if (mainHandler == null) { mainHandler = new Handler(Looper.getMainLooper()); }
+        final Board board = new Board(match.getBoard());
+        final Deadline deadline = aiDeadline = match.newAIDeadline();
+        final int turn = ++aiTurns;
+        aiTurn = aiExecutor.submit(() -> {
+            int location;
+            try {
+                location = match.selectAIMove(board, deadline);
+            } catch (RuntimeException e) {
+                // a broken AI must not leave the game waiting forever, so play a random move instead
+                location = randomMove(board);
+            }
+            // nor crash the app on the main thread by choosing a location that can't be played
+            if (location < 0 || location >= board.getSize() * board.getSize() || !board.isLocationEmpty(location)) {
+                location = randomMove(board);
+            }
+            final int move = location;
+            mainHandler.post(() -> finishAITurn(turn, move));
+        });
     }
 
     /**
-     * @return true if the game is over and the AI player has won
+     * Chooses a random empty location, used when the AI fails to choose a legal one.
+     * @param board the board to play on, with at least one empty location
+     * @return the index of the location
      */
-    public boolean hasAIWon() {
-        return board.hasWon(pieces[1]);
+    private static int randomMove(Board board) {
+        return board.getEmptyLocation(new SplitRandom().nextInt(board.countPieces(' ')));
     }
 
     /**
-     * @return true if the game is over and it is a tie
+     * Plays the AI's move on the main thread once it has been chosen, unless the turn was cancelled.
+     * @param turn the number of the turn
+     * @param location the location the AI chose
      */
-    public boolean hasTied() {
-        return board.hasTied();
+    private void finishAITurn(int turn, int location) {
+        if (aiTurn == null || turn != aiTurns) { return; }
+        aiTurn = null;
+        match.playAIMove(location);
+        if (onAIPlayed != null) { onAIPlayed.run(); }
     }
 
     /**
-     * Checks if the game has ended and updates the counters appropriately.
-     * @return true if the game has ended, false otherwise
+     * @return true if the AI is taking its turn in the background
      */
-    private boolean checkGameOver() {
-        if (!board.isGameOver()) { return false; }
-        if (board.hasTied()) { ties++; }
-        else { wins[hasPlayerWon() ? 0 : 1]++; }
-        return true;
+    public boolean isAIThinking() { return aiTurn != null; }
+
+    /**
+     * Stops the AI's turn that is running in the background, if any. AIs that search stop at their
+     * next check of the deadline. Its move is never played, and startAITurn() can be used to start
+     * it again.
+     */
+    public void cancelAITurn() {
+        if (aiTurn != null) {
+            aiDeadline.cancel();
+            aiTurn.cancel(true);
+            aiTurn = null;
+        }
     }
 
+    /**
+     * Sets what to do on the main thread after the AI plays in the background.
+     * @param onAIPlayed called after the AI plays, or null for nothing
+     */
+    public void setOnAIPlayedListener(Runnable onAIPlayed) { this.onAIPlayed = onAIPlayed; }
+
+    /**
+     * Cancels the AI's turn and stops the background thread when the game is no longer needed.
+     */
+    @Override
+    protected void onCleared() {
+        cancelAITurn();
+        onAIPlayed = null;
+        aiExecutor.shutdownNow();
+    }
+
+    /**
+     * @return true if the game is over and the human player has won
+     */
+    public boolean hasPlayerWon() { return match.hasPlayerWon(); }
+
+    /**
+     * @return true if the game is over and the AI player has won
+     */
+    public boolean hasAIWon() { return match.hasAIWon(); }
+
+    /**
+     * @return true if the game is over and it is a tie
+     */
+    public boolean hasTied() { return match.hasTied(); }
+
+    /**
+     * Gets a compact snapshot of the game (without the AI) that can be saved and later restored
+     * with restoreSnapshot(), for example when the app's process is killed.
+     * @return the snapshot, Match.SNAPSHOT_BYTES long
+     */
+    public byte[] getSnapshot() {
+        ByteBuffer buffer = ByteBuffer.allocate(Match.SNAPSHOT_BYTES);
+        match.writeSnapshot(buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Restores the game from a snapshot from getSnapshot(). The AI must still be set.
+     * @param snapshot the snapshot
+     */
+    public void restoreSnapshot(byte[] snapshot) { match.readSnapshot(ByteBuffer.wrap(snapshot)); }
+
     /**
      * @return the number of rounds the human player has won
      */
-    public int getPlayerWins() { return wins[0]; }
+    public int getPlayerWins() { return match.getPlayerWins(); }
 
     /**
      * @return the number of rounds the AI player has won
      */
-    public int getAIWins() { return wins[1]; }
+    public int getAIWins() { return match.getAIWins(); }
 
     /**
      * @return the number of rounds the human and AI have tied
      */
-    public int getTies() { return ties; }
+    public int getTies() { return match.getTies(); }
 
 
     ////////// General Object Methods //////////
@@ -144,11 +249,7 @@ public class Game extends ViewModel {
     @Override
     public String toString() {
         return "Game{" +
-                "ai=" + ai +
-                ", board=" + board +
-                ", pieces=" + Arrays.toString(pieces) +
-                ", wins=" + Arrays.toString(wins) +
-                ", ties=" + ties +
+                "match=" + match +
                 '}';
     }
 
@@ -157,18 +258,9 @@ public class Game extends ViewModel {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Game game = (Game) o;
-        return ties == game.ties &&
-                Objects.equals(ai, game.ai) &&
-                Objects.equals(board, game.board) &&
-                Arrays.equals(pieces, game.pieces) &&
-                Arrays.equals(wins, game.wins);
+        return match.equals(game.match);
     }
 
     @Override
-    public int hashCode() {
-        int result = Objects.hash(ai, board, ties);
-        result = 31 * result + Arrays.hashCode(pieces);
-        result = 31 * result + Arrays.hashCode(wins);
-        return result;
-    }
+    public int hashCode() { return match.hashCode(); }
 }
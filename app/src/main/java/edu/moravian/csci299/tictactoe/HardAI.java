@@ -12,16 +12,15 @@ package edu.moravian.csci299.tictactoe;
  * necessary as they are covered by the other steps)
  */
 public class HardAI extends AI {
-    /** Corner locations on the board */
-    private final static int[][] corners = { {0, 0}, {0, 2}, {2, 2}, {2, 0} };
-    /** Edge locations on the board (not including corners) */
-    private final static int[][] edges = { {0, 1}, {1, 2}, {2, 1}, {1, 0} };
+    /** Corner locations on the board going clockwise, as multiples of the last row and column */
+    private final static int[] cornerRows = {0, 0, 1, 1}, cornerCols = {0, 1, 1, 0};
 
     /**
      * Tries to find a location to win, then a location to block, the center location, a corner
      * location opposite the opponent, any empty corner, any remaining (edge) location. To make the
      * first moves easier, they are hard-coded (if first player then top-left corner, if second
-     * player then center or top-left corner).
+     * player then center or top-left corner). On boards larger than 3x3 the center is the middle
+     * location (rounded up and to the left) and any location left after the edges is played last.
      *
      * See https://en.wikipedia.org/wiki/Tic-tac-toe#Strategy (note: the forking checks are not
      * actually necessary as they are covered by the other steps)
@@ -31,43 +30,61 @@ public class HardAI extends AI {
      */
     @Override
     public void play(Board board, char piece) {
+        playMove(board, selectMove(board, piece), piece);
+    }
+
+    /**
+     * Chooses the location to play using the same steps as play().
+     * @param board the board to play on, which is not changed
+     * @param piece the piece to play (either 'X' or 'O')
+     * @return the index of the chosen location, or NO_MOVE if the game is over
+     */
+    @Override
+    public int selectMove(Board board, char piece) {
+        if (board.isGameOver()) { return NO_MOVE; }
         char opponent = oppositePiece(piece);
+        int size = board.getSize(), last = size - 1, center = last / 2 * (size + 1);
 
         // First move is fixed
-        if (piece == 'O' && board.isLocationEmpty(0, 0)) { // AI is first player
-            board.playPiece(0, 0, piece); // picks upper-left first
-            return;
+        if (piece == 'O' && board.isLocationEmpty(0)) { // AI is first player
+            return 0; // picks upper-left first
         } else if (piece == 'X' && board.countPieces('O') == 1) { // AI is second player and other player has only played one piece
-            if (board.isLocationEmpty(1, 1)) { board.playPiece(1, 1, piece); } // picks center first
-            else { board.playPiece(0, 0, piece); } // picks top-left first if center is already taken
-            return;
+            return board.isLocationEmpty(center) ? center : 0; // picks center first, top-left if center is already taken
         }
 
         // Find a win or block a win
-        int[] location = findWin(board, piece);
-        if (location == null) { location = findWin(board, opponent);  }
-        if (location != null) { board.playPiece(location[0], location[1], piece); return; }
+        int location = findWin(board, piece);
+        if (location == NO_MOVE) { location = findWin(board, opponent); }
+        if (location != NO_MOVE) { return location; }
 
         // Play in the center (not needed since it is covered by the opening moves)
-        if (board.isLocationEmpty(1, 1)) { board.playPiece(1, 1, piece); return; }
+        if (board.isLocationEmpty(center)) { return center; }
 
         // Play in a corner opposite of the opponent
-        for (int[] loc : corners) {
-            if (board.getPiece(2-loc[0], 2-loc[1]) == opponent && board.isLocationEmpty(loc[0], loc[1])) {
-                board.playPiece(loc[0], loc[1], piece);
-                return;
+        for (int i = 0; i < cornerRows.length; i++) {
+            int r = cornerRows[i] * last, c = cornerCols[i] * last;
+            if (board.getPiece(last-r, last-c) == opponent && board.isLocationEmpty(r, c)) {
+                return r * size + c;
             }
         }
 
         // Play in any corner
-        for (int[] loc : corners) {
-            if (board.isLocationEmpty(loc[0], loc[1])) { board.playPiece(loc[0], loc[1], piece); return; }
+        for (int i = 0; i < cornerRows.length; i++) {
+            int r = cornerRows[i] * last, c = cornerCols[i] * last;
+            if (board.isLocationEmpty(r, c)) { return r * size + c; }
         }
 
-        // Play in any edge (we have already eliminated center and corners, only places left)
-        for (int[] loc : edges) {
-            if (board.isLocationEmpty(loc[0], loc[1])) { board.playPiece(loc[0], loc[1], piece); return; }
+        // Play in any edge going clockwise from the top (on a 3x3 board we have already eliminated
+        // center and corners, so these are the only places left)
+        for (int i = 1; i < last; i++) { if (board.isLocationEmpty(0, i)) { return i; } }
+        for (int i = 1; i < last; i++) { if (board.isLocationEmpty(i, last)) { return i * size + last; } }
+        for (int i = last - 1; i > 0; i--) { if (board.isLocationEmpty(last, i)) { return last * size + i; } }
+        for (int i = last - 1; i > 0; i--) { if (board.isLocationEmpty(i, 0)) { return i * size; } }
+
+        // Play anywhere left in the middle of a larger board
+        for (int r = 1; r < last; r++) {
+            for (int c = 1; c < last; c++) { if (board.isLocationEmpty(r, c)) { return r * size + c; } }
         }
+        return NO_MOVE;
     }
-
 }
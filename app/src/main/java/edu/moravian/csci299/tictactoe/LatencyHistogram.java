@@ -0,0 +1,112 @@
+package edu.moravian.csci299.tictactoe;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in nanoseconds that can be recorded into from many threads at once
+ * without locking. Latencies are counted in log-linear buckets: every power of two is split into 8
+ * buckets, so any percentile is accurate to within 12.5% whether it is 50 ns or 50 s, using a fixed
+ * 488 counters.
+ */
+public class LatencyHistogram {
+    /** The number of buckets for each power of two, as a power of two */
+    private static final int SUB_BITS = 3;
+    /** The number of buckets for each power of two */
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    /** The number of buckets, enough for every non-negative long */
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    /** The number of latencies in each bucket */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    /** The number of latencies recorded */
+    private final AtomicLong count = new AtomicLong();
+    /** The sum of all of the latencies recorded */
+    private final AtomicLong total = new AtomicLong();
+    /** The largest latency recorded */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency.
+     * @param nanos the latency in nanoseconds, negative latencies count as 0
+     */
+    public void record(long nanos) {
+        if (nanos < 0) { nanos = 0; }
+        counts.incrementAndGet(bucket(nanos));
+        count.incrementAndGet();
+        total.addAndGet(nanos);
+        for (long current = max.get(); nanos > current && !max.compareAndSet(current, nanos); current = max.get()) { }
+    }
+
+    /**
+     * @return the number of latencies recorded
+     */
+    public long getCount() { return count.get(); }
+
+    /**
+     * @return the sum of all of the latencies recorded in nanoseconds
+     */
+    public long getTotal() { return total.get(); }
+
+    /**
+     * @return the average latency in nanoseconds, 0 if there are none
+     */
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) total.get() / n;
+    }
+
+    /**
+     * @return the largest latency recorded in nanoseconds
+     */
+    public long getMax() { return max.get(); }
+
+    /**
+     * Gets a percentile of the latencies, as the upper end of the bucket it falls in (but never more
+     * than the largest latency).
+     * @param fraction the percentile from 0 to 1, for example 0.99 for the 99th percentile
+     * @return the latency in nanoseconds, 0 if there are none
+     */
+    public long getPercentile(double fraction) {
+        if (fraction < 0 || fraction > 1) { throw new IllegalArgumentException("percentile must be from 0 to 1"); }
+        long n = 0, rank = Math.max(1, (long) Math.ceil(fraction * count.get()));
+        for (int i = 0; i < BUCKETS; i++) {
+            n += counts.get(i);
+            if (n >= rank) { return Math.min(lowest(i + 1) - 1, max.get()); }
+        }
+        return max.get();
+    }
+
+    /**
+     * Clears all of the recorded latencies. Latencies recorded at the same time may be partly lost.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) { counts.set(i, 0); }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Gets the bucket a latency is counted in.
+     * @param nanos the latency, not negative
+     * @return the index of the bucket
+     */
+    static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) { return (int) nanos; }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + (int) (nanos >>> (exponent - SUB_BITS)) - SUB_BUCKETS;
+    }
+
+    /**
+     * Gets the lowest latency counted in a bucket.
+     * @param bucket the index of the bucket, BUCKETS gives one past the largest latency
+     * @return the lowest latency in nanoseconds
+     */
+    static long lowest(int bucket) {
+        if (bucket < SUB_BUCKETS) { return bucket; }
+        if (bucket >= BUCKETS) { return Long.MAX_VALUE; }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BITS);
+    }
+}
@@ -22,7 +22,7 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
         setContentView(R.layout.activity_main);
 
         difficultySelector = findViewById(R.id.difficulty_select);
-        List<String> difficulties = Arrays.asList("Easy", "Medium", "Hard");
+        List<String> difficulties = Arrays.asList("Easy", "Medium", "Hard", "Perfect");
         ArrayAdapter<String> dropdown = new ArrayAdapter<>(this,
                 android.R.layout.simple_spinner_item, difficulties);
         dropdown.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
@@ -0,0 +1,335 @@
+package edu.moravian.csci299.tictactoe;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A match between a human and an AI made up of several rounds. This is the model behind Game, kept
+ * free of anything Android so that it can also be used headless (for example by the game server).
+ * It is not thread-safe.
+ */
+public class Match {
+    /** The number of bytes in a snapshot of a match, see writeSnapshot() */
+    public static final int SNAPSHOT_BYTES = 16;
+    /** Set in the first int of a snapshot if the match has started */
+    private static final int STARTED = 1 << 18;
+    /** Set in the first int of a snapshot if the human player is X */
+    private static final int PLAYER_X = 1 << 19;
+
+    /** The AI being used to play against the human */
+    private AI ai;
+    /** The current board for the match, replaced for each new round */
+    private Board board;
+    /** The pieces used by the human and AI players */
+    private final char[] pieces = {'?', '?'};
+    /** The number of wins by the human ndn AI players */
+    private final int[] wins = {0, 0};
+    /** The number of ties between the human and AI players */
+    private int ties = 0;
+    /** Chooses who goes first in each round */
+    private final SplitRandom random = new SplitRandom();
+    /** The metrics the match records to */
+    private final Metrics metrics;
+    /** The metrics for the kind of AI being played against */
+    private Metrics.AIStats aiStats;
+    /** The most time the AI may think about each move in milliseconds, 0 for no limit */
+    private long thinkTimeMillis;
+
+    /**
+     * Creates a match that records to the metrics of the whole app.
+     */
+    public Match() { this(Metrics.getInstance()); }
+
+    /**
+     * Creates a match.
+     * @param metrics the metrics to record the AI's moves and the outcome of every round to
+     */
+    public Match(Metrics metrics) {
+        if (metrics == null) { throw new IllegalArgumentException("no metrics"); }
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return true if the match has been started at all (i.e. startNewRound() has ever been called)
+     */
+    public boolean hasStarted() {
+        return board != null;
+    }
+
+    /**
+     * Set the AI for this match. This must be called before any other method is called. It should
+     * only be called once.
+     * @param ai the AI to use for this match.
+     */
+    public void setAI(AI ai) {
+        this.ai = ai;
+        this.aiStats = metrics.forAI(ai);
+    }
+
+    /**
+     * Limits how long the AI may think about each move. AIs that search play the best move they
+     * have found when the time runs out.
+     * @param millis the most time for each move in milliseconds, or 0 for no limit
+     */
+    public void setThinkTime(long millis) {
+        if (millis < 0) { throw new IllegalArgumentException("negative think time"); }
+        this.thinkTimeMillis = millis;
+    }
+
+    /**
+     * Seeds the random choice of who goes first in each round so that the same sequence of rounds
+     * can be played again. This doesn't seed the AI, use AI.setSeed() for that.
+     * @param seed the seed for the random number generator
+     */
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+    }
+
+    /**
+     * Start a new round of the match. This is only allowed right after the match is created or the
+     * previous round has ended. At any other point this will raise an exception.
+     *
+     * This creates a new board for the round and randomly assigns the human and AI to the X and O
+     * pieces. If the AI is selected to go first (it is the 'O' piece), it takes its first turn.
+     */
+    public void startNewRound() { startNewRound(true); }
+
+    /**
+     * Start a new round of the match, like startNewRound(), optionally leaving the AI's first turn
+     * to be taken later with selectAIMove() and playAIMove().
+     * @param playAI true if the AI should take its first turn right away when it goes first
+     */
+    public void startNewRound(boolean playAI) {
+        if (board != null && !board.isGameOver()) {
+            throw new IllegalStateException("wrong time to start a round");
+        }
+        board = new Board();
+        if (random.nextInt(2) == 0) {
+            pieces[0] = 'X';
+            pieces[1] = 'O';
+            if (playAI) { playAI(); } // AI (piece O) goes first
+        } else {
+            pieces[0] = 'O';
+            pieces[1] = 'X';
+        }
+    }
+
+    /**
+     * Gets the human player's piece, either 'O' or 'X'. Must be called after startNewRound().
+     * @return either 'O' or 'X' for the human player's piece
+     */
+    public char getPlayerPiece() { return pieces[0]; }
+
+    /**
+     * @return the current game board, which is null before the first round
+     */
+    public Board getBoard() { return board; }
+
+    /**
+     * Has the human play on the board in the given row and column. This returns false if the move
+     * was illegal. If the player does not end the game then the AI also takes its turn. If this
+     * method is called before the first round has started or when the game is over it raises an
+     * exception.
+     *
+     * @param r the row to play in, from 0 to 2
+     * @param c the column to play in, from 0 to 2
+     * @return true the player's piece was successfully played, false otherwise
+     */
+    public boolean playPiece(int r, int c) {
+        if (!playPlayerPiece(r, c)) { return false; }
+        if (isAITurn()) { playAI(); }
+        return true;
+    }
+
+    /**
+     * Has the human play on the board in the given row and column without the AI taking its turn,
+     * which must then be done with selectAIMove() and playAIMove(). This returns false if the move
+     * was illegal. If this method is called before the first round has started, when the game is
+     * over, or during the AI's turn it raises an exception.
+     *
+     * @param r the row to play in, from 0 to 2
+     * @param c the column to play in, from 0 to 2
+     * @return true the player's piece was successfully played, false otherwise
+     */
+    public boolean playPlayerPiece(int r, int c) {
+        if (board == null || board.isGameOver() || isAITurn()) {
+            throw new IllegalStateException("wrong time to play a piece");
+        }
+        if (!board.playPiece(r, c, pieces[0])) { return false; }
+        checkGameOver();
+        return true;
+    }
+
+    /**
+     * @return true if a round is being played and it is the AI's turn
+     */
+    public boolean isAITurn() {
+        return board != null && !board.isGameOver() && (board.getMoveCount() % 2 == 0 ? 'O' : 'X') == pieces[1];
+    }
+
+    /**
+     * Has the AI choose its move within the think time, recording how long it took in the metrics.
+     * This only reads the board it is given and not the match's board, so it can be run on another
+     * thread with a copy of the board while the match's board is being shown, as long as nothing
+     * else uses the AI.
+     * @param board the board (or a copy of it) to choose a move on
+     * @return the index of the location the AI chose
+     */
+    public int selectAIMove(Board board) { return selectAIMove(board, newAIDeadline()); }
+
+    /**
+     * Has the AI choose its move like selectAIMove(Board), stopping when the deadline expires.
+     * @param board the board (or a copy of it) to choose a move on
+     * @param deadline when the AI has to stop thinking, usually from newAIDeadline() so that it can
+     *                 also be cancelled
+     * @return the index of the location the AI chose
+     */
+    public int selectAIMove(Board board, Deadline deadline) {
+        long start = System.nanoTime();
+        int location = ai.selectMove(board, pieces[1], deadline).getMove();
+        aiStats.recordMove(System.nanoTime() - start);
+        return location;
+    }
+
+    /**
+     * @return a new deadline for the AI's next move, expiring after the think time (if there is
+     * one) or when cancelled
+     */
+    public Deadline newAIDeadline() {
+        return thinkTimeMillis > 0 ? Deadline.after(thinkTimeMillis) : Deadline.none();
+    }
+
+    /**
+     * Plays the AI's piece at the location it chose with selectAIMove(). If this method is called
+     * when it is not the AI's turn it raises an exception.
+     * @param location the index of the location to play
+     */
+    public void playAIMove(int location) {
+        if (!isAITurn()) { throw new IllegalStateException("wrong time for the AI to play"); }
+        if (!board.playPiece(location, pieces[1])) { throw new IllegalStateException("AI did not play a piece"); }
+        checkGameOver();
+    }
+
+    /**
+     * Has the AI take its turn right away.
+     */
+    private void playAI() { playAIMove(selectAIMove(board)); }
+
+    /**
+     * @return true if the game is over and the human player has won
+     */
+    public boolean hasPlayerWon() {
+        return board.hasWon(pieces[0]);
+    }
+
+    /**
+     * @return true if the game is over and the AI player has won
+     */
+    public boolean hasAIWon() {
+        return board.hasWon(pieces[1]);
+    }
+
+    /**
+     * @return true if the game is over and it is a tie
+     */
+    public boolean hasTied() {
+        return board.hasTied();
+    }
+
+    /**
+     * Checks if the game has ended and updates the counters appropriately.
+     * @return true if the game has ended, false otherwise
+     */
+    private boolean checkGameOver() {
+        if (!board.isGameOver()) { return false; }
+        if (board.hasTied()) { ties++; }
+        else { wins[hasPlayerWon() ? 0 : 1]++; }
+        aiStats.recordOutcome(board, pieces[1]);
+        return true;
+    }
+
+    /**
+     * Writes a compact fixed-width snapshot of the match: SNAPSHOT_BYTES bytes made of an int with the
+     * O pieces (bits 0-8) and X pieces (bits 9-17) of the board, whether the match has started
+     * (bit 18) and whether the human is X (bit 19), followed by ints for the human's wins, the AI's
+     * wins, and the ties. The AI is not included.
+     * @param out the buffer to write to at its position, which is moved past the snapshot
+     */
+    public void writeSnapshot(ByteBuffer out) {
+        int header = 0;
+        if (board != null) {
+            header = (int) board.mask('O') | (int) board.mask('X') << 9 | STARTED | (pieces[0] == 'X' ? PLAYER_X : 0);
+        }
+        out.putInt(header).putInt(wins[0]).putInt(wins[1]).putInt(ties);
+    }
+
+    /**
+     * Replaces the state of this match with a snapshot written by writeSnapshot(), keeping the AI.
+     * The board comes back with the same pieces, but the order they were played in is lost.
+     * @param in the buffer to read from at its position, which is moved past the snapshot
+     */
+    public void readSnapshot(ByteBuffer in) {
+        int header = in.getInt();
+        if ((header & STARTED) != 0) {
+            board = Board.fromMasks(Board.DEFAULT_SIZE, Board.DEFAULT_WIN_LENGTH, header & 0x1FF, (header >>> 9) & 0x1FF);
+            pieces[0] = (header & PLAYER_X) != 0 ? 'X' : 'O';
+            pieces[1] = pieces[0] == 'X' ? 'O' : 'X';
+        } else {
+            board = null;
+            pieces[0] = pieces[1] = '?';
+        }
+        wins[0] = in.getInt();
+        wins[1] = in.getInt();
+        ties = in.getInt();
+    }
+
+    /**
+     * @return the number of rounds the human player has won
+     */
+    public int getPlayerWins() { return wins[0]; }
+
+    /**
+     * @return the number of rounds the AI player has won
+     */
+    public int getAIWins() { return wins[1]; }
+
+    /**
+     * @return the number of rounds the human and AI have tied
+     */
+    public int getTies() { return ties; }
+
+
+    ////////// General Object Methods //////////
+
+    @Override
+    public String toString() {
+        return "Match{" +
+                "ai=" + ai +
+                ", board=" + board +
+                ", pieces=" + Arrays.toString(pieces) +
+                ", wins=" + Arrays.toString(wins) +
+                ", ties=" + ties +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Match match = (Match) o;
+        return ties == match.ties &&
+                Objects.equals(ai, match.ai) &&
+                Objects.equals(board, match.board) &&
+                Arrays.equals(pieces, match.pieces) &&
+                Arrays.equals(wins, match.wins);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(ai, board, ties);
+        result = 31 * result + Arrays.hashCode(pieces);
+        result = 31 * result + Arrays.hashCode(wins);
+        return result;
+    }
+}
@@ -14,15 +14,21 @@ public class MediumAI extends AI {
      */
     @Override
     public void play(Board board, char piece) {
-        char opponent = oppositePiece(piece);
-        int[] location = findWin(board, piece);
-
-        if (location == null) { location = findWin(board, opponent);  }
-        if (location != null) {
-            board.playPiece(location[0], location[1], piece);
-            return;
-        }
+        playMove(board, selectMove(board, piece), piece);
+    }
 
-        playRandomMove(board, piece);
+    /**
+     * Tries to find a location to win, then a location to block, and finally chooses randomly.
+     * @param board the board to play on, which is not changed
+     * @param piece the piece to play (either 'X' or 'O')
+     * @return the index of the chosen location, or NO_MOVE if the game is over
+     */
+    @Override
+    public int selectMove(Board board, char piece) {
+        if (board.isGameOver()) { return NO_MOVE; }
+        int location = findWin(board, piece);
+        if (location == NO_MOVE) { location = findWin(board, oppositePiece(piece)); }
+        if (location == NO_MOVE) { location = selectRandomMove(board); }
+        return location;
     }
 }
@@ -0,0 +1,226 @@
+package edu.moravian.csci299.tictactoe;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics about how the AIs play: for each kind of AI, a histogram of how long its moves take, how
+ * many moves it has made, and how many rounds it has won, lost, and tied. Matches record every move
+ * and round. Simulations only time a sample of the moves and add up their counts in each task
+ * before adding them here, so the metrics cost almost nothing even at millions of moves per second.
+ *
+ * There is a single set of metrics for the whole app, from getInstance(), which matches and
+ * simulations record to unless they are given their own. Metrics can be sent anywhere (a file, the
+ * log) with an Exporter.
+ */
+public final class Metrics {
+    /** Sends the metrics somewhere, for example to a file or the log */
+    public interface Exporter { void export(Metrics metrics); }
+
+    /** The metrics for each kind of AI, by name */
+    private final ConcurrentHashMap<String, AIStats> ais = new ConcurrentHashMap<>();
+    /** When the metrics were created or last reset, from System.nanoTime() */
+    private volatile long since = System.nanoTime();
+    /** If metrics are being recorded */
+    private volatile boolean enabled = true;
+
+    /** Lazily creates the single set of metrics the first time they are needed. */
+    private static class Holder { static final Metrics INSTANCE = new Metrics(); }
+
+    /**
+     * @return the metrics for the whole app
+     */
+    public static Metrics getInstance() { return Holder.INSTANCE; }
+
+    /**
+     * Creates a set of metrics separate from the app's, for example for tests or for a single
+     * simulation.
+     */
+    public Metrics() { }
+
+    /**
+     * @return true if metrics are being recorded
+     */
+    public boolean isEnabled() { return enabled; }
+
+    /**
+     * Turns recording metrics on or off. They are on to start with.
+     * @param enabled true to record metrics
+     */
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    /**
+     * Gets the metrics for a kind of AI, creating them the first time.
+     * @param ai an AI of that kind
+     * @return the metrics for all AIs of the same class
+     */
+    public AIStats forAI(AI ai) {
+        String name = ai.getClass().getSimpleName();
+        if (name.isEmpty()) { name = ai.getClass().getName(); }
+        AIStats stats = ais.get(name);
+        if (stats == null) {
+            AIStats created = new AIStats(name);
+            stats = ais.putIfAbsent(name, created);
+            if (stats == null) { stats = created; }
+        }
+        return stats;
+    }
+
+    /**
+     * @return the metrics of every kind of AI that has played, by name
+     */
+    public Map<String, AIStats> getAIs() { return new TreeMap<>(ais); }
+
+    /**
+     * @return how long the metrics have been recorded for (since they were created or reset) in
+     * nanoseconds
+     */
+    public long getElapsedNanos() { return System.nanoTime() - since; }
+
+    /**
+     * Clears all of the metrics.
+     */
+    public void reset() {
+        for (AIStats stats : ais.values()) { stats.reset(); }
+        since = System.nanoTime();
+    }
+
+    /**
+     * Sends the current metrics to an exporter.
+     * @param exporter where to send the metrics
+     */
+    public void export(Exporter exporter) { exporter.export(this); }
+
+    /**
+     * Creates an exporter that prints one line for each kind of AI, for example to a file with
+     * new PrintStream(new FileOutputStream(file, true)) or to System.out.
+     * @param out where to print the metrics
+     * @return the exporter
+     */
+    public static Exporter printTo(PrintStream out) {
+        return metrics -> {
+            for (AIStats stats : metrics.getAIs().values()) { out.println(stats); }
+            out.flush();
+        };
+    }
+
+    /**
+     * The metrics for one kind of AI. All of the methods can be used from many threads at once.
+     */
+    public final class AIStats {
+        /** The name of the kind of AI */
+        private final String name;
+        /** How long the timed moves took */
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        /** The number of moves made, timed or not */
+        private final AtomicLong moves = new AtomicLong();
+        /** The number of rounds won, lost, and tied */
+        private final AtomicLong wins = new AtomicLong(), losses = new AtomicLong(), ties = new AtomicLong();
+
+        /**
+         * @param name the name of the kind of AI
+         */
+        private AIStats(String name) { this.name = name; }
+
+        /**
+         * Records a single timed move.
+         * @param nanos how long the move took in nanoseconds
+         */
+        public void recordMove(long nanos) {
+            if (!enabled) { return; }
+            latencies.record(nanos);
+            moves.incrementAndGet();
+        }
+
+        /**
+         * Records the time of a move without counting it as a move, for moves that are counted with
+         * addMoves() instead.
+         * @param nanos how long the move took in nanoseconds
+         */
+        public void recordSample(long nanos) {
+            if (enabled) { latencies.record(nanos); }
+        }
+
+        /**
+         * Counts moves that were not timed.
+         * @param count the number of moves
+         */
+        public void addMoves(long count) {
+            if (enabled) { moves.addAndGet(count); }
+        }
+
+        /**
+         * Records how a round ended for the AI.
+         * @param board the board at the end of the round
+         * @param piece the piece the AI played
+         */
+        public void recordOutcome(Board board, char piece) {
+            if (board.hasTied()) { addOutcomes(0, 0, 1); }
+            else if (board.hasWon(piece)) { addOutcomes(1, 0, 0); }
+            else if (board.isGameOver()) { addOutcomes(0, 1, 0); }
+        }
+
+        /**
+         * Counts the outcomes of many rounds at once.
+         * @param wins the number of rounds the AI won
+         * @param losses the number of rounds the AI lost
+         * @param ties the number of rounds that were tied
+         */
+        public void addOutcomes(long wins, long losses, long ties) {
+            if (!enabled) { return; }
+            if (wins != 0) { this.wins.addAndGet(wins); }
+            if (losses != 0) { this.losses.addAndGet(losses); }
+            if (ties != 0) { this.ties.addAndGet(ties); }
+        }
+
+        /** @return the name of the kind of AI */
+        public String getName() { return name; }
+
+        /** @return the histogram of move latencies (of all moves from matches, a sample from simulations) */
+        public LatencyHistogram getLatencies() { return latencies; }
+
+        /** @return the number of moves made */
+        public long getMoves() { return moves.get(); }
+
+        /** @return the number of moves made per second since the metrics were created or reset */
+        public double getMovesPerSecond() { return moves.get() * 1e9 / Math.max(1, getElapsedNanos()); }
+
+        /** @return the number of rounds won */
+        public long getWins() { return wins.get(); }
+
+        /** @return the number of rounds lost */
+        public long getLosses() { return losses.get(); }
+
+        /** @return the number of rounds tied */
+        public long getTies() { return ties.get(); }
+
+        /**
+         * Clears the metrics.
+         */
+        void reset() {
+            latencies.reset();
+            moves.set(0);
+            wins.set(0);
+            losses.set(0);
+            ties.set(0);
+        }
+
+        @Override
+        public String toString() {
+            return name +
+                    " moves=" + getMoves() +
+                    " moves/s=" + Math.round(getMovesPerSecond()) +
+                    " timed=" + latencies.getCount() +
+                    " mean=" + Math.round(latencies.getMean()) + "ns" +
+                    " p50=" + latencies.getPercentile(0.5) + "ns" +
+                    " p99=" + latencies.getPercentile(0.99) + "ns" +
+                    " max=" + latencies.getMax() + "ns" +
+                    " wins=" + getWins() +
+                    " losses=" + getLosses() +
+                    " ties=" + getTies();
+        }
+    }
+}
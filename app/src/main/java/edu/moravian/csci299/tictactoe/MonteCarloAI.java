@@ -0,0 +1,292 @@
+package edu.moravian.csci299.tictactoe;
+
+import java.util.Arrays;
+
+/**
+ * The Monte Carlo AI uses Monte Carlo Tree Search (MCTS) with UCT selection, so it can play on
+ * boards that are far too large to search completely. Each iteration walks down the tree picking
+ * the child with the best upper confidence bound, adds the children of the leaf it reaches, plays
+ * the rest of the game out with random moves, and records who won in every node along the way. The
+ * location that was explored the most is played.
+ *
+ * The number of iterations and the amount of time to think are both configurable, searching stops
+ * when either runs out (or when the deadline given to selectMove() expires). All of the work is
+ * done on a single copy of the board, playing and taking back moves, and random moves are picked
+ * directly from the board's empty locations. The tree is kept in primitive arrays that are reused
+ * between moves. The tree is limited to a maximum number of nodes so that long searches on large
+ * boards can't run out of memory: once it is full, leaves are no longer expanded and iterations
+ * just play out randomly from the leaf they reach.
+ *
+ * Each iteration costs about a microsecond on a 3x3 board, so the default budget takes about 20 ms
+ * for a move. Between moves the arrays hold INITIAL_NODES nodes (about 24 KB); a search that needs
+ * more grows them (about 24 bytes per node) and they are shrunk back once the move is chosen, so a
+ * bigger tree only costs memory while it is being searched.
+ */
+public class MonteCarloAI extends AI {
+    /** The number of iterations used by default */
+    public static final int DEFAULT_ITERATIONS = 20000;
+    /** The maximum number of nodes in the tree used by default (about 24 MB of arrays) */
+    public static final int DEFAULT_MAX_NODES = 1 << 20;
+    /** The number of nodes the arrays hold between moves, trees this small never grow them */
+    public static final int INITIAL_NODES = 1024;
+    /** The exploration constant for UCT, sqrt(2) */
+    private static final double EXPLORATION = Math.sqrt(2);
+    /** Marks a node without any children (yet) */
+    private static final int NONE = -1;
+    /** How many iterations to run between checks of the time (must be a power of 2) */
+    private static final int TIME_CHECK_INTERVAL = 64;
+
+    /** The maximum number of iterations for each move, or 0 for no limit */
+    private final int iterations;
+    /** The maximum time to think for each move in nanoseconds, or 0 for no limit */
+    private final long timeLimitNanos;
+    /** The maximum number of nodes in the tree (the root's children are always added) */
+    private final int maxNodes;
+
+    /** The number of nodes in the tree */
+    private int nodeCount;
+    /** The location played to reach each node */
+    private int[] moves = new int[INITIAL_NODES];
+    /** The first child of each node, or NONE */
+    private int[] firstChildren = new int[INITIAL_NODES];
+    /** The number of children of each node (they are stored next to each other) */
+    private int[] childCounts = new int[INITIAL_NODES];
+    /** The number of times each node has been visited */
+    private int[] visits = new int[INITIAL_NODES];
+    /** The total reward of each node for the player that played its move (1 per win, 0.5 per tie) */
+    private double[] rewards = new double[INITIAL_NODES];
+    /** The nodes visited during the current iteration, from the root down */
+    private int[] path = new int[16];
+    /** The number of iterations run by the last search */
+    private int iterationsRun;
+    /** The deepest any iteration of the last search went into the tree */
+    private int maxDepth;
+    /** True if the last search was stopped by a deadline instead of its own budget */
+    private boolean stopped;
+
+    /**
+     * Creates an AI that uses DEFAULT_ITERATIONS iterations for every move.
+     */
+    public MonteCarloAI() { this(DEFAULT_ITERATIONS, 0); }
+
+    /**
+     * Creates an AI with the given budget for every move. At least one limit must be given.
+     * @param iterations the maximum number of iterations, or 0 for no limit
+     * @param timeLimitMillis the maximum time to think in milliseconds, or 0 for no limit
+     */
+    public MonteCarloAI(int iterations, long timeLimitMillis) { this(iterations, timeLimitMillis, DEFAULT_MAX_NODES); }
+
+    /**
+     * Creates an AI with the given budget for every move and the given limit on the size of its
+     * tree. At least one of the iterations and time limit must be given.
+     * @param iterations the maximum number of iterations, or 0 for no limit
+     * @param timeLimitMillis the maximum time to think in milliseconds, or 0 for no limit
+     * @param maxNodes the maximum number of nodes in the tree, at least 1
+     */
+    public MonteCarloAI(int iterations, long timeLimitMillis, int maxNodes) {
+        if (iterations < 0 || timeLimitMillis < 0 || (iterations == 0 && timeLimitMillis == 0) || maxNodes < 1) {
+            throw new IllegalArgumentException("invalid budget for MonteCarloAI");
+        }
+        this.iterations = iterations;
+        this.timeLimitNanos = timeLimitMillis * 1000000L;
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Plays the location that the search explored the most.
+     * @param board the board to play on
+     * @param piece the piece to play (either 'X' or 'O')
+     */
+    @Override
+    public void play(Board board, char piece) {
+        playMove(board, selectMove(board, piece), piece);
+    }
+
+    /**
+     * Runs the search and chooses the location that was explored the most.
+     * @param board the board to play on, which is not changed
+     * @param piece the piece to play (either 'X' or 'O')
+     * @return the index of the chosen location, or NO_MOVE if the game is over
+     */
+    @Override
+    public int selectMove(Board board, char piece) {
+        return search(board, piece, null);
+    }
+
+    /**
+     * Runs the search until its own budget runs out or the deadline expires, whichever is first.
+     * @param board the board to play on, which is not changed
+     * @param piece the piece to play (either 'X' or 'O')
+     * @param deadline when to stop searching
+     * @return the location that was explored the most, the deepest any iteration went into the
+     * tree, and the number of iterations (each with one random playout)
+     */
+    @Override
+    public SearchResult selectMove(Board board, char piece, Deadline deadline) {
+        int move = search(board, piece, deadline);
+        return new SearchResult(move, maxDepth, iterationsRun, !stopped);
+    }
+
+    /**
+     * Runs the search, leaving the number of iterations and the depth reached in the fields.
+     * @param board the board to play on, which is not changed
+     * @param piece the piece to play (either 'X' or 'O')
+     * @param deadline when to stop searching, or null to only use the AI's own budget
+     * @return the index of the chosen location, or NO_MOVE if the game is over
+     */
+    private int search(Board board, char piece, Deadline deadline) {
+        iterationsRun = maxDepth = 0;
+        stopped = false;
+        if (board.isGameOver()) { return NO_MOVE; }
+        Board search = new Board(board);
+        int rootMoves = search.getMoveCount();
+        if (path.length <= search.countPieces(' ')) { path = new int[search.countPieces(' ') + 1]; }
+
+        nodeCount = 0;
+        int root = addNode(NO_MOVE);
+        long end = System.nanoTime() + timeLimitNanos;
+        for (int i = 0; iterations == 0 || i < iterations; i++) {
+            if (i % TIME_CHECK_INTERVAL == 0 && i > 0) {
+                if (deadline != null && deadline.isExpired()) { stopped = true; break; }
+                if (timeLimitNanos != 0 && System.nanoTime() - end > 0) { break; }
+            }
+            iterate(search, root, piece);
+            while (search.getMoveCount() > rootMoves) { search.undo(); }
+            iterationsRun++;
+        }
+
+        // Play the most visited child
+        int best = firstChildren[root];
+        for (int child = best + 1; child < firstChildren[root] + childCounts[root]; child++) {
+            if (visits[child] > visits[best] || (visits[child] == visits[best] && rewards[child] > rewards[best])) {
+                best = child;
+            }
+        }
+        int move = moves[best];
+        if (moves.length > INITIAL_NODES) { shrink(); }
+        return move;
+    }
+
+    /**
+     * Runs a single iteration of the search: selection, expansion, random playout, and updating
+     * the rewards along the path.
+     * @param search the board at the root of the tree, moves are played on it but not taken back
+     * @param root the root node
+     * @param piece the piece to play at the root
+     */
+    private void iterate(Board search, int root, char piece) {
+        // Selection: follow the best children down to a leaf
+        int node = root, depth = 0;
+        char toMove = piece;
+        path[0] = root;
+        while (firstChildren[node] != NONE) {
+            node = selectChild(node);
+            search.playPiece(moves[node], toMove);
+            toMove = oppositePiece(toMove);
+            path[++depth] = node;
+        }
+
+        if (depth > maxDepth) { maxDepth = depth; }
+
+        // Expansion: add every move from the leaf and go to the first one, if there is room
+        if (!search.isGameOver() && (node == root || nodeCount + search.countPieces(' ') <= maxNodes)) {
+            expand(node, search);
+            node = firstChildren[node];
+            search.playPiece(moves[node], toMove);
+            toMove = oppositePiece(toMove);
+            path[++depth] = node;
+        }
+
+        // Playout: random moves until the game is over
+        SplitRandom random = getRandom();
+        while (!search.isGameOver()) {
+            search.playPiece(search.getEmptyLocation(random.nextInt(search.countPieces(' '))), toMove);
+            toMove = oppositePiece(toMove);
+        }
+
+        // Backpropagation: the player that moved into each node gets the reward
+        boolean tied = search.hasTied();
+        char mover = piece;
+        for (int d = 1; d <= depth; d++) {
+            int n = path[d];
+            visits[n]++;
+            rewards[n] += tied ? 0.5 : search.hasWon(mover) ? 1 : 0;
+            mover = oppositePiece(mover);
+        }
+        visits[root]++;
+    }
+
+    /**
+     * Chooses the child with the highest upper confidence bound (UCT), or the first one that has
+     * never been visited.
+     * @param node the node to choose a child of
+     * @return the chosen child
+     */
+    private int selectChild(int node) {
+        int first = firstChildren[node], best = first;
+        double logVisits = Math.log(visits[node]), bestValue = Double.NEGATIVE_INFINITY;
+        for (int child = first; child < first + childCounts[node]; child++) {
+            if (visits[child] == 0) { return child; }
+            double value = rewards[child] / visits[child] + EXPLORATION * Math.sqrt(logVisits / visits[child]);
+            if (value > bestValue) { best = child; bestValue = value; }
+        }
+        return best;
+    }
+
+    /**
+     * Adds a child to the node for every empty location on the board.
+     * @param node the leaf node to expand
+     * @param search the board at that node
+     */
+    private void expand(int node, Board search) {
+        int empty = search.countPieces(' ');
+        firstChildren[node] = nodeCount;
+        childCounts[node] = empty;
+        for (int i = 0; i < empty; i++) { addNode(search.getEmptyLocation(i)); }
+    }
+
+    /**
+     * @return the number of nodes in the tree of the last search
+     */
+    int getNodeCount() { return nodeCount; }
+
+    /**
+     * Replaces the arrays with ones of INITIAL_NODES nodes, so that a large tree isn't kept between
+     * moves. The tree of the last search is lost, but only getNodeCount() is used after a search.
+     */
+    private void shrink() {
+        moves = new int[INITIAL_NODES];
+        firstChildren = new int[INITIAL_NODES];
+        childCounts = new int[INITIAL_NODES];
+        visits = new int[INITIAL_NODES];
+        rewards = new double[INITIAL_NODES];
+    }
+
+    /**
+     * @return the number of nodes the arrays can hold without growing
+     */
+    int getCapacity() { return moves.length; }
+
+    /**
+     * Adds a new node to the tree, growing the arrays if needed.
+     * @param move the location played to reach the node
+     * @return the new node
+     */
+    private int addNode(int move) {
+        if (nodeCount == moves.length) {
+            int capacity = 2 * moves.length;
+            moves = Arrays.copyOf(moves, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            childCounts = Arrays.copyOf(childCounts, capacity);
+            visits = Arrays.copyOf(visits, capacity);
+            rewards = Arrays.copyOf(rewards, capacity);
+        }
+        int node = nodeCount++;
+        moves[node] = move;
+        firstChildren[node] = NONE;
+        childCounts[node] = 0;
+        visits[node] = 0;
+        rewards[node] = 0;
+        return node;
+    }
+}
@@ -0,0 +1,406 @@
+package edu.moravian.csci299.tictactoe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * An AI for large boards (up to 8x8) that searches a fixed number of moves ahead with alpha-beta
+ * pruning spread across the cores of a fork-join pool, using Young Brothers Wait: at every position
+ * the first (eldest) move is searched on its own to get a good bound, and only then are the rest of
+ * the moves (its younger brothers) searched in parallel, each on its own copy of the board. The
+ * root is split the same way. When one of the parallel moves causes a cutoff, the others are told
+ * to stop. Positions close to the end of the search are never split since they are too small to be
+ * worth a task.
+ *
+ * Positions where the search stops are scored by the lines that only one player has pieces in,
+ * and moves are tried in a fixed order (wins, blocks, then from the center out), without any
+ * tables shared between threads, so the search always gives the same result as searching on a
+ * single thread: the earliest move (in that order) with the best score, which is always searched
+ * exactly. Only the number of positions looked at changes with the number of threads.
+ */
+public class ParallelAI extends AI {
+    /** The number of moves ahead searched by default */
+    public static final int DEFAULT_DEPTH = 5;
+    /** Positions with fewer moves than this left to search are searched without splitting */
+    private static final int MIN_SPLIT_DEPTH = 3;
+    /** The score of a win, less the number of moves needed to get it */
+    private static final int WIN = 1000000;
+    /** How many positions a task searches between checks if it has been told to stop (must be a power of 2) */
+    private static final int STOP_CHECK_INTERVAL = 256;
+
+    /** The number of moves ahead to search */
+    private final int depth;
+    /** The pool that runs the search */
+    private final ForkJoinPool pool;
+    /** The locations of each board size ordered from the center out, by size */
+    private final int[][] centerOrders = new int[9][];
+    /** The score of the move chosen by the last search */
+    private int lastScore;
+    /** The number of positions looked at by the last search */
+    private long lastNodes;
+
+    /**
+     * Creates an AI that searches DEFAULT_DEPTH moves ahead using the common fork-join pool.
+     */
+    public ParallelAI() { this(DEFAULT_DEPTH, ForkJoinPool.commonPool()); }
+
+    /**
+     * Creates an AI that searches a fixed number of moves ahead.
+     * @param depth the number of moves ahead to search, at least 1
+     * @param pool the pool to search in, its parallelism is the number of threads used
+     */
+    public ParallelAI(int depth, ForkJoinPool pool) {
+        if (depth < 1) { throw new IllegalArgumentException("depth must be at least 1"); }
+        this.depth = depth;
+        this.pool = pool;
+    }
+
+    /**
+     * Plays the best move found by the search.
+     * @param board the board to play on
+     * @param piece the piece to play (either 'X' or 'O')
+     */
+    @Override
+    public void play(Board board, char piece) {
+        playMove(board, selectMove(board, piece), piece);
+    }
+
+    /**
+     * Searches the board and chooses the earliest move with the best score.
+     * @param board the board to play on, which is not changed, with at most 64 locations
+     * @param piece the piece to play (either 'X' or 'O')
+     * @return the index of the chosen location, or NO_MOVE if the game is over
+     */
+    @Override
+    public int selectMove(Board board, char piece) {
+        if (board.isGameOver()) { return NO_MOVE; }
+        Root root = new Root(new Board(board), piece);
+        int move = pool.invoke(root);
+        lastScore = root.score;
+        lastNodes = root.nodes;
+        return move;
+    }
+
+    /**
+     * Searches the board to the fixed depth. The deadline is only checked before the search starts
+     * since a fixed-depth search can't stop early and still give the same move as on one thread.
+     * @param board the board to play on, which is not changed, with at most 64 locations
+     * @param piece the piece to play (either 'X' or 'O')
+     * @param deadline ignored other than being already expired, which plays the first move found
+     * @return the chosen move, the depth, and the number of positions looked at
+     */
+    @Override
+    public SearchResult selectMove(Board board, char piece, Deadline deadline) {
+        if (deadline.isExpired() && !board.isGameOver()) {
+            int[] moves = new int[board.getSize() * board.getSize()];
+            orderMoves(board, piece, moves, centerOrder(board.getSize()));
+            return new SearchResult(moves[0], 0, 0, false);
+        }
+        int move = selectMove(board, piece);
+        return new SearchResult(move, move == NO_MOVE ? 0 : depth, lastNodes, true);
+    }
+
+    /** @return the score of the move chosen by the last search, for the player that moved */
+    int getLastScore() { return lastScore; }
+
+    /**
+     * Finds all of the empty locations in the order they are searched: locations that win first,
+     * then locations that block the opponent from winning, then the rest from the center out.
+     * @param board the board to play on
+     * @param piece the piece to play
+     * @param moves filled in with the locations
+     * @param centerOrder the locations of the board ordered from the center out
+     * @return the number of locations
+     */
+    private int orderMoves(Board board, char piece, int[] moves, int[] centerOrder) {
+        long wins = board.winningLocations(piece), blocks = board.winningLocations(oppositePiece(piece)) & ~wins;
+        long rest = ~(board.mask('X') | board.mask('O') | wins | blocks);
+        int count = 0;
+        for (long w = wins; w != 0; w &= w - 1) { moves[count++] = Long.numberOfTrailingZeros(w); }
+        for (long b = blocks; b != 0; b &= b - 1) { moves[count++] = Long.numberOfTrailingZeros(b); }
+        for (int location : centerOrder) { if ((rest & (1L << location)) != 0) { moves[count++] = location; } }
+        return count;
+    }
+
+    /**
+     * Gets the locations of a board ordered from the center out, breaking ties by location.
+     * @param size the size of the board
+     * @return the locations in order, shared between calls
+     */
+    private synchronized int[] centerOrder(int size) {
+        if (centerOrders[size] == null) {
+            Integer[] order = new Integer[size * size];
+            for (int i = 0; i < order.length; i++) { order[i] = i; }
+            Arrays.sort(order, (a, b) -> {
+                int da = distance(a, size), db = distance(b, size);
+                return da != db ? Integer.compare(da, db) : Integer.compare(a, b);
+            });
+            int[] locations = new int[order.length];
+            for (int i = 0; i < order.length; i++) { locations[i] = order[i]; }
+            centerOrders[size] = locations;
+        }
+        return centerOrders[size];
+    }
+
+    /**
+     * @param location a location on the board
+     * @param size the size of the board
+     * @return twice the distance of the location from the center, by rows plus columns
+     */
+    private static int distance(int location, int size) {
+        return Math.abs(2 * (location / size) - (size - 1)) + Math.abs(2 * (location % size) - (size - 1));
+    }
+
+    /**
+     * Scores a position where the search stops by the lines that only one player has pieces in:
+     * each is worth 4 times as much for every piece in it.
+     * @param board the board to score
+     * @param piece the piece of the player to move
+     * @return the score for that player
+     */
+    private static int evaluate(Board board, char piece) {
+        long own = board.mask(piece), other = board.mask(piece == 'X' ? 'O' : 'X');
+        int score = 0;
+        for (long line : board.lines()) {
+            long mine = line & own, theirs = line & other;
+            if (theirs == 0) { score += (1 << (2 * Long.bitCount(mine))) - 1; }
+            else if (mine == 0) { score -= (1 << (2 * Long.bitCount(theirs))) - 1; }
+        }
+        return score;
+    }
+
+    /**
+     * A position whose younger brothers are being searched in parallel. They share the best score
+     * found so far, and a cutoff by any of them (or of a position above) stops all of them.
+     */
+    private static final class Split {
+        /** The split position above this one in the tree, or null */
+        final Split parent;
+        /** The best score found so far at this position */
+        volatile int alpha;
+        /** Set once a move has caused a cutoff, so the other moves can stop */
+        volatile boolean cut;
+
+        /**
+         * @param parent the split position above this one, or null
+         * @param alpha the score of the eldest brother
+         */
+        Split(Split parent, int alpha) {
+            this.parent = parent;
+            this.alpha = alpha;
+        }
+
+        /**
+         * Raises the best score if the given score is better.
+         * @param score a score found at this position
+         */
+        synchronized void raise(int score) { if (score > alpha) { alpha = score; } }
+
+        /** @return true if this position or any above it has been cut off */
+        boolean isCut() {
+            for (Split split = this; split != null; split = split.parent) { if (split.cut) { return true; } }
+            return false;
+        }
+    }
+
+    /**
+     * Searches the positions below one move, on its own copy of the board.
+     */
+    @SuppressWarnings("serial") // tasks are never serialized
+    private class Search extends RecursiveTask<Integer> {
+        /** The board with the move played, only used by this task */
+        final Board board;
+        /** The piece that plays next */
+        final char piece;
+        /** The number of moves ahead left to search */
+        final int depth;
+        /** The number of moves from the root */
+        final int ply;
+        /** The score the opponent is already sure of */
+        final int beta;
+        /** The position this is one of the younger brothers of */
+        final Split split;
+        /** The moves at each depth of this task's search */
+        final int[][] moves;
+        /** The locations of the board ordered from the center out */
+        final int[] centerOrder;
+        /** The score the player to move was sure of when the search started */
+        int alpha;
+        /** The number of positions this task and the tasks it started looked at */
+        long nodes;
+        /** Set if the task stopped because of a cutoff above it, so its result means nothing */
+        boolean stopped;
+
+        /**
+         * @param board the board with the move played, only used by this task
+         * @param piece the piece that plays next
+         * @param depth the number of moves ahead left to search
+         * @param ply the number of moves from the root
+         * @param beta the score the opponent is already sure of
+         * @param split the position this is one of the younger brothers of
+         */
+        Search(Board board, char piece, int depth, int ply, int beta, Split split) {
+            this.board = board;
+            this.piece = piece;
+            this.depth = depth;
+            this.ply = ply;
+            this.beta = beta;
+            this.split = split;
+            this.moves = new int[depth + 1][board.getSize() * board.getSize()];
+            this.centerOrder = centerOrder(board.getSize());
+        }
+
+        /**
+         * Searches with the best score of the brothers so far, which is from the point of view of
+         * the player that made the move.
+         * @return the score for the player that made the move
+         */
+        @Override
+        protected Integer compute() {
+            alpha = split.alpha;
+            return -negamax(piece, depth, ply, -beta, -alpha, split);
+        }
+
+        /**
+         * Scores a position with alpha-beta pruning, from the point of view of the player to move,
+         * splitting the younger brothers across the pool if there is enough left to search.
+         * @param piece the piece to play
+         * @param depth the number of moves ahead left to search
+         * @param ply the number of moves from the root
+         * @param alpha the score the player to move is already sure of
+         * @param beta the score the opponent is already sure of
+         * @param split the nearest split position above this one
+         * @return the score of the position (meaningless if stopped)
+         */
+        int negamax(char piece, int depth, int ply, int alpha, int beta, Split split) {
+            if ((++nodes & (STOP_CHECK_INTERVAL - 1)) == 0 && split.isCut()) { stopped = true; }
+            if (stopped) { return 0; }
+            if (board.isGameOver()) { return board.hasTied() ? 0 : -(WIN - ply); } // the opponent just won
+            if (depth == 0) { return evaluate(board, piece); }
+            char opponent = oppositePiece(piece);
+            int[] list = moves[depth];
+            int count = orderMoves(board, piece, list, centerOrder);
+
+            // The eldest brother is searched first, on its own
+            board.playPiece(list[0], piece);
+            int best = -negamax(opponent, depth - 1, ply + 1, -beta, -alpha, split);
+            board.undo();
+            if (stopped || best >= beta || count == 1) { return best; }
+            alpha = Math.max(alpha, best);
+
+            if (depth < MIN_SPLIT_DEPTH || pool.getParallelism() == 1) {
+                for (int i = 1; i < count && alpha < beta; i++) {
+                    board.playPiece(list[i], piece);
+                    int score = -negamax(opponent, depth - 1, ply + 1, -beta, -alpha, split);
+                    board.undo();
+                    if (stopped) { return 0; }
+                    if (score > best) { best = score; }
+                    if (score > alpha) { alpha = score; }
+                }
+                return best;
+            }
+
+            // The younger brothers are searched in parallel
+            Split brothers = new Split(split, alpha);
+            List<Search> tasks = new ArrayList<>(count - 1);
+            for (int i = 1; i < count; i++) {
+                Board copy = new Board(board);
+                copy.playPiece(list[i], piece);
+                tasks.add(new Search(copy, opponent, depth - 1, ply + 1, beta, brothers) {
+                    @Override
+                    protected Integer compute() {
+                        int score = super.compute();
+                        if (!stopped) {
+                            brothers.raise(score);
+                            if (score >= beta) { brothers.cut = true; }
+                        }
+                        return score;
+                    }
+                });
+            }
+            invokeAll(tasks);
+            for (Search task : tasks) {
+                nodes += task.nodes;
+                if (!task.stopped && task.join() > best) { best = task.join(); }
+            }
+            if (split.isCut()) { stopped = true; }
+            return best;
+        }
+    }
+
+    /**
+     * Searches every move from the root. Every move after the first is searched with a window
+     * just below the best score so far, so that a move with the same score is still searched
+     * exactly, and the earliest move with the best exact score is chosen, which is always the same
+     * move no matter how the search is split.
+     */
+    @SuppressWarnings("serial") // tasks are never serialized
+    private class Root extends RecursiveTask<Integer> {
+        /** The board to search */
+        final Board board;
+        /** The piece to play */
+        final char piece;
+        /** The score of the chosen move */
+        int score;
+        /** The number of positions looked at */
+        long nodes;
+
+        /**
+         * @param board the board to search, only used by this task
+         * @param piece the piece to play
+         */
+        Root(Board board, char piece) {
+            this.board = board;
+            this.piece = piece;
+        }
+
+        /**
+         * @return the chosen move
+         */
+        @Override
+        protected Integer compute() {
+            int[] list = new int[board.getSize() * board.getSize()];
+            int count = orderMoves(board, piece, list, centerOrder(board.getSize()));
+            char opponent = oppositePiece(piece);
+            Split root = new Split(null, -WIN - 1);
+            Search[] searches = new Search[count];
+            for (int i = 0; i < count; i++) {
+                Board copy = new Board(board);
+                copy.playPiece(list[i], piece);
+                searches[i] = new Search(copy, opponent, depth - 1, 1, WIN + 1, root) {
+                    @Override
+                    protected Integer compute() {
+                        alpha = split.alpha - 1; // one lower so that equal scores are exact
+                        int score = -negamax(piece, depth, ply, -beta, -alpha, split);
+                        split.raise(score);
+                        return score;
+                    }
+                };
+            }
+
+            // The eldest brother first, then the rest in parallel (or in order on a single thread)
+            searches[0].invoke();
+            if (pool.getParallelism() == 1 || depth < MIN_SPLIT_DEPTH) {
+                for (int i = 1; i < count; i++) { searches[i].invoke(); }
+            } else {
+                List<Search> rest = new ArrayList<>(count);
+                for (int i = 1; i < count; i++) { rest.add(searches[i]); }
+                invokeAll(rest);
+            }
+
+            int best = 0;
+            for (int i = 0; i < count; i++) {
+                nodes += searches[i].nodes;
+                // only a score above the window is exact, the others are just upper bounds
+                if (i == 0 || (searches[i].join() > searches[i].alpha && searches[i].join() > searches[best].join())) {
+                    best = i;
+                }
+            }
+            score = searches[best].join();
+            return list[best];
+        }
+    }
+}
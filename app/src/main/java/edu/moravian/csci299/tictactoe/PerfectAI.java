@@ -0,0 +1,253 @@
+package edu.moravian.csci299.tictactoe;
+
+/**
+ * The perfect AI searches the entire game tree using negamax with alpha-beta pruning and never
+ * loses. Positions that have already been searched are remembered in a transposition table, keyed
+ * by the board's canonical key (so rotations and reflections of a position share an entry) and the
+ * player to move, so that after the first few moves of the first game almost every call is answered
+ * from the table. Any position that can be reached in a real game is answered directly from the
+ * SolutionTable instead of searching at all.
+ *
+ * The search plays and takes back moves on a single copy of the board (see Board.undo()) instead
+ * of copying the board for every position.
+ *
+ * Scores are from the point of view of the player to move: 0 for a tie, positive for a win, and
+ * negative for a loss. The size of a win or loss is one more than the number of empty locations
+ * left at the end of the game, so faster wins and slower losses are preferred.
+ *
+ * With a deadline the search is done with iterative deepening: it searches 1, 2, 3, ... moves ahead
+ * (counting positions where it had to stop early as ties) until the whole game tree has been
+ * searched or the deadline expires, and then plays the best move of the deepest finished search.
+ * Only scores of positions that were searched all the way to the end of the game are put in the
+ * table, so they are always exact.
+ */
+public class PerfectAI extends AI {
+    /** The number of entries in the transposition table (must be a power of 2) */
+    private static final int TABLE_SIZE = 1 << 16;
+    /** Marks a table entry whose score is exact */
+    private static final int EXACT = 1;
+    /** Marks a table entry whose score is a lower bound (search failed high) */
+    private static final int LOWER = 2;
+    /** Marks a table entry whose score is an upper bound (search failed low) */
+    private static final int UPPER = 3;
+    /** How many positions to search between checks of the deadline (must be a power of 2) */
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+    /** The depth used to search all the way to the end of the game */
+    private static final int FULL_DEPTH = Integer.MAX_VALUE;
+    /** The deadline for searches without one, which is never cancelled */
+    private static final Deadline UNLIMITED = Deadline.none();
+
+    /**
+     * The position keys of the table entries, including the player to move. The table is only
+     * created the first time a search is needed since 3x3 games never need one.
+     */
+    private long[] keys;
+    /**
+     * The table entries, packed as score (high 16 bits), bound type (2 bits), and best location
+     * in the canonical orientation plus one (low 14 bits). An entry of 0 is empty.
+     */
+    private int[] entries;
+
+    /** When the current search has to stop */
+    private Deadline deadline;
+    /** True once the current search has been stopped by its deadline */
+    private boolean stopped;
+    /** The number of positions looked at by the current search */
+    private long nodes;
+    /** The depth of the deepest finished iteration of the current search */
+    private int depth;
+    /** The number of positions where the current iteration stopped before the end of the game */
+    private long cutoffs;
+
+    /**
+     * Plays the location with the best score, choosing the first one found (going row by row) when
+     * several locations are equally good.
+     * @param board the board to play on
+     * @param piece the piece to play (either 'X' or 'O')
+     */
+    @Override
+    public void play(Board board, char piece) {
+        playMove(board, selectMove(board, piece), piece);
+    }
+
+    /**
+     * Gets the game-theoretic score of the board with the given player to move next.
+     * @param board the board to evaluate
+     * @param piece the piece that plays next (either 'X' or 'O')
+     * @return 0 if perfect play ends in a tie, otherwise positive if the player to move wins and
+     * negative if they lose (larger for faster wins)
+     */
+    public int evaluate(Board board, char piece) {
+        SolutionTable solutions = SolutionTable.getInstance();
+        if (solutions.contains(board, piece)) { return solutions.getScore(board, piece); }
+        startSearch(UNLIMITED);
+        return negamax(new Board(board), piece, FULL_DEPTH, -Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds the best location for the piece to be played on the board.
+     * @param board the board to be played on, which is not changed
+     * @param piece the piece to play (either 'X' or 'O')
+     * @return the index (r*size+c) of the best location, or NO_MOVE if the game is already over
+     */
+    @Override
+    public int selectMove(Board board, char piece) {
+        if (board.isGameOver()) { return NO_MOVE; }
+        SolutionTable solutions = SolutionTable.getInstance();
+        if (solutions.contains(board, piece)) { return solutions.getBestLocation(board, piece); }
+        return search(board, piece, UNLIMITED);
+    }
+
+    /**
+     * Finds the best location for the piece to be played on the board, searching deeper and deeper
+     * until the whole game has been searched or the deadline expires. Without a time limit the whole
+     * game is searched right away.
+     * @param board the board to be played on, which is not changed
+     * @param piece the piece to play (either 'X' or 'O')
+     * @param deadline when to stop searching
+     * @return the best location of the deepest finished search, the depth of that search (the
+     * number of empty locations if the whole game was searched), and the number of positions
+     * searched
+     */
+    @Override
+    public SearchResult selectMove(Board board, char piece, Deadline deadline) {
+        if (board.isGameOver()) { return new SearchResult(NO_MOVE, 0, 0, true); }
+        SolutionTable solutions = SolutionTable.getInstance();
+        if (solutions.contains(board, piece)) {
+            return new SearchResult(solutions.getBestLocation(board, piece), board.countPieces(' '), 1, true);
+        }
+
+        int best = search(board, piece, deadline);
+        return new SearchResult(best, depth, nodes, !stopped);
+    }
+
+    /**
+     * Runs the iterative deepening search, leaving the depth reached and number of positions
+     * searched in the fields.
+     * @param board the board to be played on, which is not changed
+     * @param piece the piece to play (either 'X' or 'O')
+     * @param deadline when to stop searching
+     * @return the best location of the deepest finished search
+     */
+    private int search(Board board, char piece, Deadline deadline) {
+        startSearch(deadline);
+        Board search = new Board(board);
+        int best = NO_MOVE;
+        for (int d = deadline.hasTimeLimit() ? 1 : FULL_DEPTH; ; d++) {
+            cutoffs = 0;
+            int move = searchRoot(search, piece, d, best);
+            if (move != NO_MOVE && (!stopped || best == NO_MOVE)) { best = move; } // a partial first iteration is better than nothing
+            if (stopped) { break; }
+            depth = Math.min(d, board.countPieces(' '));
+            if (cutoffs == 0) { break; } // always true once d reaches the number of empty locations
+        }
+        return best == NO_MOVE ? board.getEmptyLocation(0) : best;
+    }
+
+    /**
+     * Searches every move from the root of the search to the given depth.
+     * @param board the board being searched, every move played on it is taken back before returning
+     * @param piece the piece to play
+     * @param depth the number of moves ahead to search
+     * @param first the move to search first (the best one from the last iteration), or NO_MOVE
+     * @return the best location found, or NO_MOVE if the search was stopped before any move was
+     * searched
+     */
+    private int searchRoot(Board board, char piece, int depth, int first) {
+        char opponent = oppositePiece(piece);
+        int cells = board.getSize() * board.getSize(), best = NO_MOVE, bestScore = -Integer.MAX_VALUE;
+        for (int n = -1; n < cells && !stopped; n++) {
+            int i = n < 0 ? first : n;
+            if (i < 0 || (n >= 0 && i == first) || !board.playPiece(i, piece)) { continue; }
+            int score = -negamax(board, opponent, depth - 1, -Integer.MAX_VALUE, -bestScore);
+            board.undo();
+            if (!stopped && score > bestScore) { best = i; bestScore = score; }
+        }
+        return best;
+    }
+
+    /**
+     * Gets ready for a new search, creating the transposition table if it hasn't been created yet.
+     * @param deadline when the search has to stop
+     */
+    private void startSearch(Deadline deadline) {
+        this.deadline = deadline;
+        this.stopped = false;
+        this.nodes = 0;
+        this.depth = 0;
+        this.cutoffs = 0;
+        if (keys == null) {
+            keys = new long[TABLE_SIZE];
+            entries = new int[TABLE_SIZE];
+        }
+    }
+
+    /**
+     * The negamax search with alpha-beta pruning and a transposition table.
+     * @param board the board being searched, every move played on it is taken back before returning
+     * @param piece the piece to move next
+     * @param depth the number of moves ahead to search, positions still being played after that
+     *              count as ties
+     * @param alpha the score the player to move is already guaranteed
+     * @param beta the score the opponent is already guaranteed (negated)
+     * @return the score of the board for the player to move, exact if it is strictly between
+     * alpha and beta, otherwise a bound (meaningless if the search was stopped)
+     */
+    private int negamax(Board board, char piece, int depth, int alpha, int beta) {
+        if ((++nodes & (DEADLINE_CHECK_INTERVAL - 1)) == 0 && deadline.isExpired()) { stopped = true; }
+        if (stopped) { return 0; }
+        if (board.isGameOver()) {
+            return board.hasTied() ? 0 : -(board.countPieces(' ') + 1);
+        }
+        if (depth <= 0) {
+            cutoffs++;
+            return 0;
+        }
+
+        // Look up the position in the table
+        int size = board.getSize(), transform = board.getCanonicalTransform();
+        long key = board.getTransformedKey(transform);
+        if (piece == 'O') { key = ~key; }
+        int slot = slot(key);
+        int entry = keys[slot] == key ? entries[slot] : 0;
+        int tableMove = -1;
+        if (entry != 0) {
+            int score = entry >> 16, bound = (entry >>> 14) & 3;
+            if (bound == EXACT || (bound == LOWER && score >= beta) || (bound == UPPER && score <= alpha)) {
+                return score;
+            }
+            tableMove = (entry & 0x3FFF) - 1; // stored in the canonical orientation
+            if (tableMove >= 0) { tableMove = Board.transformLocation(tableMove, Board.inverseTransform(transform), size); }
+        }
+
+        // Search every move, starting with the best one from the table
+        char opponent = oppositePiece(piece);
+        int originalAlpha = alpha, best = -1, bestScore = -Integer.MAX_VALUE;
+        long originalCutoffs = cutoffs;
+        for (int n = -1; n < size * size && alpha < beta; n++) {
+            int i = n < 0 ? tableMove : n;
+            if (i < 0 || (n >= 0 && i == tableMove) || !board.playPiece(i, piece)) { continue; }
+            int score = -negamax(board, opponent, depth - 1, -beta, -alpha);
+            board.undo();
+            if (score > bestScore) { best = i; bestScore = score; }
+            if (score > alpha) { alpha = score; }
+        }
+
+        // Remember the result, but only if it was searched to the end of the game
+        if (stopped || cutoffs != originalCutoffs) { return bestScore; }
+        int bound = bestScore <= originalAlpha ? UPPER : bestScore >= beta ? LOWER : EXACT;
+        keys[slot] = key;
+        int canonicalBest = best < 0 ? -1 : Board.transformLocation(best, transform, size);
+        entries[slot] = bestScore << 16 | bound << 14 | (canonicalBest + 1);
+        return bestScore;
+    }
+
+    /**
+     * Gets the table slot for a position key.
+     * @param key the position key
+     * @return the index into the table
+     */
+    private static int slot(long key) {
+        return (int) (key >>> 48) & (TABLE_SIZE - 1); // Zobrist keys are already random
+    }
+}
@@ -1,5 +1,6 @@
 package edu.moravian.csci299.tictactoe;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.lifecycle.ViewModelProvider;
@@ -20,6 +21,9 @@ public class PlayActivity extends AppCompatActivity implements View.OnClickListe
             R.id.button3, R.id.button4, R.id.button5, R.id.button6, R.id.button7, R.id.button8,
             R.id.button9);
 
+    /** The key of the game snapshot in the saved instance state */
+    private static final String SNAPSHOT_KEY = "snapshot";
+
     /** The Game object to start rounds */
     private Game game;
 
@@ -34,23 +38,61 @@ public class PlayActivity extends AppCompatActivity implements View.OnClickListe
         // Set the on click listener for each button
         for (int id : buttonIds) findViewById(id).setOnClickListener(this);
 
+        // The AI plays in the background, show its move once it has played
+        game.setOnAIPlayedListener(this::onAIPlayed);
+
         // If game hasn't started, get the chosen difficulty, set the ai accordingly, and play game
+        // (or continue the saved one if the process was killed)
         if (!game.hasStarted()) {
             String difficulty = getIntent().getStringExtra("difficulty");
             setAI(difficulty);
-            game.startNewRound();
+            byte[] snapshot = savedInstanceState == null ? null : savedInstanceState.getByteArray(SNAPSHOT_KEY);
+            if (snapshot != null) game.restoreSnapshot(snapshot);
+            if (!game.hasStarted()) game.startNewRoundAsync();
         }
+        game.startAITurn(); // in case the AI's turn was interrupted
         setPlayerPieceMessage();
         updateBoard();
     }
 
     /**
-     * Get the id of the button clicked and play that piece.
+     * Saves a snapshot of the game so it can be restored if the process is killed.
+     * @param outState the bundle to save the snapshot in
+     */
+    @Override
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        if (game.hasStarted()) outState.putByteArray(SNAPSHOT_KEY, game.getSnapshot());
+    }
+
+    /**
+     * Stops listening for the AI, and stops the AI's turn if the activity is going away for good
+     * (the game keeps going through a rotation).
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        game.setOnAIPlayedListener(null);
+        if (isFinishing()) game.cancelAITurn();
+    }
+
+    /**
+     * Get the id of the button clicked and play that piece. The piece is shown right away and the
+     * AI takes its turn in the background. Clicks while the AI is taking its turn are ignored.
      */
     @Override
     public void onClick(View v) {
         int buttonIndex = buttonIds.indexOf(v.getId());
-        game.playPiece(buttonIndex / 3, buttonIndex % 3);
+        if (game.playPieceAsync(buttonIndex / 3, buttonIndex % 3)) {
+            updateBoard();
+            checkGameOver();
+        }
+    }
+
+    /**
+     * Shows the AI's move once it has played in the background.
+     */
+    private void onAIPlayed() {
         updateBoard();
         checkGameOver();
     }
@@ -87,18 +129,27 @@ public class PlayActivity extends AppCompatActivity implements View.OnClickListe
     private void updateBoard() {
         Board board = game.getBoard();
         for (int i = 0; i < buttonIds.size(); i++)
-            ((Button)findViewById(buttonIds.get(i)))
-                    .setText(String.valueOf(board.getPiece(i/3, i%3)));
+            ((Button)findViewById(buttonIds.get(i))).setText(pieceText(board.getPiece(i)));
+    }
+
+    /**
+     * Gets the text to show for a piece without creating a new String every time.
+     * @param piece one of 'X', 'O', or ' '
+     * @return the piece as a String
+     */
+    private static String pieceText(char piece) {
+        return piece == 'X' ? "X" : piece == 'O' ? "O" : " ";
     }
 
     /**
      * Sets the AI based on difficulty chosen.
-     * @param difficulty A String that can be "Easy", "Medium", or "Hard".
+     * @param difficulty A String that can be "Easy", "Medium", "Hard", or "Perfect".
      */
     private void setAI(String difficulty) {
         AI ai;
         if (difficulty.equals("Easy")) ai = new EasyAI();
         else if (difficulty.equals("Medium")) ai = new MediumAI();
+        else if (difficulty.equals("Perfect")) ai = new PerfectAI();
         else ai = new HardAI();
         game.setAI(ai);
     }
@@ -112,7 +163,7 @@ public class PlayActivity extends AppCompatActivity implements View.OnClickListe
     @Override
     protected void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
-        game.startNewRound();
+        game.startNewRoundAsync();
         updateBoard();
         setPlayerPieceMessage();
     }
@@ -0,0 +1,292 @@
+package edu.moravian.csci299.tictactoe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Analyzes a stream of positions, one per line in the same notation as the unit tests: X and O for
+ * pieces and spaces for empty places, row by row, optionally with | between rows (so "OXO|X  |   "
+ * and "OXOX     " are the same position). For each position it writes a line with the position,
+ * the status of the game (one of the Board.Status names), and where each AI would play next, as
+ * "r,c" or "-" if the game is over, all separated by tabs. 'O' is taken to play next whenever
+ * both sides have played the same number of pieces, since 'O' goes first.
+ *
+ * The input is read through a channel and turned straight into bitmasks of the pieces, a batch at
+ * a time. Batches are analyzed in parallel in a fork-join pool, with each worker thread using its
+ * own instances of the AIs, and are written out in the same order they were read. Only a few
+ * batches per thread are ever waiting at once, so files of any size can be analyzed.
+ *
+ * Before each position every AI is seeded from the seed of the run and the index of the position
+ * (counting from 0 and skipping blank lines), so the output is always the same for the same seed
+ * no matter how many threads there are.
+ */
+public class PositionAnalyzer {
+    /** The default number of positions in each batch */
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+    /** The size of the buffer input is read into */
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    /** The number of batches allowed to wait for each thread of the pool */
+    private static final int BATCHES_PER_THREAD = 2;
+
+    /** The names of the AIs */
+    private final List<String> names = new ArrayList<>();
+    /** Creates each of the AIs */
+    private final List<Simulation.AIFactory> factories = new ArrayList<>();
+    /** The size of the boards */
+    private final int size;
+    /** The number in a row needed to win */
+    private final int winLength;
+    /** The pool that analyzes the batches */
+    private final ForkJoinPool pool;
+    /** The number of positions in each batch */
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * Creates an analyzer without any AIs for default 3x3 boards using the common fork-join pool.
+     */
+    public PositionAnalyzer() { this(Board.DEFAULT_SIZE, Board.DEFAULT_WIN_LENGTH, ForkJoinPool.commonPool()); }
+
+    /**
+     * Creates an analyzer without any AIs.
+     * @param size the size of the boards, at most 8
+     * @param winLength the number in a row needed to win
+     * @param pool the pool to analyze the batches in
+     */
+    public PositionAnalyzer(int size, int winLength, ForkJoinPool pool) {
+        Board.checkDimensions(size, winLength);
+        if (size > Board.MAX_MASK_SIZE) {
+            throw new IllegalArgumentException("boards larger than " + Board.MAX_MASK_SIZE + " can't be analyzed");
+        }
+        this.size = size;
+        this.winLength = winLength;
+        this.pool = pool;
+    }
+
+    /**
+     * Adds an AI whose move will be given for every position, in the order they are added.
+     * @param name the name of the AI
+     * @param factory creates new instances of the AI, one for each worker thread
+     */
+    public void addAI(String name, Simulation.AIFactory factory) {
+        names.add(name);
+        factories.add(factory);
+    }
+
+    /** @return the names of the AIs in the order their moves are written */
+    public List<String> getAINames() { return new ArrayList<>(names); }
+
+    /**
+     * Sets the number of positions analyzed together as one task.
+     * @param batchSize the number of positions in each batch
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) { throw new IllegalArgumentException("batch size must be positive"); }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Analyzes all of the positions from the input, writing a line for each one to the output.
+     * Empty lines are skipped.
+     * @param in the positions to read, one per line
+     * @param out where to write the results
+     * @param seed the seed for the AIs, the same seed always gives the same results
+     * @return the number of positions analyzed
+     * @throws IOException if reading or writing fails
+     * @throws IllegalArgumentException if a line is not a position on a board of this size
+     */
+    public long analyze(ReadableByteChannel in, WritableByteChannel out, long seed) throws IOException {
+        Players players = new Players();
+        int cells = size * size, maxPending = BATCHES_PER_THREAD * pool.getParallelism() + 1;
+        ArrayDeque<ForkJoinTask<Batch>> pending = new ArrayDeque<>();
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        byte[] bytes = buffer.array();
+        Batch batch = new Batch(batchSize, 0);
+        long positions = 0, line = 1, oMask = 0, xMask = 0;
+        int count = 0;
+        boolean empty = true, valid = true;
+        while (in.read(buffer) >= 0) {
+            int end = buffer.position();
+            for (int i = 0; i < end; i++) {
+                byte b = bytes[i];
+                if (b == '\n') {
+                    if (!empty) {
+                        if (!valid || count != cells) { throw new IllegalArgumentException("line " + line + " is not a valid position"); }
+                        batch.add(oMask, xMask);
+                        positions++;
+                        if (batch.count == batchSize) {
+                            submit(batch, players, seed, pending, maxPending, out);
+                            batch = new Batch(batchSize, positions);
+                        }
+                    }
+                    line++;
+                    oMask = xMask = 0;
+                    count = 0;
+                    empty = valid = true;
+                    continue;
+                }
+                if (b == '\r') { continue; }
+                empty = false;
+                if (b == '|') { continue; }
+                if (count == cells) { valid = false; }
+                else if (b == 'O') { oMask |= 1L << count++; }
+                else if (b == 'X') { xMask |= 1L << count++; }
+                else if (b == ' ') { count++; }
+                else { valid = false; }
+            }
+            buffer.clear();
+        }
+        if (!empty) { // the last line has no line break
+            if (!valid || count != cells) { throw new IllegalArgumentException("line " + line + " is not a valid position"); }
+            batch.add(oMask, xMask);
+            positions++;
+        }
+        if (batch.count > 0) { submit(batch, players, seed, pending, maxPending, out); }
+        while (!pending.isEmpty()) { write(pending.poll().join(), out); }
+        return positions;
+    }
+
+    /**
+     * Starts analyzing a batch, first writing out the oldest batches until there is room for it.
+     * @param batch the batch to analyze
+     * @param players the AIs for each worker thread
+     * @param seed the seed for the AIs
+     * @param pending the batches being analyzed, oldest first
+     * @param maxPending the most batches that can be analyzed at once
+     * @param out where to write the results
+     * @throws IOException if writing fails
+     */
+    private void submit(Batch batch, Players players, long seed, ArrayDeque<ForkJoinTask<Batch>> pending,
+                        int maxPending, WritableByteChannel out) throws IOException {
+        while (pending.size() >= maxPending) { write(pending.poll().join(), out); }
+        pending.add(pool.submit(() -> analyze(batch, players.get(), seed)));
+    }
+
+    /**
+     * Writes the results of a batch.
+     * @param batch the analyzed batch
+     * @param out where to write the results
+     * @throws IOException if writing fails
+     */
+    private static void write(Batch batch, WritableByteChannel out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(batch.output, 0, batch.length);
+        while (buffer.hasRemaining()) { out.write(buffer); }
+    }
+
+    /**
+     * Analyzes every position in a batch, filling in its output.
+     * @param batch the batch to analyze
+     * @param ais the AIs of the current thread
+     * @param seed the seed for the AIs
+     * @return the batch
+     */
+    private Batch analyze(Batch batch, AI[] ais, long seed) {
+        for (int p = 0; p < batch.count; p++) {
+            Board board = Board.fromMasks(size, winLength, batch.oMasks[p], batch.xMasks[p]);
+            char piece = board.countPieces('O') > board.countPieces('X') ? 'X' : 'O';
+            batch.appendPosition(board);
+            batch.append('\t');
+            batch.append(board.getStatus().name());
+            long index = batch.first + p;
+            for (int a = 0; a < ais.length; a++) {
+                ais[a].setSeed(SplitRandom.streamSeed(seed, index * ais.length + a));
+                int move = ais[a].selectMove(board, piece);
+                batch.append('\t');
+                if (move == AI.NO_MOVE) {
+                    batch.append('-');
+                } else {
+                    batch.append((char) ('0' + move / size));
+                    batch.append(',');
+                    batch.append((char) ('0' + move % size));
+                }
+            }
+            batch.append('\n');
+        }
+        return batch;
+    }
+
+    /** The AIs used by each worker thread, created the first time the thread analyzes a batch */
+    private class Players extends ThreadLocal<AI[]> {
+        @Override
+        protected AI[] initialValue() {
+            AI[] ais = new AI[factories.size()];
+            for (int i = 0; i < ais.length; i++) { ais[i] = factories.get(i).create(); }
+            return ais;
+        }
+    }
+
+    /**
+     * A batch of positions, stored as bitmasks, along with the text written for them.
+     */
+    private static final class Batch {
+        /** The number of positions before this batch */
+        final long first;
+        /** The locations of the O pieces of each position */
+        final long[] oMasks;
+        /** The locations of the X pieces of each position */
+        final long[] xMasks;
+        /** The number of positions in the batch */
+        int count;
+        /** The text written for the batch */
+        byte[] output = new byte[64];
+        /** The number of bytes of output */
+        int length;
+
+        /**
+         * @param capacity the most positions in the batch
+         * @param first the number of positions before this batch
+         */
+        Batch(int capacity, long first) {
+            this.first = first;
+            this.oMasks = new long[capacity];
+            this.xMasks = new long[capacity];
+        }
+
+        /**
+         * Adds a position to the batch.
+         * @param oMask the locations of the O pieces
+         * @param xMask the locations of the X pieces
+         */
+        void add(long oMask, long xMask) {
+            oMasks[count] = oMask;
+            xMasks[count] = xMask;
+            count++;
+        }
+
+        /**
+         * Adds a character to the output, which must be ASCII.
+         * @param c the character
+         */
+        void append(char c) {
+            if (length == output.length) { output = Arrays.copyOf(output, 2 * length); }
+            output[length++] = (byte) c;
+        }
+
+        /**
+         * Adds a string to the output.
+         * @param s the string, which must be ASCII
+         */
+        void append(String s) {
+            for (int i = 0; i < s.length(); i++) { append(s.charAt(i)); }
+        }
+
+        /**
+         * Adds a position to the output in the same notation as the input, with | between rows.
+         * @param board the board with the position
+         */
+        void appendPosition(Board board) {
+            int size = board.getSize();
+            for (int i = 0; i < size * size; i++) {
+                if (i > 0 && i % size == 0) { append('|'); }
+                append(board.getPiece(i));
+            }
+        }
+    }
+}
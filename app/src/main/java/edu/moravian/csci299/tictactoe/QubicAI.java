@@ -0,0 +1,333 @@
+package edu.moravian.csci299.tictactoe;
+
+/**
+ * An AI for Qubic (see QubicBoard) that plays the best move it can find within a time budget. It
+ * searches with negamax and alpha-beta pruning, deepening one move at a time until the time runs
+ * out, and plays the best move of the deepest search that finished.
+ *
+ * Since the game is all about threats (three in a line with the fourth location empty), threats
+ * are handled before anything else in every position: a player with a threat wins, a player facing
+ * two threats loses, and a player facing one threat has to block it. Blocking doesn't count as a
+ * move of the search depth, so forcing sequences are followed all the way to the end.
+ *
+ * Positions are remembered in a transposition table keyed by the board's Zobrist key, which can be
+ * shared by AIs searching in different threads, and moves that caused cutoffs are remembered in a
+ * history table, so that the best moves are tried first. Positions where the search stops are
+ * scored by counting the lines that only one player has pieces in, weighted by how many pieces
+ * they have.
+ *
+ * QubicAI doesn't extend AI because AI is tied to Board: play(), selectMove(), and the helpers it
+ * gives subclasses all take a Board, a square grid of rows and columns, and so do the classes that
+ * use AIs (Match, Simulation, Tournament, PositionAnalyzer). A QubicBoard is a cube and can't be a
+ * Board, so instead QubicAI has the same selectMove() methods for a QubicBoard, with the same
+ * AI.SearchResult and AI.NO_MOVE, like UltimateAI does for its board.
+ *
+ * Like AI, a QubicAI should only be used by one thread at a time.
+ */
+public class QubicAI {
+    /** The time budget used by default in milliseconds */
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = 1000;
+    /** The score of a win, less the number of moves needed to get it */
+    private static final int WIN = 1000000;
+    /** Scores at least this big are wins or losses */
+    private static final int MIN_WIN = WIN - 2 * QubicBoard.LOCATIONS;
+    /** The size of the transposition table made by the AI when it isn't given one, in bytes */
+    public static final long DEFAULT_TABLE_BYTES = 4L << 20;
+    /** How many positions to search between checks of the deadline (must be a power of 2) */
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+    /** The score of a line with 0, 1, 2, or 3 pieces of one player and none of the other */
+    private static final int[] LINE_SCORE = { 0, 1, 8, 64, 0 };
+    /** The number of lines through each location, used to order moves that are otherwise equal */
+    private static final int[] LINES_THROUGH = new int[QubicBoard.LOCATIONS];
+    static {
+        for (int i = 0; i < QubicBoard.LOCATIONS; i++) { LINES_THROUGH[i] = QubicBoard.LINES_THROUGH[i].length; }
+    }
+
+    /** The most moves ahead to search, or 0 for no limit */
+    private final int maxDepth;
+    /** The time budget for each move in milliseconds, or 0 for no limit */
+    private final long timeLimitMillis;
+    /** The transposition table, keyed by the position including the player to move */
+    private final TranspositionTable table;
+    /** For each piece (X then O) and location, how good the move has been in the search */
+    private final int[][] history = new int[2][QubicBoard.LOCATIONS];
+    /** The moves at each distance from the root of the search */
+    private final int[][] moves = new int[QubicBoard.LOCATIONS + 1][QubicBoard.LOCATIONS];
+    /** The order scores of the moves at each distance from the root of the search */
+    private final int[][] orders = new int[QubicBoard.LOCATIONS + 1][QubicBoard.LOCATIONS];
+    /** When the current search has to stop */
+    private Deadline deadline;
+    /** Set once the current search has run out of time */
+    private boolean stopped;
+    /** The number of positions the current search has looked at */
+    private long nodes;
+    /** The score of the best move of the last search from the root */
+    private int rootScore;
+    /** The locations where the player to move would win, from the last scan() */
+    private long ownThreats;
+    /** The locations where the opponent of the player to move would win, from the last scan() */
+    private long otherThreats;
+
+    /**
+     * Creates an AI that thinks for DEFAULT_TIME_LIMIT_MILLIS for each move.
+     */
+    public QubicAI() { this(0, DEFAULT_TIME_LIMIT_MILLIS); }
+
+    /**
+     * Creates an AI with the given budget for every move. At least one limit must be given.
+     * @param maxDepth the most moves ahead to search (not counting forced blocks), or 0 for no limit
+     * @param timeLimitMillis the most time to think in milliseconds, or 0 for no limit
+     */
+    public QubicAI(int maxDepth, long timeLimitMillis) {
+        this(maxDepth, timeLimitMillis, new TranspositionTable(DEFAULT_TABLE_BYTES, TranspositionTable.Replacement.ALWAYS_REPLACE));
+    }
+
+    /**
+     * Creates an AI with the given budget for every move that uses the given transposition table,
+     * which may be shared with AIs searching in other threads. At least one limit must be given.
+     * @param maxDepth the most moves ahead to search (not counting forced blocks), or 0 for no limit
+     * @param timeLimitMillis the most time to think in milliseconds, or 0 for no limit
+     * @param table the transposition table to use
+     */
+    public QubicAI(int maxDepth, long timeLimitMillis, TranspositionTable table) {
+        if (table == null) { throw new IllegalArgumentException("no transposition table"); }
+        if (maxDepth < 0 || timeLimitMillis < 0 || (maxDepth == 0 && timeLimitMillis == 0)) {
+            throw new IllegalArgumentException("invalid budget for QubicAI");
+        }
+        this.maxDepth = maxDepth;
+        this.timeLimitMillis = timeLimitMillis;
+        this.table = table;
+    }
+
+    /**
+     * @return the transposition table of this AI, with its statistics
+     */
+    public TranspositionTable getTable() { return table; }
+
+    /**
+     * Asks the AI where it would play within its own budget.
+     * @param board the board to play on, which is not changed
+     * @param piece the piece to play (either 'X' or 'O')
+     * @return the location to play, or AI.NO_MOVE if the game is over
+     */
+    public int selectMove(QubicBoard board, char piece) {
+        return selectMove(board, piece, timeLimitMillis > 0 ? Deadline.after(timeLimitMillis) : Deadline.none()).getMove();
+    }
+
+    /**
+     * Asks the AI where it would play, stopping at its maximum depth or the deadline, whichever is
+     * first, with the best move of the deepest search that finished. At least one move ahead is
+     * always searched. Each depth starts from what the earlier ones left in the transposition table
+     * and the history table, so deepening one move at a time costs little more than searching the
+     * last depth alone.
+     * @param board the board to play on, which is not changed
+     * @param piece the piece to play (either 'X' or 'O')
+     * @param deadline when to stop searching
+     * @return the chosen move along with how much searching was done
+     */
+    public AI.SearchResult selectMove(QubicBoard board, char piece, Deadline deadline) {
+        if (board.isGameOver()) { return new AI.SearchResult(AI.NO_MOVE, 0, 0, true); }
+        QubicBoard copy = new QubicBoard(board);
+        this.deadline = deadline;
+        this.stopped = false;
+        this.nodes = 0;
+        table.newSearch(); // entries of earlier moves are kept but may be replaced
+        for (int[] h : history) { for (int i = 0; i < h.length; i++) { h[i] >>= 2; } } // old history counts less
+        int best = AI.NO_MOVE, depth = 0, limit = maxDepth > 0 ? maxDepth : QubicBoard.LOCATIONS;
+        boolean complete = false;
+        for (int d = 1; d <= limit && (d == 1 || !deadline.isExpired()); d++) {
+            int move = searchRoot(copy, piece, d, best);
+            if (stopped && d > 1) { break; }
+            best = move;
+            depth = d;
+            // searching deeper can't change anything once a forced win or loss is found or every
+            // empty location is within reach
+            complete = !stopped && (d == limit || Math.abs(rootScore) >= MIN_WIN || d >= copy.countPieces(' '));
+            if (complete || stopped) { break; }
+        }
+        this.deadline = null;
+        return new AI.SearchResult(best, depth, nodes, complete);
+    }
+
+    /**
+     * Searches every move from the root, trying the best move of the previous depth first and then
+     * the moves with the best history. The root itself is never answered from the transposition
+     * table, since it has to find a move and not just a score.
+     * @param board the board to search, changed during the search but restored at the end
+     * @param piece the piece to play
+     * @param depth the number of moves ahead to search
+     * @param previous the best move of the previous depth, or NO_MOVE
+     * @return the best move found
+     */
+    private int searchRoot(QubicBoard board, char piece, int depth, int previous) {
+        char opponent = opposite(piece);
+        int[] list = moves[0];
+        int count = orderMoves(board, piece, previous, 0, list);
+        int best = list[0], alpha = -WIN - 1;
+        for (int i = 0; i < count; i++) {
+            board.playPiece(list[i], piece);
+            int score = -negamax(board, opponent, depth - 1, 1, -WIN - 1, -alpha);
+            board.undo();
+            // forced blocks don't count toward the depth, so even searching one move ahead can run
+            // out of time; its moves are still all tried (the ones cut short score 0) so there is
+            // always a legal move to play
+            if (stopped && depth > 1) { return best; }
+            if (score > alpha) { alpha = score; best = list[i]; }
+        }
+        rootScore = alpha;
+        return best;
+    }
+
+    /**
+     * Scores a position with alpha-beta pruning, from the point of view of the player to move.
+     * @param board the board to search, changed during the search but restored at the end
+     * @param piece the piece to play
+     * @param depth the number of moves ahead left to search
+     * @param ply the number of moves from the root
+     * @param alpha the score the player to move is already sure of
+     * @param beta the score the opponent is already sure of
+     * @return the score of the position
+     */
+    private int negamax(QubicBoard board, char piece, int depth, int ply, int alpha, int beta) {
+        if ((++nodes & (DEADLINE_CHECK_INTERVAL - 1)) == 0 && deadline.isExpired()) { stopped = true; }
+        // only the last move can have ended the game, so the opponent won it (or the board filled)
+        if (board.isGameOver()) { return board.hasTied() ? 0 : -(WIN - ply); }
+        if (stopped) { return 0; }
+
+        // Threats decide everything: win now, lose to two threats, or block one. The block is
+        // searched at the same depth, so a chain of forcing moves is followed until it ends
+        char opponent = opposite(piece);
+        int evaluation = scan(board, piece);
+        if (ownThreats != 0) { return WIN - ply - 1; }
+        long threats = otherThreats;
+        if (Long.bitCount(threats) > 1) { return -(WIN - ply - 2); }
+        if (threats != 0) {
+            board.playPiece(Long.numberOfTrailingZeros(threats), piece);
+            int score = -negamax(board, opponent, depth, ply + 1, -beta, -alpha);
+            board.undo();
+            return score;
+        }
+        if (depth <= 0) { return evaluation; }
+
+        // Look up the position in the table. Zobrist keys don't include the player to move, so O's
+        // positions use the complement. An entry searched at least as deep ends the search here if
+        // its score is exact or its bound is already outside the window; otherwise its move is
+        // tried first
+        long key = piece == 'O' ? ~board.getZobristKey() : board.getZobristKey();
+        int tableMove = AI.NO_MOVE;
+        long entry = table.probe(key);
+        if (entry != TranspositionTable.MISS) {
+            int score = fromTable(TranspositionTable.score(entry), ply), bound = TranspositionTable.bound(entry);
+            if (TranspositionTable.depth(entry) >= depth && (bound == TranspositionTable.EXACT ||
+                    (bound == TranspositionTable.LOWER && score >= beta) || (bound == TranspositionTable.UPPER && score <= alpha))) {
+                return score;
+            }
+            tableMove = TranspositionTable.move(entry);
+        }
+
+        // Search every move, best first
+        int[] list = moves[ply];
+        int count = orderMoves(board, piece, tableMove, ply, list);
+        int originalAlpha = alpha, best = list[0], bestScore = -WIN - 1;
+        for (int i = 0; i < count; i++) {
+            board.playPiece(list[i], piece);
+            int score = -negamax(board, opponent, depth - 1, ply + 1, -beta, -alpha);
+            board.undo();
+            if (stopped) { return 0; }
+            if (score > bestScore) { bestScore = score; best = list[i]; }
+            if (score > alpha) {
+                alpha = score;
+                if (alpha >= beta) {
+                    history[piece == 'X' ? 0 : 1][list[i]] += depth * depth;
+                    break;
+                }
+            }
+        }
+
+        // Remember the result: a score at or below the original alpha is only an upper bound, and
+        // one at or above beta is only a lower bound since the rest of the moves were skipped
+        int bound = bestScore <= originalAlpha ? TranspositionTable.UPPER : bestScore >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+        table.store(key, toTable(bestScore, ply), depth, bound, best);
+        return bestScore;
+    }
+
+    /**
+     * Finds all of the empty locations, ordered with the move from the table first and then by how
+     * well they did in the search so far and how many lines go through them.
+     * @param board the board to play on
+     * @param piece the piece to play
+     * @param first the move to try first, or NO_MOVE
+     * @param ply the number of moves from the root
+     * @param list filled in with the moves
+     * @return the number of moves
+     */
+    private int orderMoves(QubicBoard board, char piece, int first, int ply, int[] list) {
+        int[] order = orders[ply], scores = history[piece == 'X' ? 0 : 1];
+        int count = 0;
+        for (long empty = board.getEmptyMask(); empty != 0; empty &= empty - 1) {
+            int move = Long.numberOfTrailingZeros(empty);
+            int score = move == first ? Integer.MAX_VALUE : scores[move] * 8 + LINES_THROUGH[move];
+            // insertion sort, best first
+            int i = count++;
+            for (; i > 0 && order[i - 1] < score; i--) { list[i] = list[i - 1]; order[i] = order[i - 1]; }
+            list[i] = move;
+            order[i] = score;
+        }
+        return count;
+    }
+
+    /**
+     * Looks at every line once, both finding the threats of each player (left in ownThreats and
+     * otherThreats) and scoring the position in case the search stops there, by the lines that
+     * only one player has pieces in.
+     * @param board the board to look at
+     * @param piece the piece of the player to move
+     * @return the score for that player
+     */
+    private int scan(QubicBoard board, char piece) {
+        long own = board.mask(piece), other = board.mask(opposite(piece)), ownWins = 0, otherWins = 0;
+        int score = 0;
+        for (long line : QubicBoard.LINES) {
+            long mine = line & own, theirs = line & other;
+            if (theirs == 0) {
+                int n = Long.bitCount(mine);
+                score += LINE_SCORE[n];
+                if (n == QubicBoard.SIZE - 1) { ownWins |= line & ~mine; }
+            } else if (mine == 0) {
+                int n = Long.bitCount(theirs);
+                score -= LINE_SCORE[n];
+                if (n == QubicBoard.SIZE - 1) { otherWins |= line & ~theirs; }
+            }
+        }
+        ownThreats = ownWins;
+        otherThreats = otherWins;
+        return score;
+    }
+
+    /**
+     * Converts a score to store in the table, making wins and losses relative to the position
+     * instead of the root.
+     * @param score the score from the search
+     * @param ply the number of moves from the root
+     * @return the score to store
+     */
+    private static int toTable(int score, int ply) {
+        return score >= MIN_WIN ? score + ply : score <= -MIN_WIN ? score - ply : score;
+    }
+
+    /**
+     * Converts a score from the table back to one relative to the root.
+     * @param score the score from the table
+     * @param ply the number of moves from the root
+     * @return the score for the search
+     */
+    private static int fromTable(int score, int ply) {
+        return score >= MIN_WIN ? score - ply : score <= -MIN_WIN ? score + ply : score;
+    }
+
+    /**
+     * @param piece either 'X' or 'O'
+     * @return the other piece
+     */
+    private static char opposite(char piece) { return piece == 'X' ? 'O' : 'X'; }
+}
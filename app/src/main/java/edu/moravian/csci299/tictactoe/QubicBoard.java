@@ -0,0 +1,320 @@
+package edu.moravian.csci299.tictactoe;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * A board for Qubic, 3D Tic-Tac-Toe played on a 4x4x4 cube where a player needs 4 in a row to win.
+ * There are 76 lines that win: 48 along the rows, columns, and levels, 24 diagonals of the flat
+ * 4x4 layers in each of the three orientations, and the 4 diagonals through the center of the
+ * cube. O goes first, like on Board.
+ *
+ * Locations are numbered level*16 + r*4 + c, so the whole cube fits in a 64-bit mask for each
+ * piece, with location i as bit i. Every line is also stored as a 64-bit mask, so checking a line
+ * for a win is a single AND, and the lines through each location are precomputed so that only
+ * those 4 or 7 lines are checked after a piece is played.
+ *
+ * Like Board, the board remembers the order the pieces were played in so they can be taken back
+ * with undo(), and keeps a Zobrist key of the position up to date with a single XOR per move.
+ */
+public class QubicBoard implements Cloneable {
+    /** The number of rows, columns, and levels */
+    public static final int SIZE = 4;
+    /** The number of locations on the board */
+    public static final int LOCATIONS = SIZE * SIZE * SIZE;
+    /** The number of lines that win */
+    public static final int LINE_COUNT = 76;
+    /** The masks of every line that wins */
+    static final long[] LINES = new long[LINE_COUNT];
+    /** The masks of the lines through each location */
+    static final long[][] LINES_THROUGH = new long[LOCATIONS][];
+    /** The seed for the random Zobrist values, fixed so keys are the same every time */
+    private static final long ZOBRIST_SEED = 0x9E3779B97F4A7C15L;
+    /** The precomputed Zobrist values for X (even entries) and O (odd entries) at each location */
+    private static final long[] ZOBRIST = new long[2 * LOCATIONS];
+    static {
+        // Every direction counted once: the first non-zero step of each is positive
+        int count = 0;
+        for (int dl = -1; dl <= 1; dl++) {
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    if (dl < 0 || (dl == 0 && (dr < 0 || (dr == 0 && dc <= 0)))) { continue; }
+                    for (int start = 0; start < LOCATIONS; start++) {
+                        int l = start / 16, r = start / 4 % 4, c = start % 4;
+                        if (!inside(l + 3 * dl) || !inside(r + 3 * dr) || !inside(c + 3 * dc)) { continue; }
+                        long line = 0;
+                        for (int i = 0; i < SIZE; i++) { line |= 1L << location(l + i * dl, r + i * dr, c + i * dc); }
+                        LINES[count++] = line;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < LOCATIONS; i++) {
+            int n = 0;
+            long[] through = new long[7];
+            for (long line : LINES) { if ((line & (1L << i)) != 0) { through[n++] = line; } }
+            LINES_THROUGH[i] = Arrays.copyOf(through, n);
+        }
+        for (int i = 0; i < ZOBRIST.length; i++) { ZOBRIST[i] = SplitRandom.streamSeed(ZOBRIST_SEED, i); }
+    }
+
+    /** The locations of the X pieces on the board */
+    private long xBits;
+    /** The locations of the O pieces on the board */
+    private long oBits;
+    /** The locations played, in order */
+    private final int[] moves;
+    /** The number of pieces that have been played on the board */
+    private int moveCount;
+    /** The current state of the game, updated every time a piece is played */
+    private Board.Status status = Board.Status.IN_PROGRESS;
+    /** The Zobrist key of the position, updated every time a piece is played or taken back */
+    private long zobristKey;
+
+    /**
+     * Construct a new empty board.
+     */
+    public QubicBoard() { this.moves = new int[LOCATIONS]; }
+
+    /**
+     * Construct a new board that is filled in with the same contents of the other board.
+     */
+    public QubicBoard(QubicBoard board) {
+        this.xBits = board.xBits;
+        this.oBits = board.oBits;
+        this.moves = board.moves.clone();
+        this.moveCount = board.moveCount;
+        this.status = board.status;
+        this.zobristKey = board.zobristKey;
+    }
+
+    /**
+     * Gets the index of a location, making sure it is on the board.
+     * @param level the level (0 to 3)
+     * @param r the row (0 to 3)
+     * @param c the column (0 to 3)
+     * @return the index of that location, level*16 + r*4 + c
+     */
+    public static int location(int level, int r, int c) {
+        if (!inside(level) || !inside(r) || !inside(c)) {
+            throw new IndexOutOfBoundsException("location (" + level + ", " + r + ", " + c + ") is not on the board");
+        }
+        return level * SIZE * SIZE + r * SIZE + c;
+    }
+
+    /**
+     * @param i a level, row, or column
+     * @return true if it is on the board
+     */
+    private static boolean inside(int i) { return i >= 0 && i < SIZE; }
+
+    /**
+     * Gets the piece at a location.
+     * @param location the index of the location (0 to 63)
+     * @return the char of the piece at the location, 'X', 'O', or ' ' if it is empty
+     */
+    public char getPiece(int location) {
+        long bit = bit(location);
+        return (this.xBits & bit) != 0 ? 'X' : (this.oBits & bit) != 0 ? 'O' : ' ';
+    }
+
+    /**
+     * Gets the piece at a location.
+     * @param level the level (0 to 3)
+     * @param r the row (0 to 3)
+     * @param c the column (0 to 3)
+     * @return the char of the piece at the location, 'X', 'O', or ' ' if it is empty
+     */
+    public char getPiece(int level, int r, int c) { return getPiece(location(level, r, c)); }
+
+    /**
+     * @param location the index of the location (0 to 63)
+     * @return true if the location is empty
+     */
+    public boolean isLocationEmpty(int location) { return ((this.xBits | this.oBits) & bit(location)) == 0; }
+
+    /**
+     * Counts the number of a piece on the board.
+     * @param piece the piece to count, 'X', 'O', or ' ' for the empty locations
+     * @return the number of locations with that piece
+     */
+    public int countPieces(char piece) {
+        if (piece == ' ') return LOCATIONS - this.moveCount;
+        return piece == 'X' || piece == 'O' ? Long.bitCount(mask(piece)) : 0;
+    }
+
+    /**
+     * Play a piece onto the board, checking to make sure that the location is empty and the game
+     * is not over first.
+     * @param location the index of the location (0 to 63)
+     * @param piece the piece to place, either 'X' or 'O'
+     * @return true if the play was successful, false otherwise
+     */
+    public boolean playPiece(int location, char piece) {
+        if (piece != 'X' && piece != 'O') { throw new IllegalArgumentException("piece must be 'X' or 'O'"); }
+        if (!this.isLocationEmpty(location) || this.isGameOver()) { return false; }
+        long bits;
+        if (piece == 'X') bits = this.xBits |= 1L << location;
+        else bits = this.oBits |= 1L << location;
+        this.zobristKey ^= ZOBRIST[2 * location + (piece == 'X' ? 0 : 1)];
+        this.moves[this.moveCount++] = location;
+        for (long line : LINES_THROUGH[location]) {
+            if ((bits & line) == line) {
+                this.status = piece == 'X' ? Board.Status.X_WON : Board.Status.O_WON;
+                return true;
+            }
+        }
+        if (this.moveCount == LOCATIONS) { this.status = Board.Status.TIED; }
+        return true;
+    }
+
+    /**
+     * Play a piece onto the board, checking to make sure that the location is empty and the game
+     * is not over first.
+     * @param level the level (0 to 3)
+     * @param r the row (0 to 3)
+     * @param c the column (0 to 3)
+     * @param piece the piece to place, either 'X' or 'O'
+     * @return true if the play was successful, false otherwise
+     */
+    public boolean playPiece(int level, int r, int c, char piece) { return playPiece(location(level, r, c), piece); }
+
+    /**
+     * Takes back the last piece played.
+     * @return the location of the piece taken back
+     */
+    public int undo() {
+        if (this.moveCount == 0) { throw new IllegalStateException("no moves to undo"); }
+        int location = this.moves[--this.moveCount];
+        long bit = 1L << location;
+        this.zobristKey ^= ZOBRIST[2 * location + ((this.xBits & bit) != 0 ? 0 : 1)];
+        this.xBits &= ~bit;
+        this.oBits &= ~bit;
+        this.status = Board.Status.IN_PROGRESS; // a piece can only be played when the game is in progress
+        return location;
+    }
+
+    /**
+     * Finds every empty location where playing the given piece would complete a line, in one pass
+     * over the lines: a line is a threat when it has three of the piece and none of the other.
+     * @param piece the piece to check for, either 'X' or 'O'
+     * @return the mask of the winning locations
+     */
+    public long winningLocations(char piece) {
+        long own = mask(piece), other = mask(piece == 'X' ? 'O' : 'X'), wins = 0;
+        for (long line : LINES) {
+            if ((line & other) == 0 && Long.bitCount(line & own) == SIZE - 1) { wins |= line & ~own; }
+        }
+        return wins;
+    }
+
+    /**
+     * Checks if the given piece at the given location would complete a line, whether or not the
+     * location is empty.
+     * @param location the index of the location (0 to 63)
+     * @param piece the piece to check for, either 'X' or 'O'
+     * @return true if the piece at that location completes a line
+     */
+    public boolean completesLine(int location, char piece) {
+        long bits = mask(piece) | bit(location);
+        for (long line : LINES_THROUGH[location]) { if ((bits & line) == line) { return true; } }
+        return false;
+    }
+
+    /**
+     * Gets the occupancy mask for a piece.
+     * @param piece 'X' or 'O', anything else has no pieces on the board
+     * @return the mask of locations that piece occupies
+     */
+    public long mask(char piece) { return piece == 'X' ? this.xBits : piece == 'O' ? this.oBits : 0; }
+
+    /**
+     * @return the mask of the empty locations, or 0 if the game is over
+     */
+    public long getEmptyMask() { return this.isGameOver() ? 0 : ~(this.xBits | this.oBits); }
+
+    /**
+     * Gets the bit of a location, making sure it is on the board.
+     * @param location the index of the location
+     * @return the mask with only that location
+     */
+    private static long bit(int location) {
+        if (location < 0 || location >= LOCATIONS) {
+            throw new IndexOutOfBoundsException("location " + location + " is not on the board");
+        }
+        return 1L << location;
+    }
+
+    /**
+     * @return the current state of the game on this board
+     */
+    public Board.Status getStatus() { return this.status; }
+
+    /**
+     * @return the number of pieces that have been played on the board
+     */
+    public int getMoveCount() { return this.moveCount; }
+
+    /**
+     * @return the location of the last piece played, or AI.NO_MOVE if nothing has been played
+     */
+    public int getLastMove() { return this.moveCount == 0 ? AI.NO_MOVE : this.moves[this.moveCount - 1]; }
+
+    /**
+     * @param piece the piece to check for a win with
+     * @return true if the player with the given piece has won, false otherwise
+     */
+    public boolean hasWon(char piece) {
+        return this.status == (piece == 'X' ? Board.Status.X_WON : Board.Status.O_WON);
+    }
+
+    /**
+     * @return true if the game has ended in a tie
+     */
+    public boolean hasTied() { return this.status == Board.Status.TIED; }
+
+    /**
+     * @return true if the game is over, either won by a player or tied
+     */
+    public boolean isGameOver() { return this.status != Board.Status.IN_PROGRESS; }
+
+    /**
+     * @return the Zobrist key of the position, the same for the same pieces in any order
+     */
+    public long getZobristKey() { return this.zobristKey; }
+
+
+    ////////// General Object Methods //////////
+
+    @NonNull
+    @Override
+    protected Object clone() { return new QubicBoard(this); }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("QubicBoard{levels=[");
+        for (int l = 0; l < SIZE; l++) {
+            sb.append(l == 0 ? "[" : ", [");
+            for (int r = 0; r < SIZE; r++) {
+                if (r > 0) sb.append('|');
+                for (int c = 0; c < SIZE; c++) sb.append(getPiece(l, r, c));
+            }
+            sb.append(']');
+        }
+        return sb.append("]}").toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        QubicBoard board = (QubicBoard) o;
+        return this.xBits == board.xBits && this.oBits == board.oBits;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (this.zobristKey ^ (this.zobristKey >>> 32));
+    }
+}
@@ -0,0 +1,310 @@
+package edu.moravian.csci299.tictactoe;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays many games between two AIs without any human player, spreading the games across all of the
+ * cores using fork-join. Each worker thread gets its own instances of the AIs and every task counts
+ * its own results, which are only added together as the tasks are joined, so the workers never
+ * share anything while playing.
+ *
+ * The two AIs take turns going first: the first AI plays 'O' (and goes first) in the even numbered
+ * games and the second AI does in the odd numbered games.
+ *
+ * Before each game both AIs are seeded from the seed of the run and the number of the game, so a
+ * run can be reproduced exactly with the same seed no matter which threads end up playing which
+ * games.
+ *
+ * The moves and outcomes are added to the metrics (those of the whole app unless others are given)
+ * once per task, and only the moves of one in every SAMPLED_GAMES games are timed, so recording
+ * metrics barely slows the games down.
+ */
+public class Simulation {
+    /** Creates new instances of an AI, one for each worker thread */
+    public interface AIFactory { AI create(); }
+
+    /** The smallest number of games played by a single task */
+    private static final int MIN_GAMES_PER_TASK = 256;
+    /** The moves of one in this many games are timed for the metrics (must be a power of 2) */
+    private static final int SAMPLED_GAMES = 64;
+
+    /** Creates the first AI */
+    private final AIFactory first;
+    /** Creates the second AI */
+    private final AIFactory second;
+    /** The size of the boards to play on */
+    private final int size;
+    /** The number in a row needed to win */
+    private final int winLength;
+    /** The pool that plays the games */
+    private final ForkJoinPool pool;
+    /** The metrics the games are recorded to */
+    private final Metrics metrics;
+    /** Chooses the seed of each run unless one is given */
+    private final SplitRandom random = new SplitRandom();
+
+    /**
+     * Creates a simulation of games on default 3x3 boards using the common fork-join pool.
+     * @param first creates the first AI
+     * @param second creates the second AI
+     */
+    public Simulation(AIFactory first, AIFactory second) {
+        this(first, second, Board.DEFAULT_SIZE, Board.DEFAULT_WIN_LENGTH, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a simulation of games.
+     * @param first creates the first AI
+     * @param second creates the second AI
+     * @param size the size of the boards to play on
+     * @param winLength the number in a row needed to win
+     * @param pool the pool to play the games in, its parallelism is the number of cores used
+     */
+    public Simulation(AIFactory first, AIFactory second, int size, int winLength, ForkJoinPool pool) {
+        this(first, second, size, winLength, pool, Metrics.getInstance());
+    }
+
+    /**
+     * Creates a simulation of games.
+     * @param first creates the first AI
+     * @param second creates the second AI
+     * @param size the size of the boards to play on
+     * @param winLength the number in a row needed to win
+     * @param pool the pool to play the games in, its parallelism is the number of cores used
+     * @param metrics the metrics to record the games to
+     */
+    public Simulation(AIFactory first, AIFactory second, int size, int winLength, ForkJoinPool pool, Metrics metrics) {
+        Board.checkDimensions(size, winLength);
+        if (metrics == null) { throw new IllegalArgumentException("no metrics"); }
+        this.first = first;
+        this.second = second;
+        this.size = size;
+        this.winLength = winLength;
+        this.pool = pool;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Plays the given number of games with a random seed and collects the results. The seed is
+     * available from the results to reproduce the run.
+     * @param games the number of games to play
+     * @return the combined results of all of the games
+     */
+    public Result run(long games) {
+        long seed;
+        synchronized (random) { seed = random.nextLong(); }
+        return run(games, seed);
+    }
+
+    /**
+     * Plays the given number of games and collects the results.
+     * @param games the number of games to play
+     * @param seed the seed for the AIs, the same seed always gives the same results
+     * @return the combined results of all of the games
+     */
+    public Result run(long games, long seed) {
+        if (games < 0) { throw new IllegalArgumentException("games must not be negative"); }
+        long threshold = Math.max(MIN_GAMES_PER_TASK, games / (8L * pool.getParallelism()));
+        long start = System.nanoTime();
+        Result result = pool.invoke(new Games(new Players(), seed, 0, games, threshold));
+        result.seed = seed;
+        result.elapsedNanos = System.nanoTime() - start;
+        result.cores = pool.getParallelism();
+        return result;
+    }
+
+    /**
+     * Plays a single game between two AIs.
+     * @param o the AI that plays 'O' and goes first
+     * @param x the AI that plays 'X'
+     * @return the finished board
+     */
+    Board playGame(AI o, AI x) { return playGame(o, x, null, null); }
+
+    /**
+     * Plays a single game between two AIs, timing every move if metrics are given.
+     * @param o the AI that plays 'O' and goes first
+     * @param x the AI that plays 'X'
+     * @param oStats the metrics to record the times of the moves by 'O' in, or null to not time
+     * @param xStats the metrics to record the times of the moves by 'X' in, or null to not time
+     * @return the finished board
+     */
+    private Board playGame(AI o, AI x, Metrics.AIStats oStats, Metrics.AIStats xStats) {
+        Board board = new Board(size, winLength);
+        char piece = 'O';
+        while (!board.isGameOver()) {
+            int moves = board.getMoveCount();
+            if (oStats == null) {
+                (piece == 'O' ? o : x).play(board, piece);
+            } else {
+                long start = System.nanoTime();
+                (piece == 'O' ? o : x).play(board, piece);
+                (piece == 'O' ? oStats : xStats).recordSample(System.nanoTime() - start);
+            }
+            if (board.getMoveCount() == moves) { throw new IllegalStateException("AI did not play a piece"); }
+            piece = piece == 'O' ? 'X' : 'O';
+        }
+        return board;
+    }
+
+    /** The AIs used by each worker thread, created the first time the thread plays a game */
+    private class Players extends ThreadLocal<AI[]> {
+        @Override
+        protected AI[] initialValue() { return new AI[] { first.create(), second.create() }; }
+    }
+
+    /** A task that plays a range of games, splitting the range in half until it is small enough */
+    @SuppressWarnings("serial") // tasks are never serialized
+    private class Games extends RecursiveTask<Result> {
+        private final Players players;
+        private final long seed, from, to, threshold;
+
+        Games(Players players, long seed, long from, long to, long threshold) {
+            this.players = players;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Result compute() {
+            if (to - from > threshold) {
+                long mid = (from + to) >>> 1;
+                Games left = new Games(players, seed, from, mid, threshold);
+                left.fork();
+                Result result = new Games(players, seed, mid, to, threshold).compute();
+                result.add(left.join());
+                return result;
+            }
+
+            AI[] ais = players.get();
+            Metrics.AIStats[] stats = metrics.isEnabled() ? new Metrics.AIStats[] { metrics.forAI(ais[0]), metrics.forAI(ais[1]) } : null;
+            Result result = new Result(size * size);
+            long firstMoves = 0;
+            for (long game = from; game < to; game++) {
+                boolean firstIsO = (game & 1) == 0;
+                int o = firstIsO ? 0 : 1, x = 1 - o;
+                ais[0].setSeed(SplitRandom.streamSeed(seed, 2 * game));
+                ais[1].setSeed(SplitRandom.streamSeed(seed, 2 * game + 1));
+                Board board = stats != null && (game & (SAMPLED_GAMES - 1)) == 0 ?
+                        playGame(ais[o], ais[x], stats[o], stats[x]) : playGame(ais[o], ais[x]);
+                result.record(board, firstIsO ? 'O' : 'X');
+                firstMoves += firstIsO ? (board.getMoveCount() + 1) / 2 : board.getMoveCount() / 2;
+            }
+            if (stats != null) {
+                stats[0].addMoves(firstMoves);
+                stats[1].addMoves(result.moves - firstMoves);
+                stats[0].addOutcomes(result.wins, result.losses, result.ties);
+                stats[1].addOutcomes(result.losses, result.wins, result.ties);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The results of playing many games, from the point of view of the first AI.
+     */
+    public static class Result {
+        /** The number of games won by the first AI, won by the second AI, and tied */
+        private long wins, losses, ties;
+        /** The number of games won by 'O' (who goes first) and by 'X' */
+        private long oWins, xWins;
+        /** The total number of pieces played in all games */
+        private long moves;
+        /** The number of games that ended after each number of pieces were played */
+        private final long[] lengths;
+        /** The seed used for the run */
+        private long seed;
+        /** How long it took to play all of the games, in nanoseconds */
+        private long elapsedNanos;
+        /** The number of cores used to play the games */
+        private int cores = 1;
+
+        /**
+         * @param cells the number of locations on the board, the longest possible game
+         */
+        Result(int cells) { lengths = new long[cells + 1]; }
+
+        /**
+         * Counts a finished game.
+         * @param board the board at the end of the game
+         * @param firstPiece the piece the first AI played
+         */
+        void record(Board board, char firstPiece) {
+            if (board.hasTied()) { ties++; }
+            else if (board.hasWon(firstPiece)) { wins++; }
+            else { losses++; }
+            if (board.hasWon('O')) { oWins++; } else if (board.hasWon('X')) { xWins++; }
+            moves += board.getMoveCount();
+            lengths[board.getMoveCount()]++;
+        }
+
+        /**
+         * Adds the counts of another set of results to this one.
+         * @param other the results to add
+         */
+        void add(Result other) {
+            wins += other.wins; losses += other.losses; ties += other.ties;
+            oWins += other.oWins; xWins += other.xWins;
+            moves += other.moves;
+            for (int i = 0; i < lengths.length; i++) { lengths[i] += other.lengths[i]; }
+        }
+
+        /** @return the number of games played */
+        public long getGames() { return wins + losses + ties; }
+
+        /** @return the number of games won by the first AI */
+        public long getWins() { return wins; }
+
+        /** @return the number of games won by the second AI */
+        public long getLosses() { return losses; }
+
+        /** @return the number of games tied */
+        public long getTies() { return ties; }
+
+        /** @return the number of games won by 'O', whichever AI was playing it */
+        public long getOWins() { return oWins; }
+
+        /** @return the number of games won by 'X', whichever AI was playing it */
+        public long getXWins() { return xWins; }
+
+        /** @return the total number of pieces played across all games */
+        public long getMoves() { return moves; }
+
+        /**
+         * @param moves a number of pieces played
+         * @return the number of games that ended after exactly that many pieces
+         */
+        public long getGamesOfLength(int moves) { return lengths[moves]; }
+
+        /** @return the average number of pieces played per game */
+        public double getAverageLength() { return getGames() == 0 ? 0 : (double) moves / getGames(); }
+
+        /** @return the seed the run used, passing it to run() again plays exactly the same games */
+        public long getSeed() { return seed; }
+
+        /** @return how long the games took to play, in nanoseconds */
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        /** @return the number of games played per second */
+        public double getGamesPerSecond() { return elapsedNanos == 0 ? 0 : getGames() * 1e9 / elapsedNanos; }
+
+        /** @return the number of games played per second by each core */
+        public double getGamesPerSecondPerCore() { return getGamesPerSecond() / cores; }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "games=" + getGames() +
+                    ", wins=" + wins +
+                    ", losses=" + losses +
+                    ", ties=" + ties +
+                    ", averageLength=" + getAverageLength() +
+                    ", gamesPerSecond=" + getGamesPerSecond() +
+                    ", cores=" + cores +
+                    '}';
+        }
+    }
+}
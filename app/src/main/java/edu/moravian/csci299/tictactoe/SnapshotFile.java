@@ -0,0 +1,133 @@
+package edu.moravian.csci299.tictactoe;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A file of fixed-size slots each holding a snapshot of a Match (see Match.writeSnapshot()), mapped
+ * into memory so that large numbers of matches can be checkpointed and restored in bulk without a
+ * system call per match. A slot that has never been written restores as a match that hasn't
+ * started.
+ *
+ * Reading and writing are synchronized since all slots share the mapped buffer. Changes reach the
+ * file when the OS writes them back, or right away with force().
+ */
+public class SnapshotFile implements Closeable {
+    /** Identifies snapshot files, "TTTs" */
+    private static final int MAGIC = 0x54545473;
+    /** The version of the snapshot format */
+    private static final int VERSION = 1;
+    /** The number of bytes before the first slot */
+    private static final int HEADER_BYTES = 16;
+
+    /** The open file */
+    private final RandomAccessFile file;
+    /** The file mapped into memory */
+    private final MappedByteBuffer buffer;
+    /** The number of slots in the file */
+    private final int slots;
+
+    /**
+     * Opens a snapshot file, creating it if it does not exist.
+     * @param path the file
+     * @param slots the number of slots in the file, which must match an existing file
+     * @throws IOException if the file cannot be opened or mapped, or is not a snapshot file with
+     * that many slots
+     */
+    public SnapshotFile(File path, int slots) throws IOException {
+        if (slots < 1 || slots > (Integer.MAX_VALUE - HEADER_BYTES) / Match.SNAPSHOT_BYTES) {
+            throw new IllegalArgumentException("invalid number of slots " + slots);
+        }
+        this.slots = slots;
+        this.file = new RandomAccessFile(path, "rw");
+        try {
+            boolean created = file.length() == 0;
+            long length = HEADER_BYTES + (long) slots * Match.SNAPSHOT_BYTES;
+            if (!created && file.length() != length) { throw new IOException(path + " does not have " + slots + " slots"); }
+            this.buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+            if (created) {
+                buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, slots);
+            } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != slots) {
+                throw new IOException(path + " is not a snapshot file with " + slots + " slots");
+            }
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the number of slots in the file
+     */
+    public int getSlots() { return slots; }
+
+    /**
+     * Writes a snapshot of a match into a slot.
+     * @param slot the slot, from 0 to getSlots()-1
+     * @param match the match to save
+     */
+    public synchronized void write(int slot, Match match) {
+        buffer.position(offset(slot));
+        match.writeSnapshot(buffer);
+    }
+
+    /**
+     * Restores a match from a slot, see Match.readSnapshot().
+     * @param slot the slot, from 0 to getSlots()-1
+     * @param match the match to restore into
+     */
+    public synchronized void read(int slot, Match match) {
+        buffer.position(offset(slot));
+        match.readSnapshot(buffer);
+    }
+
+    /**
+     * Writes snapshots of many matches into consecutive slots.
+     * @param first the slot for the first match
+     * @param matches the matches to save
+     */
+    public synchronized void writeAll(int first, Match[] matches) {
+        if (matches.length == 0) { return; }
+        offset(first + matches.length - 1);
+        buffer.position(offset(first));
+        for (Match match : matches) { match.writeSnapshot(buffer); }
+    }
+
+    /**
+     * Restores many matches from consecutive slots.
+     * @param first the slot for the first match
+     * @param matches the matches to restore into
+     */
+    public synchronized void readAll(int first, Match[] matches) {
+        if (matches.length == 0) { return; }
+        offset(first + matches.length - 1);
+        buffer.position(offset(first));
+        for (Match match : matches) { match.readSnapshot(buffer); }
+    }
+
+    /**
+     * Makes sure all of the snapshots written so far are stored in the file.
+     */
+    public synchronized void force() { buffer.force(); }
+
+    /**
+     * Closes the file. The memory stays mapped until the buffer is garbage collected.
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException { file.close(); }
+
+    /**
+     * Gets the offset of a slot in the file, making sure the slot exists.
+     * @param slot the slot
+     * @return the offset of the slot
+     */
+    private int offset(int slot) {
+        if (slot < 0 || slot >= slots) { throw new IndexOutOfBoundsException("slot " + slot + " is not in the file"); }
+        return HEADER_BYTES + slot * Match.SNAPSHOT_BYTES;
+    }
+}
@@ -0,0 +1,172 @@
+package edu.moravian.csci299.tictactoe;
+
+/**
+ * The solution to every legal position of the default 3x3 Tic-Tac-Toe game. The first time it is
+ * used every position that can be reached from an empty board (with 'O' going first like in Game)
+ * is enumerated and solved, and the game-theoretic score and best location are stored in a single
+ * array indexed by the base-3 encoding of the board. After that, looking up a position is just
+ * encoding the board and reading one array element.
+ *
+ * Scores are the same as the ones used by PerfectAI: 0 for a tie, positive for a win and negative
+ * for a loss for the player to move, with faster wins and slower losses being larger. The best
+ * location is the first one (going row by row) with the highest score.
+ */
+public final class SolutionTable {
+    /** The number of locations on the board */
+    private static final int CELLS = 9;
+    /** The number of possible encodings of a board, 3^9 */
+    private static final int ENCODINGS = 19683;
+    /** The base-3 value of each 9-bit mask, with a digit of 1 for every set bit */
+    private static final int[] BASE3 = new int[1 << CELLS];
+    static {
+        for (int mask = 1; mask < BASE3.length; mask++) {
+            int low = Integer.numberOfTrailingZeros(mask), pow = 1;
+            for (int i = 0; i < low; i++) { pow *= 3; }
+            BASE3[mask] = BASE3[mask & (mask - 1)] + pow;
+        }
+    }
+
+    /**
+     * The entry for each board encoding, packed as (score + 16) << 4 | (best location + 1). The
+     * best location is -1 when the game is over. Boards that can't be reached have an entry of 0.
+     */
+    private final short[] entries = new short[ENCODINGS];
+    /** The number of legal positions in the table */
+    private int size;
+
+    /** Lazily creates the single table the first time it is needed. */
+    private static class Holder { static final SolutionTable INSTANCE = new SolutionTable(); }
+
+    /**
+     * @return the table of every solved position
+     */
+    public static SolutionTable getInstance() { return Holder.INSTANCE; }
+
+    /**
+     * Builds the table by solving every position reachable from the empty board.
+     */
+    private SolutionTable() { solve(new Board(), 'O'); }
+
+    /**
+     * @return the number of legal positions in the table (5,478)
+     */
+    public int size() { return size; }
+
+    /**
+     * Checks if a position is in the table.
+     * @param board the board to look up
+     * @param piece the piece that plays next (either 'X' or 'O')
+     * @return true if the board is a default 3x3 board and the position can be reached in a game
+     * where 'O' or 'X' went first
+     */
+    public boolean contains(Board board, char piece) { return entry(board, piece) != 0; }
+
+    /**
+     * Gets the score of the board with the given player to move next.
+     * @param board the board to look up, which must be in the table
+     * @param piece the piece that plays next (either 'X' or 'O')
+     * @return 0 if perfect play ends in a tie, otherwise positive if the player to move wins and
+     * negative if they lose (larger for faster wins)
+     */
+    public int getScore(Board board, char piece) {
+        return (checkedEntry(board, piece) >> 4) - 16;
+    }
+
+    /**
+     * Gets the best location for the piece to be played on the board.
+     * @param board the board to look up, which must be in the table
+     * @param piece the piece that plays next (either 'X' or 'O')
+     * @return the index (r*3+c) of the best location, or -1 if the game is already over
+     */
+    public int getBestLocation(Board board, char piece) {
+        return (checkedEntry(board, piece) & 0xF) - 1;
+    }
+
+    /**
+     * Gets the entry for a position, making sure it exists.
+     * @param board the board to look up
+     * @param piece the piece that plays next (either 'X' or 'O')
+     * @return the packed entry for the position
+     */
+    private int checkedEntry(Board board, char piece) {
+        int entry = entry(board, piece);
+        if (entry == 0) { throw new IllegalArgumentException("position is not reachable: " + board); }
+        return entry;
+    }
+
+    /**
+     * Gets the entry for a position. The table is built with 'O' going first so when it is 'X' that
+     * went first the pieces are swapped before looking the board up.
+     * @param board the board to look up
+     * @param piece the piece that plays next (either 'X' or 'O')
+     * @return the packed entry for the position, or 0 if it is not reachable
+     */
+    private int entry(Board board, char piece) {
+        if (!isDefaultBoard(board)) { return 0; }
+        int x = (int) board.mask('X'), o = (int) board.mask('O');
+        int mine = Integer.bitCount(piece == 'X' ? x : o), theirs = Integer.bitCount(piece == 'X' ? o : x);
+        if (mine == theirs) {
+            // the piece to move went first, so it must be O
+            return piece == 'O' ? entries[encode(x, o)] : entries[encode(o, x)];
+        } else if (theirs == mine + 1) {
+            // the piece to move went second, so it must be X
+            return piece == 'X' ? entries[encode(x, o)] : entries[encode(o, x)];
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the base-3 encoding of a board, where location (r, c) is the digit for 3^(r*3+c) and is
+     * 0 for empty, 1 for 'X', and 2 for 'O'.
+     * @param board the board to encode, which must be a default 3x3 board
+     * @return the encoding, from 0 to 3^9-1
+     */
+    public static int encode(Board board) {
+        if (!isDefaultBoard(board)) { throw new IllegalArgumentException("only 3x3 boards can be encoded"); }
+        return encode((int) board.mask('X'), (int) board.mask('O'));
+    }
+
+    /**
+     * @param board the board to check
+     * @return true if the board is 3x3 with 3 in a row needed to win
+     */
+    private static boolean isDefaultBoard(Board board) {
+        return board.getSize() == Board.DEFAULT_SIZE && board.getWinLength() == Board.DEFAULT_WIN_LENGTH;
+    }
+
+    /**
+     * Gets the base-3 encoding of the board with the given X and O masks.
+     * @param x the mask of the X pieces
+     * @param o the mask of the O pieces
+     * @return the encoding, from 0 to 3^9-1
+     */
+    private static int encode(int x, int o) { return BASE3[x] + 2 * BASE3[o]; }
+
+    /**
+     * Solves a position and every position reachable from it, filling in the table.
+     * @param board the board to solve, every move played on it is taken back before returning
+     * @param piece the piece that plays next
+     * @return the score of the position for the player to move
+     */
+    private int solve(Board board, char piece) {
+        int code = encode(board);
+        if (entries[code] != 0) { return (entries[code] >> 4) - 16; }
+
+        int best = -1, bestScore;
+        if (board.isGameOver()) {
+            bestScore = board.hasTied() ? 0 : -(board.countPieces(' ') + 1);
+        } else {
+            char opponent = piece == 'X' ? 'O' : 'X';
+            bestScore = -Integer.MAX_VALUE;
+            for (int i = 0; i < CELLS; i++) {
+                if (!board.playPiece(i, piece)) { continue; }
+                int score = -solve(board, opponent);
+                board.undo();
+                if (score > bestScore) { best = i; bestScore = score; }
+            }
+        }
+        entries[code] = (short) ((bestScore + 16) << 4 | (best + 1));
+        size++;
+        return bestScore;
+    }
+}
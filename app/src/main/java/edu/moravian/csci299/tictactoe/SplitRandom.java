@@ -0,0 +1,86 @@
+package edu.moravian.csci299.tictactoe;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A small, fast, seedable random number generator using the SplitMix64 algorithm (the same one used
+ * by java.util.SplittableRandom, which isn't available on all supported Android versions).
+ *
+ * Unlike java.util.Random it isn't thread-safe and never synchronizes, so each thread (or each AI
+ * used by a single thread) should have its own. split() creates an independent generator for
+ * another thread, and the same seed always produces the same sequence so a run can be reproduced
+ * exactly.
+ */
+public final class SplitRandom {
+    /** The odd constant added to the state for every number generated */
+    private static final long GAMMA = 0x9E3779B97F4A7C15L;
+    /** Makes the seeds of unseeded generators created at the same time different */
+    private static final AtomicLong seedUniquifier = new AtomicLong(0x2545F4914F6CDD1DL);
+
+    /** The current state, advanced by GAMMA for every number generated */
+    private long state;
+
+    /**
+     * Creates a generator with a seed that is different every time.
+     */
+    public SplitRandom() { this(mix(seedUniquifier.getAndAdd(GAMMA) ^ System.nanoTime())); }
+
+    /**
+     * Creates a generator that always produces the same sequence for the same seed.
+     * @param seed the seed
+     */
+    public SplitRandom(long seed) { this.state = seed; }
+
+    /**
+     * Restarts the sequence of this generator as if it had been created with the given seed.
+     * @param seed the seed
+     */
+    public void setSeed(long seed) { this.state = seed; }
+
+    /**
+     * @return the next random long, any value is equally likely
+     */
+    public long nextLong() { return mix(state += GAMMA); }
+
+    /**
+     * Gets the next random int from 0 up to (but not including) bound.
+     * @param bound the number of possible values, must be positive
+     * @return the random int
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) { throw new IllegalArgumentException("bound must be positive"); }
+        // multiply-shift of the top 31 bits, the bias is at most bound/2^31 which is negligible
+        return (int) (((nextLong() >>> 33) * bound) >>> 31);
+    }
+
+    /**
+     * @return the next random double from 0.0 up to (but not including) 1.0
+     */
+    public double nextDouble() { return (nextLong() >>> 11) * 0x1.0p-53; }
+
+    /**
+     * Creates a new generator whose sequence is independent of this one, for use in another thread.
+     * @return the new generator
+     */
+    public SplitRandom split() { return new SplitRandom(mix(nextLong())); }
+
+    /**
+     * Derives a seed for one of many independent streams from a single seed, for example one for
+     * every game in a simulation.
+     * @param seed the seed of the whole run
+     * @param stream the number of the stream
+     * @return the seed for that stream
+     */
+    public static long streamSeed(long seed, long stream) { return mix(seed + mix(stream * GAMMA)); }
+
+    /**
+     * The SplitMix64 finalizer, which scrambles the bits of a value.
+     * @param z the value to scramble
+     * @return the scrambled value
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,260 @@
+package edu.moravian.csci299.tictactoe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * A round-robin tournament between any number of AIs: every pair of AIs plays the same number of
+ * games against each other as a Simulation, taking turns going first. All of the pairs are
+ * scheduled in the same fork-join pool at once so every core stays busy, and each pair is seeded
+ * from the tournament's seed, so a tournament can be reproduced exactly.
+ *
+ * The AIs are then given Elo ratings (see Standings) with 95% confidence intervals.
+ */
+public class Tournament {
+    /** The names of the AIs */
+    private final List<String> names = new ArrayList<>();
+    /** Creates each of the AIs */
+    private final List<Simulation.AIFactory> factories = new ArrayList<>();
+    /** The pool that plays the games */
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a tournament without any AIs that plays its games in the common fork-join pool.
+     */
+    public Tournament() { this(ForkJoinPool.commonPool()); }
+
+    /**
+     * Creates a tournament without any AIs.
+     * @param pool the pool to play the games in
+     */
+    public Tournament(ForkJoinPool pool) { this.pool = pool; }
+
+    /**
+     * Adds an AI to the tournament.
+     * @param name the name of the AI, which must be different from the others
+     * @param factory creates new instances of the AI
+     */
+    public void addPlayer(String name, Simulation.AIFactory factory) {
+        if (names.contains(name)) { throw new IllegalArgumentException("there is already a player named " + name); }
+        names.add(name);
+        factories.add(factory);
+    }
+
+    /**
+     * Plays the tournament.
+     * @param gamesPerPair the number of games every pair of AIs plays
+     * @param seed the seed for all of the games, the same seed always gives the same results
+     * @return the results and ratings
+     */
+    public Standings run(long gamesPerPair, long seed) {
+        int n = names.size();
+        if (n < 2) { throw new IllegalStateException("a tournament needs at least two players"); }
+        if (gamesPerPair < 1) { throw new IllegalArgumentException("each pair must play at least one game"); }
+        long start = System.nanoTime();
+
+        // Start every pair at once, then wait for them all
+        List<ForkJoinTask<Simulation.Result>> tasks = new ArrayList<>();
+        for (int i = 0, pair = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++, pair++) {
+                Simulation simulation = new Simulation(factories.get(i), factories.get(j), Board.DEFAULT_SIZE, Board.DEFAULT_WIN_LENGTH, pool);
+                long pairSeed = SplitRandom.streamSeed(seed, pair);
+                tasks.add(pool.submit(() -> simulation.run(gamesPerPair, pairSeed)));
+            }
+        }
+        Simulation.Result[][] results = new Simulation.Result[n][n];
+        for (int i = 0, pair = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++, pair++) { results[i][j] = tasks.get(pair).join(); }
+        }
+        return new Standings(names.toArray(new String[0]), results, seed, System.nanoTime() - start);
+    }
+
+    /**
+     * The results of a tournament and the ratings of the AIs.
+     *
+     * The ratings are the maximum likelihood Elo ratings for all of the games at once (the
+     * Bradley-Terry model, with a tie counting as half a win for each side), averaging 1500. Every
+     * pair is also given one extra tied game so that ratings stay finite when one AI never loses to
+     * another. The confidence intervals come from the standard error of each rating.
+     */
+    public static class Standings {
+        /** The average rating */
+        public static final double AVERAGE_RATING = 1500;
+        /** The number of standard errors on each side of a rating for a 95% confidence interval */
+        private static final double Z_95 = 1.959964;
+        /** Converts a natural log of strength to Elo points */
+        private static final double ELO_PER_LOG = 400 / Math.log(10);
+
+        /** The names of the AIs */
+        private final String[] names;
+        /** The results of each pair i < j, from i's point of view */
+        private final Simulation.Result[][] results;
+        /** The rating of each AI */
+        private final double[] ratings;
+        /** Half of the width of the 95% confidence interval of each rating */
+        private final double[] margins;
+        /** The seed the tournament used */
+        private final long seed;
+        /** How long the tournament took in nanoseconds */
+        private final long elapsedNanos;
+
+        /**
+         * Works out the ratings from the results.
+         * @param names the names of the AIs
+         * @param results the results of each pair i < j, from i's point of view
+         * @param seed the seed the tournament used
+         * @param elapsedNanos how long the tournament took in nanoseconds
+         */
+        Standings(String[] names, Simulation.Result[][] results, long seed, long elapsedNanos) {
+            this.names = names;
+            this.results = results;
+            this.seed = seed;
+            this.elapsedNanos = elapsedNanos;
+            int n = names.length;
+            double[][] games = new double[n][n], points = new double[n][n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    if (i == j) { continue; }
+                    games[i][j] = getGames(i, j);
+                    points[i][j] = getWins(i, j) + 0.5 * getTies(i, j);
+                }
+            }
+            this.ratings = new double[n];
+            this.margins = new double[n];
+            rate(games, points, ratings, margins);
+        }
+
+        /**
+         * Finds the maximum likelihood ratings with the MM algorithm (Hunter, 2004) along with
+         * their 95% confidence margins.
+         * @param games the number of games played by each pair
+         * @param points the points scored by i against j (wins plus half of the ties)
+         * @param ratings filled in with the ratings
+         * @param margins filled in with the confidence margins
+         */
+        static void rate(double[][] games, double[][] points, double[] ratings, double[] margins) {
+            int n = ratings.length;
+            double[] strength = new double[n];
+            Arrays.fill(strength, 1);
+            for (int iteration = 0; iteration < 100000; iteration++) {
+                double change = 0, logSum = 0;
+                double[] next = new double[n];
+                for (int i = 0; i < n; i++) {
+                    double won = 0, expected = 0;
+                    for (int j = 0; j < n; j++) {
+                        if (i == j) { continue; }
+                        won += points[i][j] + 0.5; // plus the extra tied game
+                        expected += (games[i][j] + 1) / (strength[i] + strength[j]);
+                    }
+                    next[i] = won / expected;
+                    logSum += Math.log(next[i]);
+                }
+                double scale = Math.exp(logSum / n); // keep the average log strength at 0
+                for (int i = 0; i < n; i++) {
+                    next[i] /= scale;
+                    change = Math.max(change, Math.abs(Math.log(next[i] / strength[i])));
+                }
+                strength = next;
+                if (change < 1e-12) { break; }
+            }
+            for (int i = 0; i < n; i++) {
+                double information = 0;
+                for (int j = 0; j < n; j++) {
+                    if (i == j) { continue; }
+                    double p = strength[i] / (strength[i] + strength[j]);
+                    information += games[i][j] * p * (1 - p);
+                }
+                ratings[i] = AVERAGE_RATING + ELO_PER_LOG * Math.log(strength[i]);
+                margins[i] = information == 0 ? Double.POSITIVE_INFINITY : Z_95 * ELO_PER_LOG / Math.sqrt(information);
+            }
+        }
+
+        /** @return the number of AIs */
+        public int getPlayerCount() { return names.length; }
+
+        /**
+         * @param i the index of an AI, in the order they were added
+         * @return the name of the AI
+         */
+        public String getName(int i) { return names[i]; }
+
+        /**
+         * @param i the index of an AI
+         * @return the Elo rating of the AI
+         */
+        public double getRating(int i) { return ratings[i]; }
+
+        /**
+         * @param i the index of an AI
+         * @return half of the width of the 95% confidence interval of the rating
+         */
+        public double getMargin(int i) { return margins[i]; }
+
+        /**
+         * @param i the index of an AI
+         * @param j the index of another AI
+         * @return the number of games the AIs played against each other
+         */
+        public long getGames(int i, int j) { return i == j ? 0 : result(i, j).getGames(); }
+
+        /**
+         * @param i the index of an AI
+         * @param j the index of another AI
+         * @return the number of games i won against j
+         */
+        public long getWins(int i, int j) {
+            if (i == j) { return 0; }
+            return i < j ? results[i][j].getWins() : results[j][i].getLosses();
+        }
+
+        /**
+         * @param i the index of an AI
+         * @param j the index of another AI
+         * @return the number of games i lost against j
+         */
+        public long getLosses(int i, int j) { return getWins(j, i); }
+
+        /**
+         * @param i the index of an AI
+         * @param j the index of another AI
+         * @return the number of games tied between i and j
+         */
+        public long getTies(int i, int j) { return i == j ? 0 : result(i, j).getTies(); }
+
+        /** @return the seed the tournament used, running it again with it gives the same results */
+        public long getSeed() { return seed; }
+
+        /** @return how long the tournament took in nanoseconds */
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        /**
+         * @param i the index of an AI
+         * @param j the index of another AI
+         * @return the results of the pair, from the point of view of whichever was added first
+         */
+        private Simulation.Result result(int i, int j) { return i < j ? results[i][j] : results[j][i]; }
+
+        /**
+         * @return a table of the AIs from the highest rating to the lowest
+         */
+        @Override
+        public String toString() {
+            Integer[] order = new Integer[names.length];
+            for (int i = 0; i < order.length; i++) { order[i] = i; }
+            Arrays.sort(order, (a, b) -> Double.compare(ratings[b], ratings[a]));
+            StringBuilder table = new StringBuilder(String.format(Locale.ROOT, "%-12s %7s %6s %9s %9s %9s%n",
+                    "AI", "Elo", "+/-", "wins", "losses", "ties"));
+            for (int i : order) {
+                long wins = 0, losses = 0, ties = 0;
+                for (int j = 0; j < names.length; j++) { wins += getWins(i, j); losses += getLosses(i, j); ties += getTies(i, j); }
+                table.append(String.format(Locale.ROOT, "%-12s %7.1f %6.1f %9d %9d %9d%n",
+                        names[i], ratings[i], margins[i], wins, losses, ties));
+            }
+            return table.toString();
+        }
+    }
+}
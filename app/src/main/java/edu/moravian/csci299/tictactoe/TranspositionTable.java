@@ -0,0 +1,251 @@
+package edu.moravian.csci299.tictactoe;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size transposition table for searches, stored off the Java heap in a direct buffer so
+ * that tables of hundreds of megabytes don't make any objects for the garbage collector. Each
+ * entry is 16 bytes: the position's 64-bit key XORed with the data, then the data, which is the
+ * score, depth, bound, and best move packed into a long.
+ *
+ * The table can be shared by any number of search threads without locks, using lockless hashing:
+ * the two halves of an entry are written separately, so another thread may see half of an old entry
+ * and half of a new one, but then the stored key XORed with the data is not the key being looked
+ * up and it is treated as a miss. A lookup can only hit with data that was stored for its key
+ * (except for the 1 in 2^64 chance of a key matching by accident, which any transposition table
+ * has).
+ *
+ * When two positions land on the same entry the replacement policy decides which is kept. Entries
+ * from an older search (see newSearch()) can always be replaced. The hit rate and the number of
+ * collisions (looking up or replacing a different position) are counted per thread without locks,
+ * so they are exact when each thread has its own stripe of counters and very close otherwise.
+ */
+public class TranspositionTable {
+    /** How to choose between the entry in the table and a different position being stored */
+    public enum Replacement {
+        /** Keep whichever was searched deeper (new positions win ties) */
+        DEPTH_PREFERRED,
+        /** Always store the new position */
+        ALWAYS_REPLACE
+    }
+
+    /** Marks an entry whose score is exact */
+    public static final int EXACT = 1;
+    /** Marks an entry whose score is a lower bound (the search failed high) */
+    public static final int LOWER = 2;
+    /** Marks an entry whose score is an upper bound (the search failed low) */
+    public static final int UPPER = 3;
+    /** What probe() returns when the position isn't in the table */
+    public static final long MISS = 0;
+    /** The size of each entry in bytes */
+    public static final int ENTRY_BYTES = 16;
+    /** The largest table allowed in bytes */
+    public static final long MAX_BYTES = 1L << 30;
+    /** The most moves ahead an entry can record */
+    public static final int MAX_DEPTH = 0xFF;
+    /** The number of stripes of counters (must be a power of 2) */
+    private static final int STRIPES = 64;
+    /** The counters of a stripe: probes, hits, collisions, stores, overwrites, padded to a cache line */
+    private static final int PROBES = 0, HITS = 1, COLLISIONS = 2, STORES = 3, OVERWRITES = 4, STRIPE_LONGS = 8;
+
+    /** The entries, ENTRY_BYTES each */
+    private final ByteBuffer buffer;
+    /** The number of entries less one, for finding the slot of a key */
+    private final int mask;
+    /** How to choose which position to keep */
+    private final Replacement replacement;
+    /** The counters of each stripe */
+    private final AtomicLongArray counters = new AtomicLongArray(STRIPES * STRIPE_LONGS);
+    /** The number of the current search, stored in entries to know which are old */
+    private volatile int generation;
+
+    /**
+     * Creates a depth-preferred table.
+     * @param bytes the most memory for the table, which is rounded down to a power of 2 entries
+     */
+    public TranspositionTable(long bytes) { this(bytes, Replacement.DEPTH_PREFERRED); }
+
+    /**
+     * Creates an empty table.
+     * @param bytes the most memory for the table, which is rounded down to a power of 2 entries,
+     *              from ENTRY_BYTES to MAX_BYTES
+     * @param replacement how to choose between the entry in the table and a different position
+     */
+    public TranspositionTable(long bytes, Replacement replacement) {
+        if (bytes < ENTRY_BYTES || bytes > MAX_BYTES) {
+            throw new IllegalArgumentException("table size must be from " + ENTRY_BYTES + " to " + MAX_BYTES + " bytes");
+        }
+        if (replacement == null) { throw new IllegalArgumentException("no replacement policy"); }
+        int entries = Integer.highestOneBit((int) (bytes / ENTRY_BYTES));
+        this.buffer = ByteBuffer.allocateDirect(entries * ENTRY_BYTES).order(ByteOrder.nativeOrder());
+        this.mask = entries - 1;
+        this.replacement = replacement;
+    }
+
+    /**
+     * Looks up a position.
+     * @param key the key of the position (including the player to move)
+     * @return the entry of the position, to be read with score(), depth(), bound(), and move(), or
+     *         MISS if the position isn't in the table
+     */
+    public long probe(long key) {
+        int offset = offset(key), stripe = stripe();
+        long data = buffer.getLong(offset + 8), check = buffer.getLong(offset);
+        count(stripe + PROBES);
+        if (data == MISS) { return MISS; }
+        if ((check ^ data) != key) {
+            count(stripe + COLLISIONS); // a different position, or half of one being written
+            return MISS;
+        }
+        count(stripe + HITS);
+        return data;
+    }
+
+    /**
+     * Stores the result of searching a position, unless the replacement policy keeps a different
+     * position that is already there.
+     * @param key the key of the position (including the player to move)
+     * @param score the score of the position
+     * @param depth the number of moves ahead searched, clamped to 0 to MAX_DEPTH
+     * @param bound EXACT, LOWER, or UPPER
+     * @param move the best move, or AI.NO_MOVE, from -1 to 65534
+     */
+    public void store(long key, int score, int depth, int bound, int move) {
+        if (bound < EXACT || bound > UPPER) { throw new IllegalArgumentException("invalid bound " + bound); }
+        int offset = offset(key), stripe = stripe(), generation = this.generation;
+        depth = Math.max(0, Math.min(depth, MAX_DEPTH));
+        long old = buffer.getLong(offset + 8);
+        if (old != MISS && (buffer.getLong(offset) ^ old) != key) {
+            if (replacement == Replacement.DEPTH_PREFERRED && generation(old) == generation && depth(old) > depth) { return; }
+            count(stripe + OVERWRITES);
+        }
+        long data = (long) score << 32 | (long) depth << 24 | (long) (generation & 0x3F) << 18 | (long) bound << 16 | ((move + 1) & 0xFFFF);
+        buffer.putLong(offset + 8, data);
+        buffer.putLong(offset, key ^ data);
+        count(stripe + STORES);
+    }
+
+    /**
+     * Starts a new search, so that the depth-preferred policy can replace the entries of earlier
+     * searches. Entries of earlier searches can still be found.
+     */
+    public void newSearch() { generation = (generation + 1) & 0x3F; }
+
+    /**
+     * Empties the table. This must not be called while it is being searched with.
+     */
+    public void clear() {
+        for (int offset = 0; offset < buffer.capacity(); offset += 8) { buffer.putLong(offset, 0); }
+    }
+
+    /**
+     * @param key the key of a position
+     * @return the byte offset of the entry of the position
+     */
+    private int offset(long key) { return ((int) (key >>> 32) & mask) * ENTRY_BYTES; }
+
+    /**
+     * @return the index of the first counter of the current thread's stripe
+     */
+    private static int stripe() { return ((int) Thread.currentThread().getId() & (STRIPES - 1)) * STRIPE_LONGS; }
+
+    /**
+     * Adds one to a counter. Only the thread with this stripe normally changes it, so this doesn't
+     * need an atomic add.
+     * @param index the index of the counter
+     */
+    private void count(int index) { counters.lazySet(index, counters.get(index) + 1); }
+
+    /**
+     * @param counter the counter within each stripe
+     * @return the total of that counter across all stripes
+     */
+    private long total(int counter) {
+        long total = 0;
+        for (int i = counter; i < counters.length(); i += STRIPE_LONGS) { total += counters.get(i); }
+        return total;
+    }
+
+    /**
+     * @param entry an entry returned by probe()
+     * @return the score of the entry
+     */
+    public static int score(long entry) { return (int) (entry >> 32); }
+
+    /**
+     * @param entry an entry returned by probe()
+     * @return the number of moves ahead searched
+     */
+    public static int depth(long entry) { return (int) (entry >>> 24) & 0xFF; }
+
+    /**
+     * @param entry an entry returned by probe()
+     * @return EXACT, LOWER, or UPPER
+     */
+    public static int bound(long entry) { return (int) (entry >>> 16) & 3; }
+
+    /**
+     * @param entry an entry returned by probe()
+     * @return the best move, or AI.NO_MOVE
+     */
+    public static int move(long entry) { return (int) (entry & 0xFFFF) - 1; }
+
+    /**
+     * @param entry an entry in the table
+     * @return the number of the search that stored it
+     */
+    private static int generation(long entry) { return (int) (entry >>> 18) & 0x3F; }
+
+    /** @return the number of entries in the table */
+    public int getCapacity() { return mask + 1; }
+
+    /** @return the replacement policy */
+    public Replacement getReplacement() { return replacement; }
+
+    /** @return the number of times a position has been looked up */
+    public long getProbes() { return total(PROBES); }
+
+    /** @return the number of times a position looked up was found */
+    public long getHits() { return total(HITS); }
+
+    /** @return the fraction of the positions looked up that were found, 0 if none have been */
+    public double getHitRate() {
+        long probes = getProbes();
+        return probes == 0 ? 0 : (double) getHits() / probes;
+    }
+
+    /** @return the number of times a position looked up found a different position in its entry */
+    public long getCollisions() { return total(COLLISIONS); }
+
+    /** @return the number of times a position was stored */
+    public long getStores() { return total(STORES); }
+
+    /** @return the number of times storing a position replaced a different position */
+    public long getOverwrites() { return total(OVERWRITES); }
+
+    /**
+     * Sets all of the statistics back to 0.
+     */
+    public void resetStatistics() {
+        for (int i = 0; i < counters.length(); i++) { counters.set(i, 0); }
+    }
+
+
+    ////////// General Object Methods //////////
+
+    @Override
+    public String toString() {
+        return "TranspositionTable{" +
+                "capacity=" + getCapacity() +
+                ", replacement=" + replacement +
+                ", probes=" + getProbes() +
+                ", hitRate=" + String.format(Locale.ROOT, "%.3f", getHitRate()) +
+                ", collisions=" + getCollisions() +
+                ", stores=" + getStores() +
+                ", overwrites=" + getOverwrites() +
+                '}';
+    }
+}
@@ -0,0 +1,233 @@
+package edu.moravian.csci299.tictactoe;
+
+/**
+ * An AI for Ultimate Tic-Tac-Toe. The game is far too big to search completely, so this searches
+ * a limited number of moves ahead with alpha-beta pruning and scores the positions where it stops
+ * with a heuristic. The search deepens one move at a time until it reaches the maximum depth or
+ * the deadline, keeping the best move of the deepest search that finished.
+ *
+ * The search plays and takes back moves on a single copy of the board. Moves that win a sub-board
+ * are tried first, then moves that block the opponent from winning one, and moves that let the
+ * opponent play in any sub-board are tried last, which lets alpha-beta prune much more.
+ *
+ * The heuristic score of each sub-board is precomputed for every possible sub-board (by its base-3
+ * code), so scoring a position is 9 table lookups plus a look at the lines of the grid.
+ *
+ * Like AI, an UltimateAI should only be used by one thread at a time.
+ */
+public class UltimateAI {
+    /** The default number of moves ahead to search */
+    public static final int DEFAULT_DEPTH = 8;
+    /** The score of a win, less the number of moves needed to get it */
+    private static final int WIN = 1000000;
+    /** Scores at least this big are wins or losses */
+    private static final int MIN_WIN = WIN - UltimateBoard.LOCATIONS;
+    /** The deadline of searches without one */
+    private static final Deadline UNLIMITED = Deadline.none();
+    /** The number of positions between checks of the deadline (must be a power of 2) */
+    private static final int CHECK_INTERVAL = 1024;
+    /** The score of a sub-board won by a player */
+    private static final int SUB_BOARD_WON = 100;
+    /** The score of a line of the grid with one or two sub-boards won by a player and none by the other */
+    private static final int[] GRID_LINE = { 0, 20, 120 };
+    /** How much each open sub-board's score counts, by its position in the grid */
+    private static final int[] SUB_BOARD_WEIGHT = { 3, 2, 3, 2, 4, 2, 3, 2, 3 };
+    /** The heuristic score of every sub-board for O, by its base-3 code */
+    private static final short[] SUB_BOARD_SCORE = new short[UltimateBoard.CODES];
+    static {
+        // Lines of a sub-board with pieces of only one player: 1 for one piece, 6 for two
+        for (int code = 0; code < UltimateBoard.CODES; code++) {
+            int o = 0, x = 0;
+            for (int i = 0, rest = code; i < UltimateBoard.SUB_BOARDS; i++, rest /= 3) {
+                if (rest % 3 == 1) o |= 1 << i;
+                else if (rest % 3 == 2) x |= 1 << i;
+            }
+            int score = 0;
+            boolean decided = false;
+            for (int line : UltimateBoard.LINES) {
+                int os = Integer.bitCount(o & line), xs = Integer.bitCount(x & line);
+                if (os == 3 || xs == 3) { decided = true; }
+                else if (xs == 0) { score += os == 2 ? 6 : os; }
+                else if (os == 0) { score -= xs == 2 ? 6 : xs; }
+            }
+            SUB_BOARD_SCORE[code] = (short) (decided ? 0 : score);
+        }
+    }
+
+    /** The most moves ahead to search */
+    private final int maxDepth;
+    /** The moves at each distance from the root of the search */
+    private final int[][] moves = new int[UltimateBoard.LOCATIONS + 1][UltimateBoard.LOCATIONS];
+    /** When the current search has to stop */
+    private Deadline deadline = UNLIMITED;
+    /** Set once the current search has run out of time */
+    private boolean stopped;
+    /** The number of positions the current search has looked at */
+    private long nodes;
+    /** The score of the best move of the last search from the root */
+    private int rootScore;
+
+    /**
+     * Creates an AI that searches DEFAULT_DEPTH moves ahead.
+     */
+    public UltimateAI() { this(DEFAULT_DEPTH); }
+
+    /**
+     * Creates an AI that searches the given number of moves ahead.
+     * @param maxDepth the most moves ahead to search, at least 1
+     */
+    public UltimateAI(int maxDepth) {
+        if (maxDepth < 1) { throw new IllegalArgumentException("depth must be at least 1"); }
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Asks the AI where it would play, searching the full depth.
+     * @param board the board to play on, which is not changed
+     * @param piece the piece to play (either 'X' or 'O')
+     * @return the location to play (sub*9+cell), or AI.NO_MOVE if the game is over
+     */
+    public int selectMove(UltimateBoard board, char piece) { return selectMove(board, piece, UNLIMITED).getMove(); }
+
+    /**
+     * Asks the AI where it would play, stopping at the deadline with the best move of the deepest
+     * search that finished. At least one move ahead is always searched.
+     * @param board the board to play on, which is not changed
+     * @param piece the piece to play (either 'X' or 'O')
+     * @param deadline when to stop searching
+     * @return the chosen move along with how much searching was done
+     */
+    public AI.SearchResult selectMove(UltimateBoard board, char piece, Deadline deadline) {
+        if (board.isGameOver()) { return new AI.SearchResult(AI.NO_MOVE, 0, 0, true); }
+        UltimateBoard copy = new UltimateBoard(board);
+        this.deadline = deadline;
+        this.stopped = false;
+        this.nodes = 0;
+        int best = AI.NO_MOVE, depth = 0;
+        boolean complete = false;
+        for (int d = 1; d <= maxDepth && (d == 1 || !deadline.isExpired()); d++) {
+            int move = searchRoot(copy, piece, d, best);
+            if (stopped && d > 1) { break; }
+            best = move;
+            depth = d;
+            complete = !stopped && (d == maxDepth || Math.abs(rootScore) >= MIN_WIN);
+            if (complete || stopped) { break; }
+        }
+        this.deadline = UNLIMITED;
+        return new AI.SearchResult(best, depth, nodes, complete);
+    }
+
+    /**
+     * Searches every move from the root, trying the best move of the previous depth first.
+     * @param board the board to search, changed during the search but restored at the end
+     * @param piece the piece to play
+     * @param depth the number of moves ahead to search
+     * @param previous the best move of the previous depth, or NO_MOVE
+     * @return the best move found
+     */
+    private int searchRoot(UltimateBoard board, char piece, int depth, int previous) {
+        int[] list = moves[0];
+        int count = orderMoves(board, piece, list);
+        if (previous != AI.NO_MOVE) {
+            for (int i = 0; i < count; i++) {
+                if (list[i] == previous) { System.arraycopy(list, 0, list, 1, i); list[0] = previous; break; }
+            }
+        }
+        int best = list[0], alpha = -WIN - 1;
+        char opponent = piece == 'X' ? 'O' : 'X';
+        for (int i = 0; i < count; i++) {
+            board.playPiece(list[i], piece);
+            int score = -negamax(board, opponent, depth - 1, 1, -WIN - 1, -alpha);
+            board.undo();
+            // searching one move ahead only scores each move, so it always finishes to have a move
+            if (stopped && depth > 1) { return best; }
+            if (score > alpha) { alpha = score; best = list[i]; }
+        }
+        rootScore = alpha;
+        return best;
+    }
+
+    /**
+     * Scores a position with alpha-beta pruning, from the point of view of the player to move.
+     * @param board the board to search, changed during the search but restored at the end
+     * @param piece the piece to play
+     * @param depth the number of moves ahead left to search
+     * @param ply the number of moves from the root
+     * @param alpha the score the player to move is already sure of
+     * @param beta the score the opponent is already sure of
+     * @return the score of the position
+     */
+    private int negamax(UltimateBoard board, char piece, int depth, int ply, int alpha, int beta) {
+        if ((++nodes & (CHECK_INTERVAL - 1)) == 0 && deadline.isExpired()) { stopped = true; }
+        if (board.isGameOver()) { return board.hasTied() ? 0 : -(WIN - ply); } // the opponent just won
+        if (depth == 0 || stopped) { return evaluate(board, piece); }
+        int[] list = moves[ply];
+        int count = orderMoves(board, piece, list);
+        char opponent = piece == 'X' ? 'O' : 'X';
+        for (int i = 0; i < count; i++) {
+            board.playPiece(list[i], piece);
+            int score = -negamax(board, opponent, depth - 1, ply + 1, -beta, -alpha);
+            board.undo();
+            if (score > alpha) {
+                alpha = score;
+                if (alpha >= beta) { break; }
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Finds all of the legal moves, ordered with the ones most likely to be good first: moves that
+     * win a sub-board, moves that block the opponent from winning a sub-board, other moves, and
+     * last moves that let the opponent play in any sub-board.
+     * @param board the board to play on
+     * @param piece the piece to play
+     * @param list filled in with the moves
+     * @return the number of moves
+     */
+    private static int orderMoves(UltimateBoard board, char piece, int[] list) {
+        char opponent = piece == 'X' ? 'O' : 'X';
+        int active = board.getActiveSubBoard(), decided = board.decidedSubBoards();
+        int subs = active == UltimateBoard.ANY_SUB_BOARD ? UltimateBoard.FULL & ~decided : 1 << active;
+        int count = 0;
+        for (int group = 0; group < 4; group++) {
+            for (int rest = subs; rest != 0; rest &= rest - 1) {
+                int sub = Integer.numberOfTrailingZeros(rest);
+                int empty = UltimateBoard.FULL & ~(board.cells(sub, 'O') | board.cells(sub, 'X'));
+                int wins = board.winningCells(sub, piece), blocks = board.winningCells(sub, opponent) & ~wins;
+                int cells;
+                switch (group) {
+                    case 0: cells = wins; break;
+                    case 1: cells = blocks; break;
+                    case 2: cells = empty & ~wins & ~blocks & ~decided; break;
+                    default: cells = empty & ~wins & ~blocks & decided; break;
+                }
+                for (; cells != 0; cells &= cells - 1) {
+                    list[count++] = sub * UltimateBoard.SUB_BOARDS + Integer.numberOfTrailingZeros(cells);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Scores a position that is not searched any further with the heuristic.
+     * @param board the board to score
+     * @param piece the piece of the player to move
+     * @return the score for that player
+     */
+    static int evaluate(UltimateBoard board, char piece) {
+        int oWon = board.wonSubBoards('O'), xWon = board.wonSubBoards('X'), decided = board.decidedSubBoards();
+        int score = SUB_BOARD_WON * (Integer.bitCount(oWon) - Integer.bitCount(xWon));
+        for (int line : UltimateBoard.LINES) {
+            // tied sub-boards block a line for both players
+            if ((line & decided & ~oWon) == 0) { score += GRID_LINE[Integer.bitCount(line & oWon)]; }
+            if ((line & decided & ~xWon) == 0) { score -= GRID_LINE[Integer.bitCount(line & xWon)]; }
+        }
+        for (int open = UltimateBoard.FULL & ~decided; open != 0; open &= open - 1) {
+            int sub = Integer.numberOfTrailingZeros(open);
+            score += SUB_BOARD_WEIGHT[sub] * SUB_BOARD_SCORE[board.code(sub)];
+        }
+        return piece == 'O' ? score : -score;
+    }
+}
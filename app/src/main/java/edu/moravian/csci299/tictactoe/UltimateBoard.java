@@ -0,0 +1,375 @@
+package edu.moravian.csci299.tictactoe;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * An Ultimate Tic-Tac-Toe board: a 3x3 grid of 3x3 sub-boards. A piece played in a location of a
+ * sub-board sends the other player to the sub-board in the same position of the grid, unless that
+ * sub-board is already decided (won or full), in which case they may play in any sub-board that is
+ * still open. Winning a sub-board claims that square of the grid, and three claimed squares in a
+ * row win the game. If every sub-board is decided without that, the game is tied.
+ *
+ * Locations are numbered sub*9+cell, where sub is the position of the sub-board in the grid and
+ * cell is the position within the sub-board, both numbered r*3+c like on a 3x3 Board.
+ *
+ * The pieces of each sub-board are stored as two 9-bit masks, one for X and one for O, along with
+ * a base-3 code of the sub-board (each location being 0 for empty, 1 for O, or 2 for X) that is
+ * updated with a single addition per move. The result of every sub-board is looked up from its code
+ * in a precomputed table and cached in 9-bit masks of the sub-boards won by each player and the
+ * sub-boards that are decided, so checking the whole game after a move only looks at those masks.
+ * Like Board, the moves are remembered so they can be taken back with undo(), letting searches
+ * play and take back moves on a single board.
+ */
+public class UltimateBoard implements Cloneable {
+    /** The active sub-board when a player may play in any sub-board that is open */
+    public static final int ANY_SUB_BOARD = -1;
+    /** The number of sub-boards, and of locations in each sub-board */
+    public static final int SUB_BOARDS = 9;
+    /** The number of locations on the board */
+    public static final int LOCATIONS = SUB_BOARDS * SUB_BOARDS;
+    /** The mask of all 9 locations of a sub-board (or all 9 sub-boards) */
+    static final int FULL = (1 << SUB_BOARDS) - 1;
+    /** The masks of the 8 lines of 3 on a 3x3 grid */
+    static final int[] LINES = { 0x007, 0x038, 0x1C0, 0x049, 0x092, 0x124, 0x111, 0x054 };
+    /** The number of base-3 codes of a 3x3 grid, 3 to the power of 9 */
+    static final int CODES = 19683;
+    /** The value added to a code for a piece at each location, 3 to the power of the location */
+    static final int[] POW3 = new int[SUB_BOARDS];
+    /** For every 9-bit mask, true if it contains a line */
+    private static final boolean[] HAS_LINE = new boolean[1 << SUB_BOARDS];
+    /** For every 9-bit mask of one piece, the locations that would complete a line (whether or not they are empty) */
+    private static final short[] WINNING_CELLS = new short[1 << SUB_BOARDS];
+    /** For every base-3 code of a sub-board, its status (in the order of Board.Status) */
+    private static final byte[] STATUS = new byte[CODES];
+    /** The values of Board.Status, so statuses can be stored as bytes */
+    private static final Board.Status[] STATUSES = Board.Status.values();
+    static {
+        POW3[0] = 1;
+        for (int i = 1; i < SUB_BOARDS; i++) { POW3[i] = 3 * POW3[i - 1]; }
+        for (int mask = 0; mask <= FULL; mask++) {
+            for (int line : LINES) {
+                if ((mask & line) == line) { HAS_LINE[mask] = true; }
+                if (Integer.bitCount(mask & line) == 2) { WINNING_CELLS[mask] |= line & ~mask; }
+            }
+        }
+        for (int code = 0; code < CODES; code++) {
+            int o = 0, x = 0;
+            for (int i = 0, rest = code; i < SUB_BOARDS; i++, rest /= 3) {
+                if (rest % 3 == 1) o |= 1 << i;
+                else if (rest % 3 == 2) x |= 1 << i;
+            }
+            Board.Status status = HAS_LINE[o] ? Board.Status.O_WON : HAS_LINE[x] ? Board.Status.X_WON :
+                    (o | x) == FULL ? Board.Status.TIED : Board.Status.IN_PROGRESS;
+            STATUS[code] = (byte) status.ordinal();
+        }
+    }
+
+    /** The locations of the O pieces in each sub-board */
+    private final int[] oCells;
+    /** The locations of the X pieces in each sub-board */
+    private final int[] xCells;
+    /** The base-3 code of each sub-board */
+    private final int[] codes;
+    /** The sub-boards won by O */
+    private int oWon;
+    /** The sub-boards won by X */
+    private int xWon;
+    /** The sub-boards that are won or full */
+    private int decided;
+    /** The sub-board the next piece must be played in, or ANY_SUB_BOARD */
+    private int active = ANY_SUB_BOARD;
+    /** The locations played, in order */
+    private final int[] moves;
+    /** The active sub-board before each move was played */
+    private final int[] actives;
+    /** The number of pieces that have been played on the board */
+    private int moveCount;
+    /** The current state of the game, updated every time a piece is played */
+    private Board.Status status = Board.Status.IN_PROGRESS;
+
+    /**
+     * Construct a new empty board.
+     */
+    public UltimateBoard() {
+        this.oCells = new int[SUB_BOARDS];
+        this.xCells = new int[SUB_BOARDS];
+        this.codes = new int[SUB_BOARDS];
+        this.moves = new int[LOCATIONS];
+        this.actives = new int[LOCATIONS];
+    }
+
+    /**
+     * Construct a new board that is filled in with the same contents of the other board.
+     */
+    public UltimateBoard(UltimateBoard board) {
+        this.oCells = board.oCells.clone();
+        this.xCells = board.xCells.clone();
+        this.codes = board.codes.clone();
+        this.oWon = board.oWon;
+        this.xWon = board.xWon;
+        this.decided = board.decided;
+        this.active = board.active;
+        this.moves = board.moves.clone();
+        this.actives = board.actives.clone();
+        this.moveCount = board.moveCount;
+        this.status = board.status;
+    }
+
+    /**
+     * Gets the piece at a location.
+     * @param location the location (sub*9+cell, 0 to 80)
+     * @return the char of the piece at the location, 'X', 'O', or ' ' if it is empty
+     */
+    public char getPiece(int location) { return getPiece(location / SUB_BOARDS, location % SUB_BOARDS); }
+
+    /**
+     * Gets the piece at a location of a sub-board.
+     * @param sub the sub-board (0 to 8)
+     * @param cell the location within the sub-board (0 to 8)
+     * @return the char of the piece at the location, 'X', 'O', or ' ' if it is empty
+     */
+    public char getPiece(int sub, int cell) {
+        checkIndex(sub, cell);
+        int bit = 1 << cell;
+        return (this.oCells[sub] & bit) != 0 ? 'O' : (this.xCells[sub] & bit) != 0 ? 'X' : ' ';
+    }
+
+    /**
+     * Gets the status of a single sub-board.
+     * @param sub the sub-board (0 to 8)
+     * @return the state of the game on that sub-board
+     */
+    public Board.Status getSubBoardStatus(int sub) {
+        checkIndex(sub, 0);
+        return STATUSES[STATUS[this.codes[sub]]];
+    }
+
+    /**
+     * @return the sub-board the next piece must be played in, or ANY_SUB_BOARD if it can be played
+     * in any sub-board that is open
+     */
+    public int getActiveSubBoard() { return this.active; }
+
+    /**
+     * Checks if a piece can be played at a location: the game is not over, the location is empty,
+     * and it is in the active sub-board (or any sub-board that is open if there is no active one).
+     * @param location the location (sub*9+cell, 0 to 80)
+     * @return true if a piece can be played there
+     */
+    public boolean isLegalMove(int location) {
+        if (location < 0 || location >= LOCATIONS) {
+            throw new IndexOutOfBoundsException("location " + location + " is not on the board");
+        }
+        int sub = location / SUB_BOARDS, bit = 1 << (location % SUB_BOARDS);
+        return this.status == Board.Status.IN_PROGRESS && (this.active == ANY_SUB_BOARD || this.active == sub) &&
+                (this.decided & (1 << sub)) == 0 && ((this.oCells[sub] | this.xCells[sub]) & bit) == 0;
+    }
+
+    /**
+     * Finds every location that the next piece can be played in.
+     * @param locations filled in with the legal locations in increasing order, must have room for
+     *                  at least LOCATIONS of them
+     * @return the number of legal locations, 0 if the game is over
+     */
+    public int getLegalMoves(int[] locations) {
+        if (this.status != Board.Status.IN_PROGRESS) { return 0; }
+        int count = 0;
+        for (int subs = this.active == ANY_SUB_BOARD ? FULL & ~this.decided : 1 << this.active; subs != 0; subs &= subs - 1) {
+            int sub = Integer.numberOfTrailingZeros(subs);
+            for (int empty = FULL & ~(this.oCells[sub] | this.xCells[sub]); empty != 0; empty &= empty - 1) {
+                locations[count++] = sub * SUB_BOARDS + Integer.numberOfTrailingZeros(empty);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Play a piece onto the board, checking to make sure that it is a legal move first.
+     * @param location the location (sub*9+cell, 0 to 80)
+     * @param piece the piece to place, either 'X' or 'O'
+     * @return true if the move was legal and the play was successful, false otherwise
+     */
+    public boolean playPiece(int location, char piece) {
+        if (piece != 'X' && piece != 'O') { throw new IllegalArgumentException("piece must be 'X' or 'O'"); }
+        if (!isLegalMove(location)) { return false; }
+        int sub = location / SUB_BOARDS, cell = location % SUB_BOARDS;
+        if (piece == 'O') {
+            this.oCells[sub] |= 1 << cell;
+            this.codes[sub] += POW3[cell];
+        } else {
+            this.xCells[sub] |= 1 << cell;
+            this.codes[sub] += 2 * POW3[cell];
+        }
+        this.moves[this.moveCount] = location;
+        this.actives[this.moveCount++] = this.active;
+        updateSubBoard(sub);
+        if (HAS_LINE[this.oWon]) this.status = Board.Status.O_WON;
+        else if (HAS_LINE[this.xWon]) this.status = Board.Status.X_WON;
+        else if (this.decided == FULL) this.status = Board.Status.TIED;
+        this.active = (this.decided & (1 << cell)) != 0 ? ANY_SUB_BOARD : cell;
+        return true;
+    }
+
+    /**
+     * Play a piece onto a sub-board, checking to make sure that it is a legal move first.
+     * @param sub the sub-board (0 to 8)
+     * @param cell the location within the sub-board (0 to 8)
+     * @param piece the piece to place, either 'X' or 'O'
+     * @return true if the move was legal and the play was successful, false otherwise
+     */
+    public boolean playPiece(int sub, int cell, char piece) {
+        checkIndex(sub, cell);
+        return playPiece(sub * SUB_BOARDS + cell, piece);
+    }
+
+    /**
+     * Takes back the last piece played, including whatever it decided.
+     * @return the location of the piece taken back
+     */
+    public int undo() {
+        if (this.moveCount == 0) { throw new IllegalStateException("no moves to undo"); }
+        int location = this.moves[--this.moveCount], sub = location / SUB_BOARDS, cell = location % SUB_BOARDS;
+        if ((this.oCells[sub] & (1 << cell)) != 0) {
+            this.oCells[sub] &= ~(1 << cell);
+            this.codes[sub] -= POW3[cell];
+        } else {
+            this.xCells[sub] &= ~(1 << cell);
+            this.codes[sub] -= 2 * POW3[cell];
+        }
+        updateSubBoard(sub);
+        this.active = this.actives[this.moveCount];
+        this.status = Board.Status.IN_PROGRESS; // a piece can only be played when the game is in progress
+        return location;
+    }
+
+    /**
+     * Updates the cached result of a sub-board from its code.
+     * @param sub the sub-board that changed
+     */
+    private void updateSubBoard(int sub) {
+        int bit = 1 << sub;
+        this.oWon &= ~bit;
+        this.xWon &= ~bit;
+        this.decided &= ~bit;
+        int status = STATUS[this.codes[sub]];
+        if (status == Board.Status.O_WON.ordinal()) this.oWon |= bit;
+        else if (status == Board.Status.X_WON.ordinal()) this.xWon |= bit;
+        if (status != Board.Status.IN_PROGRESS.ordinal()) this.decided |= bit;
+    }
+
+    /**
+     * Makes sure a sub-board and a location within it are on the board.
+     * @param sub the sub-board
+     * @param cell the location within the sub-board
+     */
+    private static void checkIndex(int sub, int cell) {
+        if (sub < 0 || sub >= SUB_BOARDS || cell < 0 || cell >= SUB_BOARDS) {
+            throw new IndexOutOfBoundsException("location (" + sub + ", " + cell + ") is not on the board");
+        }
+    }
+
+    /**
+     * @return the current state of the game on this board
+     */
+    public Board.Status getStatus() { return this.status; }
+
+    /**
+     * @return the number of pieces that have been played on the board
+     */
+    public int getMoveCount() { return this.moveCount; }
+
+    /**
+     * @return the location of the last piece played, or AI.NO_MOVE if nothing has been played
+     */
+    public int getLastMove() { return this.moveCount == 0 ? AI.NO_MOVE : this.moves[this.moveCount - 1]; }
+
+    /**
+     * @param piece the piece to check for a win with
+     * @return true if the player with the given piece has won, false otherwise
+     */
+    public boolean hasWon(char piece) {
+        return this.status == (piece == 'X' ? Board.Status.X_WON : Board.Status.O_WON);
+    }
+
+    /**
+     * @return true if the game has ended in a tie
+     */
+    public boolean hasTied() { return this.status == Board.Status.TIED; }
+
+    /**
+     * @return true if the game is over, either won by a player or tied
+     */
+    public boolean isGameOver() { return this.status != Board.Status.IN_PROGRESS; }
+
+    /**
+     * Gets the locations of a piece in a sub-board.
+     * @param sub the sub-board (0 to 8)
+     * @param piece 'X' or 'O'
+     * @return the mask of the locations within the sub-board that the piece occupies
+     */
+    int cells(int sub, char piece) { return piece == 'X' ? this.xCells[sub] : this.oCells[sub]; }
+
+    /**
+     * Finds the empty locations of a sub-board where a piece would win the sub-board.
+     * @param sub the sub-board (0 to 8)
+     * @param piece 'X' or 'O'
+     * @return the mask of the locations within the sub-board, 0 if the sub-board is decided
+     */
+    int winningCells(int sub, char piece) {
+        if ((this.decided & (1 << sub)) != 0) { return 0; }
+        int o = this.oCells[sub], x = this.xCells[sub];
+        return WINNING_CELLS[piece == 'X' ? x : o] & ~(o | x);
+    }
+
+    /**
+     * @param sub the sub-board (0 to 8)
+     * @return the base-3 code of the sub-board, each location being 0 for empty, 1 for O, or 2 for X
+     */
+    int code(int sub) { return this.codes[sub]; }
+
+    /**
+     * @param piece 'X' or 'O'
+     * @return the mask of the sub-boards won by the piece
+     */
+    int wonSubBoards(char piece) { return piece == 'X' ? this.xWon : this.oWon; }
+
+    /**
+     * @return the mask of the sub-boards that are won or full
+     */
+    int decidedSubBoards() { return this.decided; }
+
+
+    ////////// General Object Methods //////////
+
+    @NonNull
+    @Override
+    protected Object clone() { return new UltimateBoard(this); }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int r = 0; r < 9; r++) {
+            if (r > 0 && r % 3 == 0) sb.append("---+---+---\n");
+            for (int c = 0; c < 9; c++) {
+                if (c > 0 && c % 3 == 0) sb.append('|');
+                sb.append(getPiece(r / 3 * 3 + c / 3, r % 3 * 3 + c % 3));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        UltimateBoard board = (UltimateBoard) o;
+        return this.active == board.active && Arrays.equals(this.oCells, board.oCells) &&
+                Arrays.equals(this.xCells, board.xCells);
+    }
+
+    @Override
+    public int hashCode() { return 31 * (31 * Arrays.hashCode(this.oCells) + Arrays.hashCode(this.xCells)) + this.active; }
+}
@@ -0,0 +1,205 @@
+package edu.moravian.csci299.tictactoe;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A match of Ultimate Tic-Tac-Toe between a human and an UltimateAI made up of several rounds. This
+ * is the Ultimate counterpart of Match, and like it is kept free of anything Android. It is not
+ * thread-safe.
+ */
+public class UltimateMatch {
+    /** The AI being used to play against the human */
+    private UltimateAI ai = new UltimateAI();
+    /** The current board for the match, replaced for each new round */
+    private UltimateBoard board;
+    /** The pieces used by the human and AI players */
+    private final char[] pieces = {'?', '?'};
+    /** The number of wins by the human and AI players */
+    private final int[] wins = {0, 0};
+    /** The number of ties between the human and AI players */
+    private int ties = 0;
+    /** Chooses who goes first in each round */
+    private final SplitRandom random = new SplitRandom();
+    /** The most time the AI may think about each move in milliseconds, 0 for no limit */
+    private long thinkTimeMillis;
+
+    /**
+     * @return true if the match has been started at all (i.e. startNewRound() has ever been called)
+     */
+    public boolean hasStarted() {
+        return board != null;
+    }
+
+    /**
+     * Set the AI for this match, replacing the default one that searches UltimateAI.DEFAULT_DEPTH
+     * moves ahead.
+     * @param ai the AI to use for this match.
+     */
+    public void setAI(UltimateAI ai) {
+        this.ai = ai;
+    }
+
+    /**
+     * Limits how long the AI may think about each move, after which it plays the best move it has
+     * found.
+     * @param millis the most time for each move in milliseconds, or 0 for no limit
+     */
+    public void setThinkTime(long millis) {
+        if (millis < 0) { throw new IllegalArgumentException("negative think time"); }
+        this.thinkTimeMillis = millis;
+    }
+
+    /**
+     * Seeds the random choice of who goes first in each round so that the same sequence of rounds
+     * can be played again.
+     * @param seed the seed for the random number generator
+     */
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+    }
+
+    /**
+     * Start a new round of the match. This is only allowed right after the match is created or the
+     * previous round has ended. At any other point this will raise an exception.
+     *
+     * This creates a new board for the round and randomly assigns the human and AI to the X and O
+     * pieces. If the AI is selected to go first (it is the 'O' piece), it takes its first turn.
+     */
+    public void startNewRound() {
+        if (board != null && !board.isGameOver()) {
+            throw new IllegalStateException("wrong time to start a round");
+        }
+        board = new UltimateBoard();
+        if (random.nextInt(2) == 0) {
+            pieces[0] = 'X';
+            pieces[1] = 'O';
+            playAI(); // AI (piece O) goes first
+        } else {
+            pieces[0] = 'O';
+            pieces[1] = 'X';
+        }
+    }
+
+    /**
+     * Gets the human player's piece, either 'O' or 'X'. Must be called after startNewRound().
+     * @return either 'O' or 'X' for the human player's piece
+     */
+    public char getPlayerPiece() { return pieces[0]; }
+
+    /**
+     * @return the current game board, which is null before the first round
+     */
+    public UltimateBoard getBoard() { return board; }
+
+    /**
+     * Has the human play in the given location of the given sub-board. This returns false if the
+     * move was illegal (the location is taken or the sub-board is not the one that must be played
+     * in). If the player does not end the game then the AI also takes its turn. If this method is
+     * called before the first round has started or when the game is over it raises an exception.
+     *
+     * @param sub the sub-board to play in, from 0 to 8
+     * @param cell the location within the sub-board, from 0 to 8
+     * @return true the player's piece was successfully played, false otherwise
+     */
+    public boolean playPiece(int sub, int cell) {
+        if (board == null || board.isGameOver()) {
+            throw new IllegalStateException("wrong time to play a piece");
+        }
+        if (!board.playPiece(sub, cell, pieces[0])) { return false; }
+        if (!checkGameOver()) { playAI(); }
+        return true;
+    }
+
+    /**
+     * Has the AI take its turn within the think time.
+     */
+    private void playAI() {
+        Deadline deadline = thinkTimeMillis > 0 ? Deadline.after(thinkTimeMillis) : Deadline.none();
+        if (!board.playPiece(ai.selectMove(board, pieces[1], deadline).getMove(), pieces[1])) {
+            throw new IllegalStateException("AI did not play a piece");
+        }
+        checkGameOver();
+    }
+
+    /**
+     * @return true if the game is over and the human player has won
+     */
+    public boolean hasPlayerWon() {
+        return board.hasWon(pieces[0]);
+    }
+
+    /**
+     * @return true if the game is over and the AI player has won
+     */
+    public boolean hasAIWon() {
+        return board.hasWon(pieces[1]);
+    }
+
+    /**
+     * @return true if the game is over and it is a tie
+     */
+    public boolean hasTied() {
+        return board.hasTied();
+    }
+
+    /**
+     * Checks if the game has ended and updates the counters appropriately.
+     * @return true if the game has ended, false otherwise
+     */
+    private boolean checkGameOver() {
+        if (!board.isGameOver()) { return false; }
+        if (board.hasTied()) { ties++; }
+        else { wins[hasPlayerWon() ? 0 : 1]++; }
+        return true;
+    }
+
+    /**
+     * @return the number of rounds the human player has won
+     */
+    public int getPlayerWins() { return wins[0]; }
+
+    /**
+     * @return the number of rounds the AI player has won
+     */
+    public int getAIWins() { return wins[1]; }
+
+    /**
+     * @return the number of rounds that have been tied
+     */
+    public int getTies() { return ties; }
+
+
+    ////////// General Object Methods //////////
+
+    @Override
+    public String toString() {
+        return "UltimateMatch{" +
+                "ai=" + ai +
+                ", board=" + board +
+                ", pieces=" + Arrays.toString(pieces) +
+                ", wins=" + Arrays.toString(wins) +
+                ", ties=" + ties +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        UltimateMatch match = (UltimateMatch) o;
+        return ties == match.ties &&
+                Objects.equals(ai, match.ai) &&
+                Objects.equals(board, match.board) &&
+                Arrays.equals(pieces, match.pieces) &&
+                Arrays.equals(wins, match.wins);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(ai, board, ties);
+        result = 31 * result + Arrays.hashCode(pieces);
+        result = 31 * result + Arrays.hashCode(wins);
+        return result;
+    }
+}
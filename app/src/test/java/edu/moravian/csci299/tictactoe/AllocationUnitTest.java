@@ -0,0 +1,60 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static edu.moravian.csci299.tictactoe.UnitTestUtilities.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that choosing a move doesn't allocate any memory once everything is warmed up. This uses
+ * the HotSpot specific thread allocation counter so it only runs on a desktop JVM.
+ */
+public class AllocationUnitTest {
+    /** Boards to choose moves on: opening, midgame, and endgame positions */
+    private static final String[] BOARDS = { "   |   |   ", "O  |   |   ", "O  | X |  O", "OX | O |XOX", "OXO|XXO|O  " };
+
+    /**
+     * Check that selectMove() allocates nothing for every AI in steady state.
+     */
+    @Test
+    public void selectMove() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        AI[] ais = { new EasyAI(), new MediumAI(), new HardAI(), new PerfectAI() };
+        Board[] boards = new Board[BOARDS.length];
+        char[] pieces = new char[BOARDS.length];
+        for (int i = 0; i < BOARDS.length; i++) {
+            boards[i] = createBoardFromString(BOARDS[i]);
+            pieces[i] = boards[i].countPieces('O') > boards[i].countPieces('X') ? 'X' : 'O';
+        }
+        for (AI ai : ais) {
+            long moves = run(ai, boards, pieces, 20000); // warm up
+            // the JVM may allocate once in a while on this thread (such as when recompiling), so the
+            // least of a few runs is checked, which is still more than 0 if every call allocates
+            long allocated = Long.MAX_VALUE;
+            for (int round = 0; round < 3 && allocated > 0; round++) {
+                long before = threads.getThreadAllocatedBytes(thread);
+                moves += run(ai, boards, pieces, 20000);
+                long after = threads.getThreadAllocatedBytes(thread);
+                long overhead = threads.getThreadAllocatedBytes(thread) - after;
+                allocated = Math.min(allocated, Math.max(0, after - before - overhead));
+            }
+            assertTrue(moves > 0);
+            assertEquals(ai.getClass().getSimpleName() + " allocated memory", 0, allocated);
+        }
+    }
+
+    /**
+     * Has the AI choose moves on every board many times.
+     * @return the sum of the moves, so that the calls aren't optimized away
+     */
+    private static long run(AI ai, Board[] boards, char[] pieces, int times) {
+        long sum = 0;
+        for (int n = 0; n < times; n++) {
+            for (int i = 0; i < boards.length; i++) { sum += ai.selectMove(boards[i], pieces[i]); }
+        }
+        return sum;
+    }
+}
@@ -196,4 +196,299 @@ public class BoardUnitTest {
         assertGameOver("OO |XXX|O  ", true, false, false); // row
         assertGameOver("   |XXO|OOO", false, true, false); // row
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests getStatus() and getMoveCount() as a game is played out and when copying a board.
+     */
+    @Test
+    public void status() {
+        Board board = new Board();
+        assertEquals(Board.Status.IN_PROGRESS, board.getStatus());
+        assertEquals(0, board.getMoveCount());
+        assertTrue(board.playPiece(0, 0, 'O'));
+        assertTrue(board.playPiece(1, 1, 'X'));
+        assertFalse(board.playPiece(1, 1, 'O'));
+        assertEquals(Board.Status.IN_PROGRESS, board.getStatus());
+        assertEquals(2, board.getMoveCount());
+        assertTrue(board.playPiece(0, 2, 'O'));
+        assertTrue(board.playPiece(2, 0, 'X'));
+        assertTrue(board.playPiece(0, 1, 'O'));
+        assertEquals(Board.Status.O_WON, board.getStatus());
+        assertEquals(5, board.getMoveCount());
+        assertEquals(Board.Status.O_WON, new Board(board).getStatus());
+
+        assertEquals(Board.Status.X_WON, createBoardFromString("OOX|OX |X  ").getStatus());
+        assertEquals(Board.Status.IN_PROGRESS, createBoardFromString("OXO|OXO|XO ").getStatus());
+        board = createBoardFromString("OXO|OXO|XOX");
+        assertEquals(Board.Status.TIED, board.getStatus());
+        assertEquals(9, board.getMoveCount());
+    }
+
+    /**
+     * Tests boards of other sizes and numbers in a row, including 15x15 with 5 in a row.
+     */
+    @Test
+    public void largerBoards() {
+        Board board = new Board(15, 5);
+        assertEquals(15, board.getSize());
+        assertEquals(5, board.getWinLength());
+        assertPieceCounts(board, 0, 0, 225);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(board.playPiece(7, 3 + i, 'O'));
+            assertTrue(board.playPiece(14, 14 - i, 'X'));
+        }
+        assertGameOver(board, false, false, false);
+        assertTrue(board.playPiece(7, 7, 'O')); // 5 in a row, last piece on the end
+        assertGameOver(board, false, true, false);
+        assertFalse(board.playPiece(0, 0, 'X'));
+        assertPieceCounts(board, 4, 5, 216);
+
+        // diagonals, with the last piece in the middle of the line
+        board = new Board(15, 5);
+        for (int i : new int[] {0, 1, 3, 4}) { assertTrue(board.playPiece(10 + i, 10 + i, 'X')); }
+        assertGameOver(board, false, false, false);
+        assertTrue(board.playPiece(12, 12, 'X'));
+        assertGameOver(board, true, false, false);
+        board = new Board(15, 5);
+        for (int i : new int[] {0, 1, 2, 4}) { assertTrue(board.playPiece(i, 14 - i, 'O')); }
+        assertTrue(board.playPiece(3, 11, 'O'));
+        assertGameOver(board, false, true, false);
+
+        // a column on a 4x4 board with 3 in a row, and a tie on a 2x2 board with 2 in a row
+        assertGameOver(new Board(4, 3), false, false, false);
+        board = new Board(4, 3);
+        assertTrue(board.playPiece(1, 3, 'X'));
+        assertTrue(board.playPiece(3, 3, 'X'));
+        assertGameOver(board, false, false, false);
+        assertTrue(board.playPiece(2, 3, 'X'));
+        assertGameOver(board, true, false, false);
+        board = new Board(1, 1);
+        assertTrue(board.playPiece(0, 0, 'O'));
+        assertGameOver(board, false, true, false);
+
+        try {
+            new Board(3, 4);
+            fail("win length longer than the board");
+        } catch (IllegalArgumentException e) { /* expected */ }
+        Board.checkDimensions(15, 5);
+        for (int[] dimensions : new int[][] {{3, 4}, {0, 0}, {3, 0}}) {
+            try {
+                Board.checkDimensions(dimensions[0], dimensions[1]);
+                fail("invalid board size " + dimensions[0] + " with " + dimensions[1] + " in a row");
+            } catch (IllegalArgumentException e) { /* expected */ }
+        }
+    }
+
+    /**
+     * Tests getEmptyLocation() always gives exactly the empty locations as pieces are played.
+     */
+    @Test
+    public void emptyLocations() {
+        Board board = new Board(4, 4);
+        int[] plays = {5, 0, 15, 10, 3, 12, 6, 9};
+        for (int n = 0; n <= plays.length; n++) {
+            boolean[] seen = new boolean[16];
+            for (int i = 0; i < board.countPieces(' '); i++) {
+                int location = board.getEmptyLocation(i);
+                assertTrue(board.isLocationEmpty(location));
+                assertFalse(seen[location]);
+                seen[location] = true;
+            }
+            if (n < plays.length) { assertTrue(board.playPiece(plays[n], n % 2 == 0 ? 'O' : 'X')); }
+        }
+        assertEquals(8, board.countPieces(' '));
+        try {
+            board.getEmptyLocation(8);
+            fail("only 8 empty locations");
+        } catch (IndexOutOfBoundsException e) { /* expected */ }
+    }
+
+    /**
+     * Tests undo(), getMove(), and getLastMove(), making sure undo() puts the board back exactly.
+     */
+    @Test
+    public void undo() {
+        Board board = new Board();
+        assertEquals(-1, board.getLastMove());
+        assertTrue(board.playPiece(4, 'O'));
+        assertTrue(board.playPiece(0, 'X'));
+        assertTrue(board.playPiece(2, 'O'));
+        assertEquals(2, board.getLastMove());
+        assertEquals(4, board.getMove(0));
+        assertEquals(0, board.getMove(1));
+        Board before = new Board(board);
+        assertTrue(board.playPiece(1, 'X'));
+        assertTrue(board.playPiece(6, 'O')); // wins the game for O
+        assertGameOver(board, false, true, false);
+        assertEquals(6, board.undo());
+        assertEquals(1, board.undo());
+        assertEquals(before, board);
+        assertGameOver(board, false, false, false);
+        assertPieceCounts(board, 1, 2);
+        assertEquals(2, board.getLastMove());
+        assertEquals(2, board.undo());
+        assertEquals(0, board.undo());
+        assertEquals(4, board.undo());
+        assertEquals(new Board(), board);
+        try {
+            board.undo();
+            fail("nothing to undo");
+        } catch (IllegalStateException e) { /* expected */ }
+
+        // the empty locations are put back in the same order, so random moves are the same too
+        SplitRandom random = new SplitRandom(10);
+        board = new Board(5, 4);
+        for (int i = 0; i < 6; i++) { board.playPiece(board.getEmptyLocation(random.nextInt(board.countPieces(' '))), i % 2 == 0 ? 'O' : 'X'); }
+        int[] empties = new int[board.countPieces(' ')];
+        for (int n = 0; n < empties.length; n++) { empties[n] = board.getEmptyLocation(n); }
+        for (int i = 0; i < 5; i++) { board.playPiece(board.getEmptyLocation(random.nextInt(board.countPieces(' '))), i % 2 == 0 ? 'O' : 'X'); }
+        for (int i = 0; i < 5; i++) { board.undo(); }
+        for (int n = 0; n < empties.length; n++) { assertEquals(empties[n], board.getEmptyLocation(n)); }
+    }
+
+    /**
+     * Tests undo() by counting every position in the entire game tree both by playing and taking
+     * back pieces and by copying the board, which must agree.
+     */
+    @Test
+    public void undo_gameTree() {
+        assertEquals(549946, countWithUndo(new Board(), 'O'));
+        assertEquals(549946, countWithCopy(new Board(), 'O'));
+    }
+
+    private static long countWithUndo(Board board, char piece) {
+        long count = 1;
+        for (int i = 0; i < 9; i++) {
+            if (board.playPiece(i, piece)) {
+                count += countWithUndo(board, piece == 'O' ? 'X' : 'O');
+                assertEquals(i, board.undo());
+            }
+        }
+        return count;
+    }
+
+    private static long countWithCopy(Board board, char piece) {
+        long count = 1;
+        for (int i = 0; i < 9; i++) {
+            Board child = new Board(board);
+            if (child.playPiece(i, piece)) { count += countWithCopy(child, piece == 'O' ? 'X' : 'O'); }
+        }
+        return count;
+    }
+
+    /**
+     * Tests getZobristKey() is the same for the same position however it was reached, different for
+     * different positions, and kept up to date by copying and undo().
+     */
+    @Test
+    public void zobristKey() {
+        Board board = createBoardFromString("O X| O |  X");
+        Board other = new Board();
+        other.playPiece(1, 1, 'O');
+        other.playPiece(2, 2, 'X');
+        other.playPiece(0, 0, 'O');
+        other.playPiece(0, 2, 'X');
+        assertEquals(board.getZobristKey(), other.getZobristKey());
+        assertEquals(board.hashCode(), other.hashCode());
+        assertEquals(board.getZobristKey(), new Board(board).getZobristKey());
+
+        long before = board.getZobristKey();
+        board.playPiece(2, 0, 'O');
+        assertNotEquals(before, board.getZobristKey());
+        board.undo();
+        assertEquals(before, board.getZobristKey());
+
+        // the same pieces in different places, with the other piece, or on a differently sized board
+        assertNotEquals(board.getZobristKey(), createBoardFromString("X O| O |X  ").getZobristKey());
+        assertNotEquals(createBoardFromString("O  ").getZobristKey(), createBoardFromString("X  ").getZobristKey());
+        assertNotEquals(new Board().getZobristKey(), new Board(4, 3).getZobristKey());
+        assertNotEquals(new Board(4, 3).getZobristKey(), new Board(4, 4).getZobristKey());
+        assertNotEquals(new Board(), new Board(4, 3));
+    }
+
+    /**
+     * Tests the symmetry methods: every rotation and reflection of a position has the same
+     * canonical key, the canonical transform really gives the canonical board, and transforms can be
+     * undone.
+     */
+    @Test
+    public void symmetry() {
+        for (int size : new int[] {3, 4}) {
+            Board board = new Board(size, 3);
+            board.playPiece(1, 'O');
+            board.playPiece(size + 2, 'X');
+            board.playPiece(size * size - 1, 'O');
+            Board different = new Board(size, 3);
+            different.playPiece(1, 'X');
+            different.playPiece(size + 2, 'O');
+            assertNotEquals(board.getCanonicalKey(), different.getCanonicalKey());
+
+            for (int t = 0; t < Board.TRANSFORMS; t++) {
+                for (int i = 0; i < size * size; i++) {
+                    int moved = Board.transformLocation(i, t, size);
+                    assertEquals(i, Board.transformLocation(moved, Board.inverseTransform(t), size));
+                }
+
+                // build the transformed board and check it is equivalent
+                Board transformed = new Board(size, 3);
+                for (int n = 0; n < board.getMoveCount(); n++) {
+                    int location = board.getMove(n);
+                    transformed.playPiece(Board.transformLocation(location, t, size), board.getPiece(location));
+                }
+                assertEquals(transformed.getZobristKey(), board.getTransformedKey(t));
+                assertEquals(board.getCanonicalKey(), transformed.getCanonicalKey());
+
+                // the canonical transform gives the board with the canonical key
+                int canonical = transformed.getCanonicalTransform();
+                Board result = new Board(size, 3);
+                for (int n = 0; n < transformed.getMoveCount(); n++) {
+                    int location = transformed.getMove(n);
+                    result.playPiece(Board.transformLocation(location, canonical, size), transformed.getPiece(location));
+                }
+                assertEquals(board.getCanonicalKey(), result.getZobristKey());
+            }
+        }
+
+        // rotating the top-left corner clockwise goes to the top-right, reflecting it goes to the
+        // top-right as well
+        assertEquals(2, Board.transformLocation(0, 1, 3));
+        assertEquals(8, Board.transformLocation(0, 2, 3));
+        assertEquals(6, Board.transformLocation(0, 3, 3));
+        assertEquals(2, Board.transformLocation(0, 4, 3));
+        assertEquals(4, Board.transformLocation(4, 7, 3));
+    }
+
+    /**
+     * Tests winningLocations() against checking every empty location with completesLine(), on
+     * random positions of every board size and win length that fits in a mask, and that a fork
+     * shows up as two locations.
+     */
+    @Test
+    public void winningLocations() {
+        SplitRandom random = new SplitRandom(3);
+        for (int size = 1; size <= 8; size++) {
+            for (int winLength = 1; winLength <= size; winLength++) {
+                for (int game = 0; game < 200; game++) {
+                    Board board = new Board(size, winLength);
+                    int moves = random.nextInt(size * size + 1);
+                    for (int m = 0; m < moves; m++) {
+                        int location = board.getEmptyLocation(random.nextInt(board.countPieces(' ')));
+                        board.playPiece(location, m % 2 == 0 ? 'O' : 'X');
+                    }
+                    for (char piece : new char[] {'X', 'O'}) {
+                        long expected = 0;
+                        for (int i = 0; i < size * size; i++) {
+                            if (board.isLocationEmpty(i) && board.completesLine(i / size, i % size, piece)) { expected |= 1L << i; }
+                        }
+                        assertEquals(expected, board.winningLocations(piece));
+                    }
+                }
+            }
+        }
+
+        // O has a fork: both the left edge and the center win
+        Board board = createBoardFromString("OXO|   |O X");
+        assertEquals(1L << 3 | 1L << 4, board.winningLocations('O'));
+        assertEquals(0, board.winningLocations('X'));
+    }
+}
@@ -3,6 +3,7 @@ package edu.moravian.csci299.tictactoe;
 import org.junit.Test;
 
 import static edu.moravian.csci299.tictactoe.UnitTestUtilities.*;
+import static org.junit.Assert.*;
 
 /**
  * Local unit tests for easy AI. Depends on the Board class so make sure that is working first.
@@ -18,4 +19,21 @@ public class EasyAIUnitTest {
             board = assertAIPlaysRandomly(board, ai, piece);
         }
     }
+
+    /**
+     * Check that seeding the AI makes it play the same moves every time.
+     */
+    @Test
+    public void play_seeded() {
+        EasyAI first = new EasyAI(), second = new EasyAI();
+        first.setSeed(42);
+        second.setSeed(42);
+        Board board1 = new Board(), board2 = new Board();
+        for (char piece = 'O'; !board1.isGameOver(); piece = piece == 'O' ? 'X' : 'O') {
+            first.play(board1, piece);
+            second.play(board2, piece);
+            assertEquals(board1, board2);
+        }
+        assertTrue(board2.isGameOver());
+    }
 }
@@ -101,5 +101,10 @@ public class GameUnitTest {
         public void play(Board board, char piece) {
             assertTrue(board.playPiece(row_next, col_next, piece));
         }
+
+        @Override
+        public int selectMove(Board board, char piece) {
+            return row_next * board.getSize() + col_next;
+        }
     }
 }
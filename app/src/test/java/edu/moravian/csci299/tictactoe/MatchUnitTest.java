@@ -0,0 +1,48 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for Match that aren't covered through Game, mostly taking the AI's turn
+ * separately from the human's (like Game does in the background). Depends on the Board class so
+ * make sure that is working first.
+ */
+public class MatchUnitTest {
+    /**
+     * Check taking the AI's turn separately, on a copy of the board.
+     */
+    @Test
+    public void aiTurn() {
+        Match match = new Match();
+        match.setAI(new PerfectAI());
+        assertFalse(match.isAITurn());
+        for (int round = 0; round < 6; round++) {
+            match.startNewRound(false);
+            while (!match.getBoard().isGameOver()) {
+                if (match.isAITurn()) {
+                    try {
+                        match.playPlayerPiece(0, 0);
+                        fail("played during the AI's turn");
+                    } catch (IllegalStateException e) { /* expected */ }
+                    Board copy = new Board(match.getBoard());
+                    int location = match.selectAIMove(copy);
+                    assertEquals(copy, match.getBoard()); // the copy isn't changed
+                    match.playAIMove(location);
+                    assertEquals(match.getPlayerPiece() == 'O' ? 'X' : 'O', match.getBoard().getPiece(location));
+                } else {
+                    try {
+                        match.playAIMove(match.getBoard().getEmptyLocation(0));
+                        fail("AI played during the human's turn");
+                    } catch (IllegalStateException e) { /* expected */ }
+                    int location = match.getBoard().getEmptyLocation(0);
+                    assertTrue(match.playPlayerPiece(location / 3, location % 3));
+                }
+            }
+            assertFalse(match.isAITurn());
+            assertFalse(match.hasPlayerWon());
+        }
+        assertEquals(6, match.getAIWins() + match.getTies());
+    }
+}
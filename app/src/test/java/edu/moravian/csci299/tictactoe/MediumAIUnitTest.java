@@ -69,4 +69,22 @@ public class MediumAIUnitTest {
         // Check on an board with 8 pieces
         assertAIPlaysRandomly("OXO| OX|XOX", ai, 'O');
     }
-}
\ No newline at end of file
+
+    /**
+     * Check that the medium AI finds wins and blocks on a larger board with a longer line.
+     */
+    @Test
+    public void play_largerBoard() {
+        MediumAI ai = new MediumAI();
+        Board board = new Board(5, 4);
+        board.playPiece(1, 1, 'O');
+        board.playPiece(0, 4, 'X');
+        board.playPiece(2, 2, 'O');
+        board.playPiece(1, 4, 'X');
+        board.playPiece(3, 3, 'O');
+        assertAIPlay(new Board(board), ai, 'X', 0, 0); // block the diagonal
+        board.playPiece(2, 4, 'X');
+        board.playPiece(4, 0, 'O');
+        assertAIPlay(board, ai, 'X', 3, 4); // win the column instead of blocking
+    }
+}
@@ -0,0 +1,99 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the metrics and the latency histogram. Depends on Match and Simulation so
+ * make sure those are working first.
+ */
+public class MetricsUnitTest {
+    /**
+     * Check the buckets and percentiles of the latency histogram.
+     */
+    @Test
+    public void histogram() {
+        for (long nanos : new long[] { 0, 1, 7, 8, 15, 16, 100, 1000, 123456789, Long.MAX_VALUE }) {
+            int bucket = LatencyHistogram.bucket(nanos);
+            assertTrue(nanos + "", LatencyHistogram.lowest(bucket) <= nanos);
+            assertTrue(nanos + "", nanos == Long.MAX_VALUE || LatencyHistogram.lowest(bucket + 1) > nanos);
+        }
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(0.5));
+        for (int i = 1; i <= 1000; i++) { histogram.record(i * 1000L); }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500500.0, histogram.getMean(), 1e-9);
+        assertEquals(1000000, histogram.getMax());
+        assertEquals(500000, histogram.getPercentile(0.5), 500000 / 8);
+        assertEquals(990000, histogram.getPercentile(0.99), 990000 / 8);
+        assertEquals(1000000, histogram.getPercentile(1));
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    /**
+     * Check that matches record every AI move and the outcome of every round.
+     */
+    @Test
+    public void match() {
+        Metrics metrics = new Metrics();
+        Match match = new Match(metrics);
+        HardAI ai = new HardAI();
+        match.setAI(ai);
+        Metrics.AIStats stats = metrics.forAI(ai);
+        for (int round = 0; round < 10; round++) {
+            match.startNewRound();
+            while (!match.getBoard().isGameOver()) {
+                int location = match.getBoard().getEmptyLocation(0);
+                match.playPiece(location / 3, location % 3);
+            }
+        }
+        assertEquals(10, stats.getWins() + stats.getLosses() + stats.getTies());
+        assertEquals(match.getAIWins(), stats.getWins());
+        assertTrue(stats.getMoves() >= 10);
+        assertEquals(stats.getMoves(), stats.getLatencies().getCount());
+        assertEquals("HardAI", stats.getName());
+    }
+
+    /**
+     * Check that simulations add all of their moves and outcomes and time some of the moves.
+     */
+    @Test
+    public void simulation() {
+        Metrics metrics = new Metrics();
+        Metrics.AIStats medium = metrics.forAI(new MediumAI()), easy = metrics.forAI(new EasyAI());
+        Simulation simulation = new Simulation(MediumAI::new, EasyAI::new, Board.DEFAULT_SIZE, Board.DEFAULT_WIN_LENGTH, ForkJoinPool.commonPool(), metrics);
+        Simulation.Result result = simulation.run(10000, 1);
+        assertEquals(result.getMoves(), medium.getMoves() + easy.getMoves());
+        assertEquals(result.getWins(), medium.getWins());
+        assertEquals(result.getWins(), easy.getLosses());
+        assertEquals(result.getTies(), easy.getTies());
+        long sampled = medium.getLatencies().getCount();
+        assertTrue(sampled > 0 && sampled < result.getMoves() / 20);
+
+        metrics.setEnabled(false);
+        long moves = medium.getMoves();
+        simulation.run(1000, 1);
+        assertEquals(moves, medium.getMoves());
+    }
+
+    /**
+     * Check exporting the metrics.
+     */
+    @Test
+    public void export() {
+        Metrics metrics = new Metrics();
+        Match match = new Match(metrics);
+        match.setAI(new PerfectAI());
+        match.startNewRound();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        metrics.export(Metrics.printTo(new PrintStream(out)));
+        assertTrue(out.toString(), out.toString().contains("PerfectAI moves="));
+    }
+}
@@ -0,0 +1,113 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.junit.Test;
+
+import static edu.moravian.csci299.tictactoe.UnitTestUtilities.*;
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the Monte Carlo AI. Depends on the Board class and the SolutionTable so make
+ * sure those are working first.
+ */
+public class MonteCarloAIUnitTest {
+    /**
+     * Check that the Monte Carlo AI plays to win and to block.
+     */
+    @Test
+    public void play_winAndBlock() {
+        MonteCarloAI ai = new MonteCarloAI();
+        ai.setSeed(1);
+        assertAIPlay("OO |XX |   ", ai, 'O', 0, 2); // win (instead of block)
+        assertAIPlay("XX | OO|  O", ai, 'X', 0, 2); // win
+        assertAIPlay("XX |O  |O  ", ai, 'O', 0, 2); // block
+        assertAIPlay("O X|   |O  ", ai, 'X', 1, 0); // block
+    }
+
+    /**
+     * Check that on a 3x3 board the Monte Carlo AI converges to the same moves as a perfect player:
+     * every move it chooses must be one of the best moves according to the solution table.
+     */
+    @Test
+    public void selectMove_matchesPerfect() {
+        MonteCarloAI ai = new MonteCarloAI(20000, 0);
+        ai.setSeed(2);
+        SolutionTable table = SolutionTable.getInstance();
+        String[] boards = { "   |   |   ", "O  |   |   ", " O |   |   ", "O  | X |  O", "O  |   | X ", "OX |   |   " };
+        for (String b : boards) {
+            Board board = createBoardFromString(b);
+            char piece = board.countPieces('O') > board.countPieces('X') ? 'X' : 'O';
+            int move = ai.selectMove(board, piece);
+            assertTrue(board.playPiece(move, piece));
+            assertEquals(b, -table.getScore(board, piece == 'O' ? 'X' : 'O'), table.getScore(createBoardFromString(b), piece));
+        }
+    }
+
+    /**
+     * Check that the budget is respected and larger boards can be played.
+     */
+    @Test
+    public void play_budget() {
+        MonteCarloAI ai = new MonteCarloAI(0, 50);
+        Board board = new Board(9, 5);
+        long start = System.nanoTime();
+        ai.play(board, 'O');
+        assertTrue(System.nanoTime() - start < 1000000000L);
+        assertPieceCounts(board, 0, 1, 80);
+
+        try {
+            new MonteCarloAI(0, 0);
+            fail("no budget");
+        } catch (IllegalArgumentException e) { /* expected */ }
+    }
+
+    /**
+     * Check that the tree never grows past its maximum number of nodes, and that arrays grown for a
+     * big tree are shrunk back after the move.
+     */
+    @Test
+    public void selectMove_maxNodes() {
+        Board board = new Board(7, 4);
+        MonteCarloAI ai = new MonteCarloAI(3000, 0, 500);
+        ai.setSeed(3);
+        AI.SearchResult result = ai.selectMove(board, 'O', Deadline.none());
+        assertTrue(result.isComplete());
+        assertTrue(board.isLocationEmpty(result.getMove()));
+        assertTrue(ai.getNodeCount() <= 500);
+        assertTrue(ai.getNodeCount() > 49); // the root's children and then some
+
+        // a tree bigger than the arrays grows them only while it is searched
+        ai = new MonteCarloAI(3000, 0, 3 * MonteCarloAI.INITIAL_NODES);
+        ai.selectMove(board, 'O');
+        assertTrue(ai.getNodeCount() > MonteCarloAI.INITIAL_NODES);
+        assertEquals(MonteCarloAI.INITIAL_NODES, ai.getCapacity());
+
+        // the root's children are always added, even when they don't fit
+        ai = new MonteCarloAI(100, 0, 1);
+        assertTrue(board.isLocationEmpty(ai.selectMove(board, 'O')));
+        assertEquals(50, ai.getNodeCount());
+        try {
+            new MonteCarloAI(100, 0, 0);
+            fail("no nodes");
+        } catch (IllegalArgumentException e) { /* expected */ }
+    }
+
+    /**
+     * Check searching with a deadline, which stops the search before the AI's own budget.
+     */
+    @Test
+    public void selectMove_deadline() {
+        MonteCarloAI ai = new MonteCarloAI(0, 10000);
+        Board board = new Board(7, 4);
+        long start = System.nanoTime();
+        AI.SearchResult result = ai.selectMove(board, 'O', Deadline.after(30));
+        assertTrue(System.nanoTime() - start < 1000000000L);
+        assertFalse(result.isComplete());
+        assertTrue(result.getNodes() > 0);
+        assertTrue(result.getDepth() >= 1);
+        assertTrue(board.isLocationEmpty(result.getMove()));
+
+        result = new MonteCarloAI(500, 0).selectMove(board, 'O', Deadline.none());
+        assertTrue(result.isComplete());
+        assertEquals(500, result.getNodes());
+    }
+}
@@ -0,0 +1,102 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static edu.moravian.csci299.tictactoe.UnitTestUtilities.*;
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the parallel alpha-beta AI.
+ */
+public class ParallelAIUnitTest {
+    /**
+     * Plays random moves on a new board, stopping before the game is over.
+     * @param size the size of the board
+     * @param winLength the number in a row needed to win
+     * @param moves the number of moves to play
+     * @param random chooses the moves
+     * @return the board
+     */
+    private static Board randomBoard(int size, int winLength, int moves, SplitRandom random) {
+        Board board = new Board(size, winLength);
+        char piece = 'O';
+        for (int i = 0; i < moves; i++) {
+            int location;
+            do { location = random.nextInt(size * size); } while (!board.isLocationEmpty(location));
+            board.playPiece(location, piece);
+            if (board.isGameOver()) { board.undo(); continue; }
+            piece = piece == 'O' ? 'X' : 'O';
+        }
+        return board;
+    }
+
+    /**
+     * Checks that the AI wins when it can and blocks when it has to.
+     */
+    @Test
+    public void play_threats() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ParallelAI ai = new ParallelAI(3, pool);
+        assertAIPlay("OO |XX |   ", ai, 'O', 0, 2);
+        assertAIPlay("OO |X  |  X", ai, 'X', 0, 2);
+
+        // on a 6x6 board with 4 in a row, O has three open in the second row and X has to block
+        Board board = new Board(6, 4);
+        board.playPiece(1, 1, 'O');
+        board.playPiece(5, 5, 'X');
+        board.playPiece(1, 2, 'O');
+        board.playPiece(0, 0, 'X');
+        board.playPiece(1, 3, 'O');
+        assertEquals(1L << 6 | 1L << 10, board.winningLocations('O'));
+        int move = ai.selectMove(board, 'X');
+        assertTrue(move == 6 || move == 10);
+        pool.shutdown();
+    }
+
+    /**
+     * Checks that searching in parallel chooses the same move with the same score as searching on a
+     * single thread, on many positions of different board sizes.
+     */
+    @Test
+    public void selectMove_sameAsSingleThread() {
+        ForkJoinPool single = new ForkJoinPool(1), parallel = new ForkJoinPool(4);
+        SplitRandom random = new SplitRandom(24);
+        int[][] variants = {{3, 3, 9}, {4, 3, 4}, {5, 4, 4}, {6, 4, 3}};
+        for (int[] variant : variants) {
+            ParallelAI one = new ParallelAI(variant[2], single), many = new ParallelAI(variant[2], parallel);
+            for (int i = 0; i < 12; i++) {
+                Board board = randomBoard(variant[0], variant[1], random.nextInt(variant[0] * 2), random);
+                char piece = board.countPieces('O') > board.countPieces('X') ? 'X' : 'O';
+                Board copy = new Board(board);
+                int move = one.selectMove(board, piece);
+                assertEquals(copy, board); // the board isn't changed
+                assertEquals(board.toString(), move, many.selectMove(board, piece));
+                assertEquals(board.toString(), one.getLastScore(), many.getLastScore());
+            }
+        }
+        single.shutdown();
+        parallel.shutdown();
+    }
+
+    /**
+     * Checks the search results and that a finished game has no move.
+     */
+    @Test
+    public void selectMove_result() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        ParallelAI ai = new ParallelAI(4, pool);
+        AI.SearchResult result = ai.selectMove(new Board(5, 4), 'O', Deadline.none());
+        assertEquals(12, result.getMove()); // nothing is better than the center
+        assertEquals(4, result.getDepth());
+        assertTrue(result.getNodes() > 25);
+        assertTrue(result.isComplete());
+        assertEquals(AI.NO_MOVE, ai.selectMove(createBoardFromString("OOO|XX |   "), 'X'));
+        pool.shutdown();
+        try {
+            new ParallelAI(0, pool);
+            fail("depth 0 should not be allowed");
+        } catch (IllegalArgumentException ex) { /* expected */ }
+    }
+}
@@ -0,0 +1,131 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.junit.Test;
+
+import static edu.moravian.csci299.tictactoe.UnitTestUtilities.*;
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the perfect AI. Depends on the Board class so make sure that is working
+ * first.
+ */
+public class PerfectAIUnitTest {
+    /**
+     * Check that the perfect AI plays to win (even if they could block).
+     */
+    @Test
+    public void play_win() {
+        PerfectAI ai = new PerfectAI();
+
+        //// As first player O ////
+        assertAIPlay("OO |XX |   ", ai, 'O', 0, 2); // row  (also a block to be performed that should be ignored)
+        assertAIPlay("XOX| O |   ", ai, 'O', 2, 1); // column
+        assertAIPlay("OXX| O |   ", ai, 'O', 2, 2); // diagonal
+
+        //// As second player X ////
+        assertAIPlay("XX | OO|  O", ai, 'X', 0, 2); // row
+        assertAIPlay("OOX| O |  X", ai, 'X', 1, 2); // column
+        assertAIPlay("OOX|O  |X  ", ai, 'X', 1, 1); // diagonal
+    }
+
+    /**
+     * Check that the perfect AI plays to block the other player if they can't win.
+     */
+    @Test
+    public void play_block() {
+        PerfectAI ai = new PerfectAI();
+        assertAIPlay("XX |O  |O  ", ai, 'O', 0, 2); // row
+        assertAIPlay("OO |OXX|   ", ai, 'X', 0, 2); // row
+        assertAIPlay("OXX|O  | O ", ai, 'X', 2, 0); // column
+    }
+
+    /**
+     * Check that the perfect AI sets up a fork and defends against one by playing an edge.
+     */
+    @Test
+    public void play_fork() {
+        PerfectAI ai = new PerfectAI();
+        assertAIPlay("O  | X |  O", ai, 'X', 0, 1); // any edge, the first one is chosen
+        Board board = createBoardFromString("O X| X |  O");
+        ai.play(board, 'O'); // forced block which also makes a fork
+        assertEquals('O', board.getPiece(2, 0));
+        assertTrue(ai.evaluate(board, 'X') < 0);
+    }
+
+    /**
+     * Check the scores given to positions, including preferring faster wins.
+     */
+    @Test
+    public void evaluate() {
+        PerfectAI ai = new PerfectAI();
+        assertEquals(0, ai.evaluate(new Board(), 'O'));
+        assertEquals(5, ai.evaluate(createBoardFromString("OO |XX |   "), 'O')); // win with 4 left empty
+        assertEquals(5, ai.evaluate(createBoardFromString("OO |XX |   "), 'X'));
+        assertEquals(-2, ai.evaluate(createBoardFromString("OO |X  |X  "), 'X')); // loses to a fork with 1 left empty
+        assertEquals(0, ai.evaluate(createBoardFromString("OXO|OXO|XOX"), 'O'));
+    }
+
+    /**
+     * Check that the perfect AI never loses, either against random play or against itself.
+     */
+    @Test
+    public void play_neverLoses() {
+        PerfectAI ai = new PerfectAI();
+        EasyAI easy = new EasyAI();
+        for (int i = 0; i < 200; i++) {
+            char aiPiece = i % 2 == 0 ? 'O' : 'X';
+            Board board = new Board();
+            for (char piece = 'O'; !board.isGameOver(); piece = piece == 'O' ? 'X' : 'O') {
+                (piece == aiPiece ? ai : easy).play(board, piece);
+            }
+            assertFalse(board.hasWon(aiPiece == 'O' ? 'X' : 'O'));
+        }
+
+        Board board = new Board();
+        for (char piece = 'O'; !board.isGameOver(); piece = piece == 'O' ? 'X' : 'O') {
+            ai.play(board, piece);
+        }
+        assertTrue(board.hasTied());
+    }
+
+    /**
+     * Check searching with a deadline: the search reports how deep it went and how many positions
+     * it looked at, finishes when the whole game can be searched in time, and otherwise stops at
+     * the deadline or when cancelled with a legal move.
+     */
+    @Test
+    public void selectMove_deadline() {
+        PerfectAI ai = new PerfectAI();
+        AI.SearchResult result = ai.selectMove(createBoardFromString("XX |O  |O  "), 'O', Deadline.after(1000));
+        assertEquals(2, result.getMove()); // answered from the solution table
+        assertTrue(result.isComplete());
+
+        // Small enough to search completely, must be as good as the move without a deadline
+        Board board = new Board(4, 3);
+        for (int location : new int[] { 5, 6, 0, 15, 9, 10 }) { board.playPiece(location, board.getMoveCount() % 2 == 0 ? 'O' : 'X'); }
+        result = ai.selectMove(board, 'O', Deadline.after(10000));
+        assertTrue(result.isComplete());
+        assertTrue(result.getDepth() <= board.countPieces(' '));
+        assertTrue(result.getNodes() > 0);
+        Board a = new Board(board), b = new Board(board);
+        a.playPiece(result.getMove(), 'O');
+        b.playPiece(ai.selectMove(board, 'O'), 'O');
+        assertEquals(ai.evaluate(b, 'X'), ai.evaluate(a, 'X'));
+
+        // Far too large to search completely
+        board = new Board(6, 4);
+        long start = System.nanoTime();
+        result = ai.selectMove(board, 'O', Deadline.after(50));
+        assertTrue(System.nanoTime() - start < 1000000000L);
+        assertFalse(result.isComplete());
+        assertTrue(result.getDepth() >= 1);
+        assertTrue(board.isLocationEmpty(result.getMove()));
+
+        // Cancelled before it starts
+        Deadline deadline = Deadline.none();
+        deadline.cancel();
+        result = ai.selectMove(board, 'O', deadline);
+        assertFalse(result.isComplete());
+        assertTrue(board.isLocationEmpty(result.getMove()));
+    }
+}
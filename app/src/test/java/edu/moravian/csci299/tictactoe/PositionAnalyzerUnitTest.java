@@ -0,0 +1,108 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the streaming analysis of positions.
+ */
+public class PositionAnalyzerUnitTest {
+    /**
+     * Analyze some text with the given analyzer.
+     * @param analyzer the analyzer to use
+     * @param input the positions, one per line
+     * @param seed the seed for the AIs
+     * @return the output
+     */
+    private static String analyze(PositionAnalyzer analyzer, String input, long seed) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        analyzer.analyze(Channels.newChannel(new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII))),
+                Channels.newChannel(out), seed);
+        return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Check the status and moves written for positions in both notations, including a last line
+     * without a line break.
+     */
+    @Test
+    public void analyze_positions() throws IOException {
+        PositionAnalyzer analyzer = new PositionAnalyzer();
+        analyzer.addAI("Perfect", PerfectAI::new);
+        analyzer.addAI("Hard", HardAI::new);
+        String[] lines = analyze(analyzer, "OO |XX |   \r\n\nXXXOO O  \nOXO|OXX|XOO\n         ", 0).split("\n", -1);
+        assertEquals(5, lines.length);
+        assertEquals("OO |XX |   \tIN_PROGRESS\t0,2\t0,2", lines[0]);
+        assertEquals("XXX|OO |O  \tX_WON\t-\t-", lines[1]);
+        assertEquals("OXO|OXX|XOO\tTIED\t-\t-", lines[2]);
+        assertTrue(lines[3].matches("   \\|   \\|   \tIN_PROGRESS\t[0-2],[0-2]\t[0-2],[0-2]"));
+        assertEquals("", lines[4]);
+    }
+
+    /**
+     * Check that the output is in the same order as the input and is the same for the same seed no
+     * matter how many threads or how big the batches are.
+     */
+    @Test
+    public void analyze_reproducible() throws IOException {
+        StringBuilder input = new StringBuilder();
+        SplitRandom random = new SplitRandom(5);
+        EasyAI ai = new EasyAI();
+        for (int i = 0; i < 20000; i++) {
+            Board board = new Board();
+            for (int moves = random.nextInt(10); moves > 0 && !board.isGameOver(); moves--) {
+                ai.play(board, board.getMoveCount() % 2 == 0 ? 'O' : 'X');
+            }
+            for (int j = 0; j < 9; j++) { input.append(board.getPiece(j)); }
+            input.append('\n');
+        }
+        String[] outputs = new String[3];
+        int[] threads = {1, 4, 3}, batches = {PositionAnalyzer.DEFAULT_BATCH_SIZE, 100, 7};
+        for (int i = 0; i < 3; i++) {
+            ForkJoinPool pool = new ForkJoinPool(threads[i]);
+            PositionAnalyzer analyzer = new PositionAnalyzer(3, 3, pool);
+            analyzer.addAI("Easy", EasyAI::new);
+            analyzer.addAI("Medium", MediumAI::new);
+            analyzer.setBatchSize(batches[i]);
+            outputs[i] = analyze(analyzer, input.toString(), 99);
+            pool.shutdown();
+        }
+        assertEquals(outputs[0], outputs[1]);
+        assertEquals(outputs[0], outputs[2]);
+        String[] lines = outputs[0].split("\n");
+        String[] positions = input.toString().split("\n");
+        assertEquals(20000, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            Board board = UnitTestUtilities.createBoardFromString(lines[i].substring(0, 11));
+            assertEquals(positions[i], lines[i].substring(0, 11).replace("|", ""));
+            assertEquals(board.getStatus().name(), lines[i].split("\t")[1]);
+        }
+    }
+
+    /**
+     * Check that lines that are not positions are reported with their line numbers.
+     */
+    @Test
+    public void analyze_invalid() throws IOException {
+        PositionAnalyzer analyzer = new PositionAnalyzer();
+        analyzer.addAI("Easy", EasyAI::new);
+        String[] inputs = {"OXO|XOX|OX\n", "         \nOXOXOXOXOX\n", "OXO|XAX|OXO\n"};
+        String[] lines = {"line 1", "line 2", "line 1"};
+        for (int i = 0; i < inputs.length; i++) {
+            try {
+                analyze(analyzer, inputs[i], 0);
+                fail();
+            } catch (IllegalArgumentException ex) {
+                assertTrue(ex.getMessage().startsWith(lines[i]));
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the Qubic AI.
+ */
+public class QubicAIUnitTest {
+    /**
+     * Creates a board by playing the O and X pieces at the given locations.
+     * @param os the locations of the O pieces
+     * @param xs the locations of the X pieces
+     * @return the board
+     */
+    private static QubicBoard createBoard(int[] os, int[] xs) {
+        QubicBoard board = new QubicBoard();
+        for (int i : os) { assertTrue(board.playPiece(i, 'O')); }
+        for (int i : xs) { assertTrue(board.playPiece(i, 'X')); }
+        return board;
+    }
+
+    /**
+     * Checks that the AI wins when it can, blocks when it has to, and makes a double threat (which
+     * can't be blocked) when it is there to be made.
+     */
+    @Test
+    public void selectMove_threats() {
+        QubicAI ai = new QubicAI(3, 0);
+        // O has three along the first row of the bottom level, X three down the first column of the top level
+        QubicBoard board = createBoard(new int[] {0, 1, 2, 21}, new int[] {48, 52, 56, 42});
+        assertEquals(3, ai.selectMove(board, 'O'));
+        assertEquals(60, ai.selectMove(board, 'X'));
+        // without a threat of its own X has to block
+        board = createBoard(new int[] {0, 1, 2}, new int[] {48, 52, 42});
+        assertEquals(3, ai.selectMove(board, 'X'));
+
+        // playing 0 gives O both the first row and the first column of the bottom level
+        board = createBoard(new int[] {1, 2, 4, 8}, new int[] {63, 58, 37, 30});
+        QubicBoard copy = new QubicBoard(board);
+        AI.SearchResult result = ai.selectMove(board, 'O', Deadline.none());
+        assertEquals(copy, board); // the board isn't changed
+        assertEquals(0, result.getMove());
+        assertTrue(result.isComplete());
+        board.playPiece(0, 'O');
+        assertEquals(1L << 3 | 1L << 12, board.winningLocations('O'));
+    }
+
+    /**
+     * Checks that the AI never loses to random play, whichever goes first.
+     */
+    @Test
+    public void play_againstRandom() {
+        SplitRandom random = new SplitRandom(12);
+        QubicAI ai = new QubicAI(2, 0);
+        for (int game = 0; game < 20; game++) {
+            char aiPiece = game % 2 == 0 ? 'O' : 'X';
+            QubicBoard board = new QubicBoard();
+            for (char piece = 'O'; !board.isGameOver(); piece = piece == 'O' ? 'X' : 'O') {
+                int move;
+                if (piece == aiPiece) {
+                    move = ai.selectMove(board, piece);
+                } else {
+                    long empty = board.getEmptyMask();
+                    for (int n = random.nextInt(Long.bitCount(empty)); n > 0; n--) { empty &= empty - 1; }
+                    move = Long.numberOfTrailingZeros(empty);
+                }
+                assertTrue(board.playPiece(move, piece));
+            }
+            assertTrue(board.hasWon(aiPiece));
+        }
+    }
+
+    /**
+     * Checks that the time budget is kept to and that searching to a fixed depth always gives the
+     * same move.
+     */
+    @Test
+    public void selectMove_budget() {
+        QubicBoard board = createBoard(new int[] {21}, new int[] {0});
+        long start = System.nanoTime();
+        AI.SearchResult result = new QubicAI().selectMove(board, 'O', Deadline.after(100));
+        assertTrue(System.nanoTime() - start < 1000000000L);
+        assertTrue(board.isLocationEmpty(result.getMove()));
+        assertTrue(result.getDepth() >= 2);
+        assertFalse(result.isComplete());
+
+        AI.SearchResult first = new QubicAI(4, 0).selectMove(board, 'O', Deadline.none());
+        AI.SearchResult second = new QubicAI(4, 0).selectMove(board, 'O', Deadline.none());
+        assertEquals(4, first.getDepth());
+        assertTrue(first.isComplete());
+        assertEquals(first.getMove(), second.getMove());
+        assertEquals(first.getNodes(), second.getNodes());
+        try {
+            new QubicAI(0, 0);
+            fail();
+        } catch (IllegalArgumentException ignored) { }
+    }
+}
@@ -0,0 +1,106 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the Qubic board: its lines, wins, threats, and taking moves back.
+ */
+public class QubicBoardUnitTest {
+    /**
+     * Tests that there are 76 different lines of 4 and that the 8 corners and the 8 center
+     * locations are on 7 lines while every other location is on 4.
+     */
+    @Test
+    public void lines() {
+        assertEquals(76, QubicBoard.LINES.length);
+        HashSet<Long> unique = new HashSet<>();
+        for (long line : QubicBoard.LINES) {
+            assertEquals(4, Long.bitCount(line));
+            unique.add(line);
+        }
+        assertEquals(76, unique.size());
+        int sevens = 0;
+        for (int i = 0; i < QubicBoard.LOCATIONS; i++) {
+            int n = QubicBoard.LINES_THROUGH[i].length;
+            assertTrue(n == 4 || n == 7);
+            if (n == 7) { sevens++; }
+        }
+        assertEquals(16, sevens);
+        assertEquals(7, QubicBoard.LINES_THROUGH[QubicBoard.location(1, 1, 2)].length);
+    }
+
+    /**
+     * Tests a win along a diagonal through the center of the cube, that nothing can be played
+     * after it, and that undo() takes it back.
+     */
+    @Test
+    public void playPiece_win() {
+        QubicBoard board = new QubicBoard();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(board.playPiece(i, i, 3 - i, 'O'));
+            assertTrue(board.playPiece(i, 0, 0, 'X'));
+            assertFalse(board.isGameOver());
+        }
+        assertEquals(1L << QubicBoard.location(3, 3, 0), board.winningLocations('O'));
+        assertEquals(1L << QubicBoard.location(3, 0, 0), board.winningLocations('X'));
+        assertFalse(board.playPiece(0, 0, 0, 'O'));
+        assertTrue(board.playPiece(3, 3, 0, 'O'));
+        assertTrue(board.hasWon('O'));
+        assertEquals(0, board.getEmptyMask());
+        assertFalse(board.playPiece(3, 0, 0, 'X'));
+        assertEquals(QubicBoard.location(3, 3, 0), board.undo());
+        assertEquals(Board.Status.IN_PROGRESS, board.getStatus());
+        assertEquals(6, board.getMoveCount());
+        assertEquals('O', board.getPiece(2, 2, 1));
+        assertEquals(' ', board.getPiece(3, 3, 0));
+        try {
+            board.playPiece(4, 0, 0, 'O');
+            fail();
+        } catch (IndexOutOfBoundsException ignored) { }
+    }
+
+    /**
+     * Plays random games, checking winningLocations() against completesLine() on every empty
+     * location and that the Zobrist key only depends on the pieces, then takes every move back.
+     */
+    @Test
+    public void randomGames() {
+        SplitRandom random = new SplitRandom(6);
+        for (int game = 0; game < 300; game++) {
+            QubicBoard board = new QubicBoard();
+            char piece = 'O';
+            while (!board.isGameOver()) {
+                for (char p : new char[] {'X', 'O'}) {
+                    long expected = 0;
+                    for (int i = 0; i < QubicBoard.LOCATIONS; i++) {
+                        if (board.isLocationEmpty(i) && board.completesLine(i, p)) { expected |= 1L << i; }
+                    }
+                    assertEquals(expected, board.winningLocations(p));
+                }
+                long empty = board.getEmptyMask();
+                for (int n = random.nextInt(Long.bitCount(empty)); n > 0; n--) { empty &= empty - 1; }
+                assertTrue(board.playPiece(Long.numberOfTrailingZeros(empty), piece));
+                piece = piece == 'O' ? 'X' : 'O';
+            }
+            assertEquals(board.getMoveCount(), board.countPieces('X') + board.countPieces('O'));
+
+            // the same pieces played in location order give the same key (taking back the last
+            // move first so that no line is complete)
+            board.undo();
+            QubicBoard sorted = new QubicBoard();
+            for (int i = 0; i < QubicBoard.LOCATIONS; i++) {
+                if (!board.isLocationEmpty(i)) { assertTrue(sorted.playPiece(i, board.getPiece(i))); }
+            }
+            assertEquals(board, sorted);
+            assertEquals(board.getZobristKey(), sorted.getZobristKey());
+
+            while (board.getMoveCount() > 0) { board.undo(); }
+            assertEquals(new QubicBoard(), board);
+            assertEquals(new QubicBoard().getZobristKey(), board.getZobristKey());
+        }
+    }
+}
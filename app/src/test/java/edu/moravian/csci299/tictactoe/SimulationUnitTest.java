@@ -0,0 +1,74 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the batch simulation of games between AIs.
+ */
+public class SimulationUnitTest {
+    /**
+     * Check that perfect play always ties and that the counts add up.
+     */
+    @Test
+    public void run_perfect() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Simulation.Result result = new Simulation(PerfectAI::new, PerfectAI::new, 3, 3, pool).run(2000);
+        assertEquals(2000, result.getGames());
+        assertEquals(2000, result.getTies());
+        assertEquals(0, result.getWins() + result.getLosses());
+        assertEquals(2000, result.getGamesOfLength(9));
+        assertEquals(9 * 2000, result.getMoves());
+        assertEquals(4, result.getGamesPerSecond() / result.getGamesPerSecondPerCore(), 1e-9);
+        pool.shutdown();
+    }
+
+    /**
+     * Check that the perfect AI never loses to random play, whichever goes first, and that every
+     * game is counted exactly once.
+     */
+    @Test
+    public void run_againstRandom() {
+        Simulation.Result result = new Simulation(PerfectAI::new, EasyAI::new).run(5000);
+        assertEquals(5000, result.getGames());
+        assertEquals(0, result.getLosses());
+        assertTrue(result.getWins() > result.getTies());
+        assertEquals(result.getWins(), result.getOWins() + result.getXWins());
+        long games = 0;
+        for (int moves = 0; moves <= 9; moves++) { games += result.getGamesOfLength(moves); }
+        assertEquals(5000, games);
+        assertEquals(0, result.getGamesOfLength(4));
+        assertTrue(result.getAverageLength() >= 5 && result.getAverageLength() <= 9);
+    }
+
+    /**
+     * Check that larger boards can be simulated.
+     */
+    @Test
+    public void run_largerBoard() {
+        Simulation.Result result = new Simulation(MediumAI::new, EasyAI::new, 5, 4, ForkJoinPool.commonPool()).run(300);
+        assertEquals(300, result.getGames());
+        assertTrue(result.getWins() > result.getLosses());
+        assertEquals(0, result.getGamesOfLength(6));
+    }
+
+    /**
+     * Check that a run with the same seed plays exactly the same games, even with a different
+     * number of threads.
+     */
+    @Test
+    public void run_seeded() {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        Simulation.Result first = new Simulation(MediumAI::new, EasyAI::new, 4, 3, pool).run(3000);
+        Simulation.Result second = new Simulation(MediumAI::new, EasyAI::new, 4, 3, ForkJoinPool.commonPool()).run(3000, first.getSeed());
+        assertEquals(first.getSeed(), second.getSeed());
+        assertEquals(first.getWins(), second.getWins());
+        assertEquals(first.getLosses(), second.getLosses());
+        assertEquals(first.getTies(), second.getTies());
+        assertEquals(first.getMoves(), second.getMoves());
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,137 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static edu.moravian.csci299.tictactoe.UnitTestUtilities.*;
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for match snapshots and the snapshot file. Depends on the Board and Match classes
+ * so make sure those are working first.
+ */
+public class SnapshotUnitTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Plays a few rounds of a match against the easy AI with random moves by the human.
+     * @param seed the seed for the AI and the match
+     * @param moves the number of moves the human makes in total
+     * @return the match
+     */
+    private static Match playMatch(long seed, int moves) {
+        Match match = new Match();
+        EasyAI ai = new EasyAI(), human = new EasyAI();
+        ai.setSeed(seed);
+        human.setSeed(~seed);
+        match.setAI(ai);
+        match.setSeed(seed);
+        for (int i = 0; i < moves; i++) {
+            if (!match.hasStarted() || match.getBoard().isGameOver()) { match.startNewRound(); }
+            int location = human.selectRandomMove(match.getBoard());
+            assertTrue(match.playPiece(location / 3, location % 3));
+        }
+        return match;
+    }
+
+    /**
+     * Check that boards can be created from masks.
+     */
+    @Test
+    public void board_fromMasks() {
+        for (String b : new String[] { "   |   |   ", "OXO|XOX|XOX", "OOO|XX |   ", "O X|OX |X O", "XOX|XOO|OXX" }) {
+            Board board = createBoardFromString(b);
+            Board copy = Board.fromMasks(3, 3, board.mask('O'), board.mask('X'));
+            assertEquals(board, copy);
+            assertEquals(board.getStatus(), copy.getStatus());
+            assertEquals(board.getZobristKey(), copy.getZobristKey());
+            assertEquals(board.countPieces(' '), copy.countPieces(' '));
+        }
+        try {
+            Board.fromMasks(3, 3, 1, 1);
+            fail("overlapping masks");
+        } catch (IllegalArgumentException e) { /* expected */ }
+        try {
+            Board.fromMasks(3, 3, 1 << 9, 0);
+            fail("mask off the board");
+        } catch (IllegalArgumentException e) { /* expected */ }
+    }
+
+    /**
+     * Check that matches in every state come back the same from a snapshot.
+     */
+    @Test
+    public void match_snapshot() {
+        ByteBuffer buffer = ByteBuffer.allocate(Match.SNAPSHOT_BYTES);
+        for (int moves = 0; moves < 40; moves++) {
+            Match match = playMatch(moves, moves);
+            buffer.clear();
+            match.writeSnapshot(buffer);
+            assertEquals(Match.SNAPSHOT_BYTES, buffer.position());
+
+            Match restored = new Match();
+            restored.setAI(new MediumAI());
+            buffer.flip();
+            restored.readSnapshot(buffer);
+            assertEquals(match.hasStarted(), restored.hasStarted());
+            assertEquals(match.getBoard(), restored.getBoard());
+            assertEquals(match.getPlayerWins(), restored.getPlayerWins());
+            assertEquals(match.getAIWins(), restored.getAIWins());
+            assertEquals(match.getTies(), restored.getTies());
+            if (match.hasStarted()) {
+                assertEquals(match.getPlayerPiece(), restored.getPlayerPiece());
+                assertEquals(match.hasPlayerWon(), restored.hasPlayerWon());
+                assertEquals(match.hasAIWon(), restored.hasAIWon());
+                assertEquals(match.hasTied(), restored.hasTied());
+            }
+        }
+    }
+
+    /**
+     * Check saving and restoring matches in a snapshot file, including after reopening it.
+     */
+    @Test
+    public void snapshotFile() throws IOException {
+        File path = new File(folder.getRoot(), "matches.snapshots");
+        Match[] matches = new Match[50];
+        for (int i = 0; i < matches.length; i++) { matches[i] = playMatch(i, i % 17); }
+
+        try (SnapshotFile file = new SnapshotFile(path, 100)) {
+            assertEquals(100, file.getSlots());
+            file.writeAll(10, matches);
+            file.write(99, matches[7]);
+            file.force();
+        }
+        assertEquals(16 + 100 * Match.SNAPSHOT_BYTES, path.length());
+
+        try (SnapshotFile file = new SnapshotFile(path, 100)) {
+            Match[] restored = new Match[matches.length];
+            for (int i = 0; i < restored.length; i++) { restored[i] = new Match(); }
+            file.readAll(10, restored);
+            for (int i = 0; i < matches.length; i++) {
+                assertEquals(matches[i].getBoard(), restored[i].getBoard());
+                assertEquals(matches[i].getTies(), restored[i].getTies());
+            }
+            Match match = new Match();
+            file.read(99, match);
+            assertEquals(matches[7].getBoard(), match.getBoard());
+            file.read(0, match);
+            assertFalse(match.hasStarted()); // never written
+            try {
+                file.readAll(60, restored);
+                fail("past the end of the file");
+            } catch (IndexOutOfBoundsException e) { /* expected */ }
+        }
+
+        try {
+            new SnapshotFile(path, 50).close();
+            fail("wrong number of slots");
+        } catch (IOException e) { /* expected */ }
+    }
+}
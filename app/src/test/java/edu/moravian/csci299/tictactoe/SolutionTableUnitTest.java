@@ -0,0 +1,79 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.junit.Test;
+
+import static edu.moravian.csci299.tictactoe.UnitTestUtilities.*;
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the solution table. Depends on the Board class so make sure that is working
+ * first.
+ */
+public class SolutionTableUnitTest {
+    /**
+     * Check that every legal position is in the table and nothing else.
+     */
+    @Test
+    public void size() {
+        SolutionTable table = SolutionTable.getInstance();
+        assertEquals(5478, table.size());
+        assertTrue(table.contains(new Board(), 'O'));
+        assertTrue(table.contains(new Board(), 'X'));
+        assertTrue(table.contains(createBoardFromString("O  |   |   "), 'X'));
+        assertFalse(table.contains(createBoardFromString("O  |   |   "), 'O'));
+        assertFalse(table.contains(createBoardFromString("OO |   |   "), 'X'));
+    }
+
+    /**
+     * Check that base-3 encodings are unique and use the expected digits.
+     */
+    @Test
+    public void encode() {
+        assertEquals(0, SolutionTable.encode(new Board()));
+        assertEquals(1, SolutionTable.encode(createBoardFromString("X  |   |   ")));
+        assertEquals(2, SolutionTable.encode(createBoardFromString("O  |   |   ")));
+        assertEquals(2 * 6561 + 81, SolutionTable.encode(createBoardFromString("   | X |  O")));
+    }
+
+    /**
+     * Check the scores and best locations of some positions.
+     */
+    @Test
+    public void lookup() {
+        SolutionTable table = SolutionTable.getInstance();
+        assertEquals(0, table.getScore(new Board(), 'O'));
+        assertEquals(0, table.getBestLocation(new Board(), 'O'));
+        Board board = createBoardFromString("OO |XX |   ");
+        assertEquals(5, table.getScore(board, 'O'));
+        assertEquals(2, table.getBestLocation(board, 'O'));
+        board = createBoardFromString("OO |X  |X  ");
+        assertEquals(-2, table.getScore(board, 'X'));
+        assertEquals(2, table.getBestLocation(board, 'X'));
+        board = createBoardFromString("XX |O  |O  "); // same as above but X went first
+        assertEquals(-2, table.getScore(board, 'O'));
+        assertEquals(2, table.getBestLocation(board, 'O'));
+        board = createBoardFromString("OXO|OXO|XOX");
+        assertEquals(0, table.getScore(board, 'X'));
+        assertEquals(-1, table.getBestLocation(board, 'X'));
+    }
+
+    /**
+     * Check that the table is consistent with itself: playing the best location always gives a
+     * position whose score is the negation of the original.
+     */
+    @Test
+    public void consistent() {
+        SolutionTable table = SolutionTable.getInstance();
+        EasyAI random = new EasyAI();
+        for (int i = 0; i < 100; i++) {
+            Board board = new Board();
+            for (char piece = 'O'; !board.isGameOver(); piece = piece == 'O' ? 'X' : 'O') {
+                int location = table.getBestLocation(board, piece);
+                Board best = new Board(board);
+                assertTrue(best.playPiece(location / 3, location % 3, piece));
+                assertEquals(table.getScore(board, piece), -table.getScore(best, piece == 'O' ? 'X' : 'O'));
+                random.play(board, piece);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for round-robin tournaments between AIs.
+ */
+public class TournamentUnitTest {
+    /**
+     * Create a tournament between the easy, medium, hard, and perfect AIs.
+     * @param pool the pool to play the games in
+     * @return the tournament
+     */
+    private static Tournament createTournament(ForkJoinPool pool) {
+        Tournament tournament = new Tournament(pool);
+        tournament.addPlayer("Easy", EasyAI::new);
+        tournament.addPlayer("Medium", MediumAI::new);
+        tournament.addPlayer("Hard", HardAI::new);
+        tournament.addPlayer("Perfect", PerfectAI::new);
+        return tournament;
+    }
+
+    /**
+     * Check that the stronger AIs get the higher ratings, that the perfect AI never loses, and
+     * that the ratings average 1500.
+     */
+    @Test
+    public void run_ratings() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Tournament.Standings standings = createTournament(pool).run(1000, 42);
+        assertEquals(4, standings.getPlayerCount());
+        double sum = 0;
+        for (int i = 0; i < 4; i++) {
+            sum += standings.getRating(i);
+            assertTrue(standings.getMargin(i) > 0 && standings.getMargin(i) < 200);
+            assertEquals(0, standings.getLosses(3, i));
+            for (int j = 0; j < 4; j++) {
+                assertEquals(i == j ? 0 : 1000, standings.getGames(i, j));
+                assertEquals(standings.getWins(i, j), standings.getLosses(j, i));
+                assertEquals(standings.getTies(i, j), standings.getTies(j, i));
+            }
+        }
+        assertEquals(4 * Tournament.Standings.AVERAGE_RATING, sum, 1e-6);
+        assertTrue(standings.getRating(0) < standings.getRating(1));
+        assertTrue(standings.getRating(1) < standings.getRating(2));
+        assertTrue(standings.getRating(2) < standings.getRating(3));
+        pool.shutdown();
+    }
+
+    /**
+     * Check that the same seed gives the same results no matter how many threads play the games.
+     */
+    @Test
+    public void run_reproducible() {
+        ForkJoinPool one = new ForkJoinPool(1), four = new ForkJoinPool(4);
+        Tournament.Standings first = createTournament(one).run(600, 7);
+        Tournament.Standings second = createTournament(four).run(600, 7);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(first.getRating(i), second.getRating(i), 0);
+            for (int j = 0; j < 4; j++) {
+                assertEquals(first.getWins(i, j), second.getWins(i, j));
+                assertEquals(first.getTies(i, j), second.getTies(i, j));
+            }
+        }
+        one.shutdown();
+        four.shutdown();
+    }
+
+    /**
+     * Check the ratings of a single pair against the Elo formula, including the extra tied game.
+     */
+    @Test
+    public void rate_pair() {
+        double[] ratings = new double[2], margins = new double[2];
+        // 74.5 points of 99 games plus half of the extra game is a score of 0.75
+        Tournament.Standings.rate(new double[][] {{0, 99}, {99, 0}}, new double[][] {{0, 74.5}, {24.5, 0}}, ratings, margins);
+        assertEquals(400 * Math.log10(3), ratings[0] - ratings[1], 1e-6);
+        assertEquals(3000, ratings[0] + ratings[1], 1e-6);
+        assertEquals(margins[0], margins[1], 1e-9);
+    }
+
+    /**
+     * Check that players need unique names and that a tournament needs two of them.
+     */
+    @Test
+    public void addPlayer_errors() {
+        Tournament tournament = new Tournament();
+        tournament.addPlayer("Easy", EasyAI::new);
+        try {
+            tournament.run(10, 0);
+            fail();
+        } catch (IllegalStateException ignored) { }
+        try {
+            tournament.addPlayer("Easy", MediumAI::new);
+            fail();
+        } catch (IllegalArgumentException ignored) { }
+    }
+}
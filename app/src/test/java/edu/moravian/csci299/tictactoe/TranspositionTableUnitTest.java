@@ -0,0 +1,177 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the shared transposition table.
+ */
+public class TranspositionTableUnitTest {
+    /** The number of entries in the small tables used by the tests */
+    private static final int ENTRIES = 1024;
+
+    /**
+     * Makes a key that lands on the given entry of a table with ENTRIES entries.
+     * @param slot the entry
+     * @param other which of the keys on that entry
+     * @return the key
+     */
+    private static long key(int slot, int other) { return (long) (other * ENTRIES + slot) << 32 | 0x5DEECE66DL; }
+
+    /**
+     * Checks that stored entries are found with everything they were stored with.
+     */
+    @Test
+    public void storeAndProbe() {
+        TranspositionTable table = new TranspositionTable(ENTRIES * TranspositionTable.ENTRY_BYTES + 100);
+        assertEquals(ENTRIES, table.getCapacity());
+        assertEquals(TranspositionTable.Replacement.DEPTH_PREFERRED, table.getReplacement());
+        assertEquals(TranspositionTable.MISS, table.probe(key(3, 0)));
+
+        table.store(key(3, 0), -999990, 7, TranspositionTable.UPPER, 63);
+        table.store(key(4, 0), 12, 300, TranspositionTable.EXACT, AI.NO_MOVE);
+        long entry = table.probe(key(3, 0));
+        assertEquals(-999990, TranspositionTable.score(entry));
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.UPPER, TranspositionTable.bound(entry));
+        assertEquals(63, TranspositionTable.move(entry));
+        entry = table.probe(key(4, 0));
+        assertEquals(12, TranspositionTable.score(entry));
+        assertEquals(TranspositionTable.MAX_DEPTH, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.EXACT, TranspositionTable.bound(entry));
+        assertEquals(AI.NO_MOVE, TranspositionTable.move(entry));
+        assertEquals(TranspositionTable.MISS, table.probe(key(3, 1))); // same entry, different position
+
+        assertEquals(4, table.getProbes());
+        assertEquals(2, table.getHits());
+        assertEquals(0.5, table.getHitRate(), 1e-9);
+        assertEquals(1, table.getCollisions());
+        assertEquals(2, table.getStores());
+        assertEquals(0, table.getOverwrites());
+
+        table.clear();
+        table.resetStatistics();
+        assertEquals(TranspositionTable.MISS, table.probe(key(3, 0)));
+        assertEquals(1, table.getProbes());
+        assertEquals(0, table.getHits());
+        assertEquals(0, table.getStores());
+
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY); // which writes numbers with a decimal comma
+        try {
+            assertTrue(table.toString(), table.toString().contains("hitRate=0.000,"));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    /**
+     * Checks that depth-preferred tables keep the deeper of two positions on the same entry, until
+     * a new search starts, and that always-replace tables keep the last one.
+     */
+    @Test
+    public void replacement() {
+        TranspositionTable deep = new TranspositionTable(ENTRIES * TranspositionTable.ENTRY_BYTES);
+        deep.store(key(9, 0), 1, 6, TranspositionTable.LOWER, 5);
+        deep.store(key(9, 1), 2, 5, TranspositionTable.LOWER, 6); // shallower, so not stored
+        assertEquals(1, TranspositionTable.score(deep.probe(key(9, 0))));
+        assertEquals(TranspositionTable.MISS, deep.probe(key(9, 1)));
+        deep.store(key(9, 0), 3, 2, TranspositionTable.EXACT, 7); // the same position is always replaced
+        assertEquals(3, TranspositionTable.score(deep.probe(key(9, 0))));
+        deep.store(key(9, 1), 4, 2, TranspositionTable.EXACT, 8); // equally deep
+        assertEquals(4, TranspositionTable.score(deep.probe(key(9, 1))));
+        deep.store(key(9, 0), 5, 9, TranspositionTable.EXACT, 8);
+        deep.newSearch();
+        deep.store(key(9, 1), 6, 1, TranspositionTable.EXACT, 8); // replaces an older search's entry
+        assertEquals(6, TranspositionTable.score(deep.probe(key(9, 1))));
+        assertEquals(3, deep.getOverwrites());
+
+        TranspositionTable always = new TranspositionTable(ENTRIES * TranspositionTable.ENTRY_BYTES, TranspositionTable.Replacement.ALWAYS_REPLACE);
+        always.store(key(9, 0), 1, 6, TranspositionTable.LOWER, 5);
+        always.store(key(9, 1), 2, 1, TranspositionTable.LOWER, 6);
+        assertEquals(TranspositionTable.MISS, always.probe(key(9, 0)));
+        assertEquals(2, TranspositionTable.score(always.probe(key(9, 1))));
+        assertEquals(1, always.getOverwrites());
+    }
+
+    /**
+     * Checks that many threads storing and looking up positions on the same few entries at once
+     * never find data that was stored for a different position.
+     */
+    @Test
+    public void concurrentAccess() throws InterruptedException {
+        final TranspositionTable table = new TranspositionTable(64 * TranspositionTable.ENTRY_BYTES, TranspositionTable.Replacement.ALWAYS_REPLACE);
+        final AtomicLong wrong = new AtomicLong(), hits = new AtomicLong();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final SplitRandom random = new SplitRandom(t);
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 200000; i++) {
+                    long key = key(random.nextInt(64), random.nextInt(8));
+                    // the data is made from the key, so a hit with anything else is wrong
+                    int check = (int) (key >>> 32);
+                    if (random.nextInt(2) == 0) {
+                        table.store(key, check, check & 0xFF, TranspositionTable.EXACT, check & 0x3FF);
+                    } else {
+                        long entry = table.probe(key);
+                        if (entry == TranspositionTable.MISS) { continue; }
+                        hits.incrementAndGet();
+                        if (TranspositionTable.score(entry) != check || TranspositionTable.depth(entry) != (check & 0xFF) ||
+                                TranspositionTable.move(entry) != (check & 0x3FF)) { wrong.incrementAndGet(); }
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) { thread.start(); }
+        for (Thread thread : threads) { thread.join(); }
+        assertEquals(0, wrong.get());
+        assertTrue(hits.get() > 0);
+        // threads that share a stripe of counters can lose a count now and then, but never add one
+        assertTrue(table.getHits() > 0 && table.getHits() <= hits.get());
+        assertTrue(table.getProbes() + table.getStores() <= 800000);
+    }
+
+    /**
+     * Checks that QubicAIs in different threads can share a table, and that the positions one
+     * stores are found by the others.
+     */
+    @Test
+    public void sharedByQubicAIs() throws InterruptedException {
+        final TranspositionTable table = new TranspositionTable(1 << 20);
+        final int[] moves = new int[2];
+        Thread[] threads = new Thread[2];
+        for (int t = 0; t < threads.length; t++) {
+            final int index = t;
+            threads[t] = new Thread(() -> moves[index] = new QubicAI(3, 0, table).selectMove(new QubicBoard(), 'O'));
+        }
+        for (Thread thread : threads) { thread.start(); }
+        for (Thread thread : threads) { thread.join(); }
+        for (int move : moves) { assertTrue(move >= 0 && move < QubicBoard.LOCATIONS); }
+        assertTrue(table.getStores() > 0);
+        long hits = table.getHits();
+        new QubicAI(3, 0, table).selectMove(new QubicBoard(), 'O');
+        assertTrue(table.getHits() > hits);
+        assertTrue(table.getHitRate() > 0);
+    }
+
+    /**
+     * Checks that the table can't be made too small or too big.
+     */
+    @Test
+    public void invalidSizes() {
+        for (long bytes : new long[] {0, TranspositionTable.ENTRY_BYTES - 1, TranspositionTable.MAX_BYTES + 1}) {
+            try {
+                new TranspositionTable(bytes);
+                fail("a table of " + bytes + " bytes should not be allowed");
+            } catch (IllegalArgumentException ex) { /* expected */ }
+        }
+        try {
+            new QubicAI(1, 0, null);
+            fail("an AI without a table should not be allowed");
+        } catch (IllegalArgumentException ex) { /* expected */ }
+    }
+}
@@ -0,0 +1,95 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the Ultimate Tic-Tac-Toe AI.
+ */
+public class UltimateAIUnitTest {
+    /**
+     * Checks that the AI always takes a move that wins the game right away when there is one, over
+     * the positions of many random games.
+     */
+    @Test
+    public void selectMove_takesWin() {
+        SplitRandom random = new SplitRandom(4);
+        UltimateAI ai = new UltimateAI(2);
+        int[] moves = new int[UltimateBoard.LOCATIONS];
+        int checked = 0;
+        for (int game = 0; game < 300; game++) {
+            UltimateBoard board = new UltimateBoard();
+            while (!board.isGameOver()) {
+                char piece = board.getMoveCount() % 2 == 0 ? 'O' : 'X';
+                int count = board.getLegalMoves(moves);
+                boolean canWin = false;
+                for (int i = 0; i < count; i++) {
+                    board.playPiece(moves[i], piece);
+                    canWin |= board.hasWon(piece);
+                    board.undo();
+                }
+                if (canWin) {
+                    UltimateBoard copy = new UltimateBoard(board);
+                    int move = ai.selectMove(board, piece);
+                    assertEquals(copy, board); // the board isn't changed
+                    assertTrue(board.playPiece(move, piece));
+                    assertTrue(board.hasWon(piece));
+                    assertEquals(AI.NO_MOVE, ai.selectMove(board, piece == 'O' ? 'X' : 'O'));
+                    checked++;
+                } else {
+                    board.playPiece(moves[random.nextInt(count)], piece);
+                }
+            }
+        }
+        assertTrue(checked > 50);
+    }
+
+    /**
+     * Checks that the AI never loses to random play, whichever goes first.
+     */
+    @Test
+    public void play_againstRandom() {
+        SplitRandom random = new SplitRandom(8);
+        UltimateAI ai = new UltimateAI(4);
+        int[] moves = new int[UltimateBoard.LOCATIONS];
+        for (int game = 0; game < 20; game++) {
+            char aiPiece = game % 2 == 0 ? 'O' : 'X';
+            UltimateBoard board = new UltimateBoard();
+            for (char piece = 'O'; !board.isGameOver(); piece = piece == 'O' ? 'X' : 'O') {
+                int move = piece == aiPiece ? ai.selectMove(board, piece) : moves[random.nextInt(board.getLegalMoves(moves))];
+                assertTrue(board.playPiece(move, piece));
+            }
+            assertFalse(board.hasWon(aiPiece == 'O' ? 'X' : 'O'));
+        }
+    }
+
+    /**
+     * Checks that a search with a deadline still gives a legal move, reports how much it
+     * searched, and that searching to a fixed depth always gives the same move.
+     */
+    @Test
+    public void selectMove_deadline() {
+        UltimateBoard board = new UltimateBoard();
+        board.playPiece(40, 'O');
+        UltimateAI ai = new UltimateAI(30);
+        AI.SearchResult result = ai.selectMove(board, 'X', Deadline.after(20));
+        assertTrue(board.isLegalMove(result.getMove()));
+        assertTrue(result.getDepth() >= 1);
+        assertFalse(result.isComplete());
+        assertTrue(result.getNodes() > 0);
+
+        Deadline cancelled = Deadline.none();
+        cancelled.cancel();
+        result = ai.selectMove(board, 'X', cancelled);
+        assertTrue(board.isLegalMove(result.getMove()));
+        assertEquals(1, result.getDepth());
+
+        AI.SearchResult first = new UltimateAI(5).selectMove(board, 'X', Deadline.none());
+        AI.SearchResult second = new UltimateAI(5).selectMove(board, 'X', Deadline.none());
+        assertTrue(first.isComplete());
+        assertEquals(5, first.getDepth());
+        assertEquals(first.getMove(), second.getMove());
+        assertEquals(first.getNodes(), second.getNodes());
+    }
+}
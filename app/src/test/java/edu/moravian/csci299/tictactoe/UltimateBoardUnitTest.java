@@ -0,0 +1,129 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the rules of Ultimate Tic-Tac-Toe on the UltimateBoard.
+ */
+public class UltimateBoardUnitTest {
+    /**
+     * Plays the given moves, alternating pieces starting with O.
+     * @param board the board to play on
+     * @param moves the locations (sub*9+cell) to play
+     */
+    private static void play(UltimateBoard board, int... moves) {
+        for (int location : moves) {
+            assertTrue(board.playPiece(location, board.getMoveCount() % 2 == 0 ? 'O' : 'X'));
+        }
+    }
+
+    /**
+     * Tests that each move sends the other player to the matching sub-board and that moves
+     * anywhere else are refused.
+     */
+    @Test
+    public void playPiece_sendsToSubBoard() {
+        UltimateBoard board = new UltimateBoard();
+        assertEquals(UltimateBoard.ANY_SUB_BOARD, board.getActiveSubBoard());
+        int[] moves = new int[UltimateBoard.LOCATIONS];
+        assertEquals(81, board.getLegalMoves(moves));
+        assertTrue(board.playPiece(4, 2, 'O'));
+        assertEquals('O', board.getPiece(4 * 9 + 2));
+        assertEquals(2, board.getActiveSubBoard());
+        assertEquals(9, board.getLegalMoves(moves));
+        for (int i = 0; i < 9; i++) { assertEquals(2 * 9 + i, moves[i]); }
+        assertFalse(board.playPiece(5, 0, 'X'));
+        assertTrue(board.playPiece(2, 4, 'X'));
+        assertEquals(4, board.getActiveSubBoard());
+        assertFalse(board.playPiece(4, 2, 'O')); // taken
+        assertEquals(8, board.getLegalMoves(moves));
+    }
+
+    /**
+     * Tests that winning a sub-board closes it, that being sent to it lets the player play in any
+     * open sub-board, and that undo() puts everything back.
+     */
+    @Test
+    public void subBoardWon() {
+        UltimateBoard board = new UltimateBoard();
+        // X gets 3, 4, 7, and 8 in sub-board 0 while O keeps sending X back there
+        play(board, 36, 3, 27, 4, 37, 9, 0, 8, 72, 7, 63);
+        assertEquals(0, board.getActiveSubBoard());
+        assertEquals(Board.Status.IN_PROGRESS, board.getSubBoardStatus(0));
+        play(board, 5); // X completes the middle row of sub-board 0
+        assertEquals(Board.Status.X_WON, board.getSubBoardStatus(0));
+        assertEquals(5, board.getActiveSubBoard());
+        play(board, 45); // O sends X to the decided sub-board 0, so X can play anywhere open
+        assertEquals(UltimateBoard.ANY_SUB_BOARD, board.getActiveSubBoard());
+        assertFalse(board.isLegalMove(1));
+        assertFalse(board.playPiece(1, 'X'));
+        assertTrue(board.isLegalMove(80));
+        int[] moves = new int[UltimateBoard.LOCATIONS];
+        assertEquals(81 - 9 - 7, board.getLegalMoves(moves));
+        assertEquals(Board.Status.IN_PROGRESS, board.getStatus());
+
+        assertEquals(45, board.undo());
+        assertEquals(5, board.getActiveSubBoard());
+        assertEquals(5, board.undo());
+        assertEquals(Board.Status.IN_PROGRESS, board.getSubBoardStatus(0));
+        while (board.getMoveCount() > 0) { board.undo(); }
+        assertEquals(new UltimateBoard(), board);
+        try {
+            board.undo();
+            fail();
+        } catch (IllegalStateException ignored) { }
+    }
+
+    /**
+     * Plays random games, checking the legal moves and the status of every sub-board and of the
+     * game against working them out from the pieces with Board, then takes every move back.
+     */
+    @Test
+    public void randomGames() {
+        SplitRandom random = new SplitRandom(11);
+        int[] moves = new int[UltimateBoard.LOCATIONS];
+        int[] outcomes = new int[Board.Status.values().length];
+        for (int game = 0; game < 500; game++) {
+            UltimateBoard board = new UltimateBoard();
+            while (!board.isGameOver()) {
+                int count = board.getLegalMoves(moves), legal = 0;
+                for (int i = 0; i < UltimateBoard.LOCATIONS; i++) { if (board.isLegalMove(i)) { legal++; } }
+                assertEquals(legal, count);
+                play(board, moves[random.nextInt(count)]);
+                assertEquals(expectedStatus(board), board.getStatus());
+            }
+            outcomes[board.getStatus().ordinal()]++;
+            assertEquals(0, board.getLegalMoves(moves));
+            while (board.getMoveCount() > 0) { board.undo(); }
+            assertEquals(new UltimateBoard(), board);
+        }
+        assertTrue(outcomes[Board.Status.O_WON.ordinal()] > 0);
+        assertTrue(outcomes[Board.Status.X_WON.ordinal()] > 0);
+    }
+
+    /**
+     * Works out the status of a game from its pieces, using a Board for each sub-board and another
+     * for the grid of sub-boards.
+     * @param board the board to check
+     * @return the status of the game
+     */
+    private static Board.Status expectedStatus(UltimateBoard board) {
+        Board grid = new Board();
+        int decided = 0;
+        for (int sub = 0; sub < 9; sub++) {
+            Board subBoard = new Board();
+            for (int cell = 0; cell < 9; cell++) {
+                if (board.getPiece(sub, cell) != ' ') { subBoard.playPiece(cell, board.getPiece(sub, cell)); }
+            }
+            assertEquals(subBoard.getStatus(), board.getSubBoardStatus(sub));
+            if (subBoard.isGameOver()) { decided++; }
+            if (subBoard.hasWon('O')) { grid.playPiece(sub, 'O'); }
+            else if (subBoard.hasWon('X')) { grid.playPiece(sub, 'X'); }
+        }
+        if (grid.hasWon('O')) { return Board.Status.O_WON; }
+        if (grid.hasWon('X')) { return Board.Status.X_WON; }
+        return decided == 9 ? Board.Status.TIED : Board.Status.IN_PROGRESS;
+    }
+}
@@ -0,0 +1,47 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for a match of Ultimate Tic-Tac-Toe between a human and the AI.
+ */
+public class UltimateMatchUnitTest {
+    /**
+     * Plays several rounds with random human moves, checking that illegal moves are refused, that
+     * the AI answers every move, and that the rounds are counted.
+     */
+    @Test
+    public void rounds() {
+        UltimateMatch match = new UltimateMatch();
+        match.setAI(new UltimateAI(3));
+        match.setSeed(1);
+        assertFalse(match.hasStarted());
+        SplitRandom random = new SplitRandom(2);
+        int[] moves = new int[UltimateBoard.LOCATIONS];
+        for (int round = 0; round < 6; round++) {
+            match.startNewRound();
+            UltimateBoard board = match.getBoard();
+            assertEquals(match.getPlayerPiece() == 'X' ? 1 : 0, board.getMoveCount());
+            try {
+                match.startNewRound();
+                fail();
+            } catch (IllegalStateException ignored) { }
+            while (!board.isGameOver()) {
+                int count = board.getMoveCount();
+                for (int i = 0; i < UltimateBoard.LOCATIONS; i++) {
+                    if (!board.isLegalMove(i)) {
+                        assertFalse(match.playPiece(i / 9, i % 9));
+                        break;
+                    }
+                }
+                int move = moves[random.nextInt(board.getLegalMoves(moves))];
+                assertTrue(match.playPiece(move / 9, move % 9));
+                assertEquals(board.isGameOver() && match.hasPlayerWon() ? count + 1 : count + 2, board.getMoveCount());
+            }
+            assertEquals(round + 1, match.getPlayerWins() + match.getAIWins() + match.getTies());
+        }
+        assertTrue(match.getAIWins() > 0);
+    }
+}
@@ -20,6 +20,19 @@ public class UnitTestUtilities {
         assertEquals(9-x-o, board.countPieces(' '));
     }
 
+    /**
+     * Assert that the board has the given counts for Xs, Os, and spaces.
+     * @param board the board to check
+     * @param x the expected number of Xs
+     * @param o the expected number of Os
+     * @param spaces the expected number of empty locations
+     */
+    public static void assertPieceCounts(Board board, int x, int o, int spaces) {
+        assertEquals(x, board.countPieces('X'));
+        assertEquals(o, board.countPieces('O'));
+        assertEquals(spaces, board.countPieces(' '));
+    }
+
     /**
      * Assert if the board is in a game-over state and won has won or tied depending on the
      * parameters.
@@ -68,10 +81,10 @@ public class UnitTestUtilities {
      * @param c the expected column the piece will be played
      */
     public static void assertAIPlay(Board board, AI ai, char piece, int r, int c) {
-        int x = board.countPieces('X'), o = board.countPieces('O');
+        int x = board.countPieces('X'), o = board.countPieces('O'), spaces = board.countPieces(' ');
         ai.play(board, piece);
         if (piece == 'X') { x++; } else { o++; }
-        assertPieceCounts(board, x, o);
+        assertPieceCounts(board, x, o, spaces - 1);
         assertEquals(piece, board.getPiece(r, c));
     }
 
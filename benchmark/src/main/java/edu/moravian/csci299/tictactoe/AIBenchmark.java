@@ -0,0 +1,65 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of each AI choosing and playing a move. Run with -PjmhArgs="-prof gc" to also see the
+ * memory allocated per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AIBenchmark {
+    /** The AI being benchmarked */
+    @Param({"Easy", "Medium", "Hard", "Perfect"})
+    public String difficulty;
+
+    /** The position being benchmarked */
+    @Param({"opening", "midgame", "endgame"})
+    public String position;
+
+    /** The AI choosing moves */
+    private AI ai;
+    /** The board with the position */
+    private Board board;
+    /** The next piece to play */
+    private char piece;
+
+    @Setup
+    public void setup() {
+        switch (difficulty) {
+            case "Easy": ai = new EasyAI(); break;
+            case "Medium": ai = new MediumAI(); break;
+            case "Hard": ai = new HardAI(); break;
+            default: ai = new PerfectAI(); break;
+        }
+        board = Positions.get(position);
+        piece = Positions.nextPiece(board);
+    }
+
+    @Benchmark
+    public int selectMove() { return ai.selectMove(board, piece); }
+
+    /** Plays onto a copy of the board, so this includes the cost of copying the board */
+    @Benchmark
+    public Board play() {
+        Board b = new Board(board);
+        ai.play(b, piece);
+        return b;
+    }
+}
@@ -0,0 +1,97 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the streaming position analysis with the easy, medium, hard, and perfect AIs. The
+ * score is positions per second; the target is over 10M positions per minute (about 167k per
+ * second). The output is thrown away so only the parsing, analysis, and formatting are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyzerBenchmark {
+    /** The number of positions analyzed by each benchmark call */
+    private static final int POSITIONS = 100000;
+
+    /** The number of worker threads */
+    @Param({"1", "4"})
+    public int threads;
+
+    /** The pool with that many threads */
+    private ForkJoinPool pool;
+    /** The analyzer being run */
+    private PositionAnalyzer analyzer;
+    /** The input, positions from random games */
+    private byte[] input;
+    /** Throws away the output */
+    private final WritableByteChannel discard = new WritableByteChannel() {
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            src.position(src.limit());
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() { return true; }
+
+        @Override
+        public void close() { }
+    };
+
+    @Setup
+    public void setup() {
+        pool = new ForkJoinPool(threads);
+        analyzer = new PositionAnalyzer(Board.DEFAULT_SIZE, Board.DEFAULT_WIN_LENGTH, pool);
+        analyzer.addAI("Easy", EasyAI::new);
+        analyzer.addAI("Medium", MediumAI::new);
+        analyzer.addAI("Hard", HardAI::new);
+        analyzer.addAI("Perfect", PerfectAI::new);
+        SplitRandom random = new SplitRandom(1);
+        EasyAI ai = new EasyAI();
+        ai.setSeed(2);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < POSITIONS; i++) {
+            Board board = new Board();
+            for (int moves = random.nextInt(10); moves > 0 && !board.isGameOver(); moves--) {
+                ai.play(board, Positions.nextPiece(board));
+            }
+            for (int j = 0; j < 9; j++) { text.append(board.getPiece(j)); }
+            text.append('\n');
+        }
+        input = text.toString().getBytes();
+    }
+
+    @TearDown
+    public void tearDown() { pool.shutdown(); }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public long analyze() throws IOException {
+        return analyzer.analyze(Channels.newChannel(new ByteArrayInputStream(input)), discard, 0);
+    }
+}
@@ -0,0 +1,36 @@
+package edu.moravian.csci299.tictactoe;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Analyzes a file of positions with the PositionAnalyzer using the easy, medium, hard, and perfect
+ * AIs. The arguments are the input file, the output file, and optionally the seed.
+ */
+public final class AnalyzerRunner {
+    private AnalyzerRunner() { }
+
+    /**
+     * Runs the analysis.
+     * @param args the input file, the output file, and the seed (default 0)
+     * @throws IOException if reading or writing fails
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) { throw new IllegalArgumentException("usage: AnalyzerRunner input output [seed]"); }
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        PositionAnalyzer analyzer = new PositionAnalyzer();
+        analyzer.addAI("Easy", EasyAI::new);
+        analyzer.addAI("Medium", MediumAI::new);
+        analyzer.addAI("Hard", HardAI::new);
+        analyzer.addAI("Perfect", PerfectAI::new);
+        long start = System.nanoTime(), positions;
+        try (FileInputStream in = new FileInputStream(args[0]); FileOutputStream out = new FileOutputStream(args[1])) {
+            positions = analyzer.analyze(in.getChannel(), out.getChannel(), seed);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf(Locale.ROOT, "%d positions in %.1f s (%.0f per minute), moves by %s%n",
+                positions, seconds, positions / seconds * 60, analyzer.getAINames());
+    }
+}
@@ -0,0 +1,80 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the Board methods that are used on every move.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    /** The position being benchmarked */
+    @Param({"opening", "midgame", "endgame"})
+    public String position;
+
+    /** The board with the position */
+    private Board board;
+    /** A copy of the board, equal to it but not the same object */
+    private Board copy;
+    /** The next piece to play */
+    private char piece;
+    /** The first empty location on the board */
+    private int location;
+
+    @Setup
+    public void setup() {
+        board = Positions.get(position);
+        copy = new Board(board);
+        piece = Positions.nextPiece(board);
+        location = 0;
+        while (!board.isLocationEmpty(location)) { location++; }
+    }
+
+    @Benchmark
+    public boolean hasWon() { return board.hasWon('X') | board.hasWon('O'); }
+
+    @Benchmark
+    public boolean isGameOver() { return board.isGameOver(); }
+
+    /** Plays a piece onto a copy of the board, so this includes the cost of copyConstructor() */
+    @Benchmark
+    public Board playPiece() {
+        Board b = new Board(board);
+        b.playPiece(location, piece);
+        return b;
+    }
+
+    @Benchmark
+    public Board copyConstructor() { return new Board(board); }
+
+    @Benchmark
+    public Object cloneBoard() { return board.clone(); }
+
+    @Benchmark
+    public int hashCodeBoard() { return board.hashCode(); }
+
+    @Benchmark
+    public boolean equalsBoard() { return board.equals(copy); }
+
+    @Benchmark
+    public long zobristKey() { return board.getZobristKey(); }
+
+    @Benchmark
+    public long canonicalKey() { return board.getCanonicalKey(); }
+}
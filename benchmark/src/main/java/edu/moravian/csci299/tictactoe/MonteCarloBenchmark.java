@@ -0,0 +1,49 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many Monte Carlo Tree Search iterations (each ending in one random playout) the
+ * MonteCarloAI runs per second when choosing the first move on empty boards of different sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MonteCarloBenchmark {
+    /** The number of iterations for every move */
+    private static final int ITERATIONS = 10000;
+
+    /** The size of the board, the win length is the size up to 5 */
+    @Param({"3", "7", "15"})
+    public int size;
+
+    private Board board;
+    private MonteCarloAI ai;
+
+    @Setup
+    public void setup() {
+        board = new Board(size, Math.min(size, 5));
+        ai = new MonteCarloAI(ITERATIONS, 0);
+        ai.setSeed(1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public int playouts() { return ai.selectMove(board, 'O'); }
+}
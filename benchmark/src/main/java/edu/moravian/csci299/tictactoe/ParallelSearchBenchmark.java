@@ -0,0 +1,83 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the parallel alpha-beta AI on a large board by the time to search a position to a
+ * fixed depth with pools of different sizes. The speedup for a number of threads is the time with
+ * 1 thread divided by its time. The "nodes" counter divided by the "searches" counter is the
+ * number of positions per search, which shows how many more positions are searched because the
+ * younger brothers don't all get the best bound.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelSearchBenchmark {
+    /** The number of threads searching */
+    @Param({"1", "2", "4", "8", "16"})
+    public int threads;
+
+    /** The size of the board */
+    @Param({"7"})
+    public int size;
+
+    /** The number of moves ahead searched */
+    @Param({"5"})
+    public int depth;
+
+    /** The position being searched, with O in the center and X to play */
+    private Board board;
+    /** The pool searching the position */
+    private ForkJoinPool pool;
+    /** The AI searching the position */
+    private ParallelAI ai;
+
+    /** Counts the positions and the searches, reported as totals */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long nodes;
+        public long searches;
+
+        @Setup(Level.Iteration)
+        public void reset() { nodes = searches = 0; }
+    }
+
+    @Setup
+    public void setup() {
+        board = new Board(size, 4);
+        board.playPiece(size * size / 2, 'O');
+        pool = new ForkJoinPool(threads);
+        ai = new ParallelAI(depth, pool);
+    }
+
+    @TearDown
+    public void tearDown() { pool.shutdown(); }
+
+    @Benchmark
+    public int search(Counters counters) {
+        AI.SearchResult result = ai.selectMove(board, 'X', Deadline.none());
+        counters.nodes += result.getNodes();
+        counters.searches++;
+        return result.getMove();
+    }
+}
@@ -0,0 +1,51 @@
+package edu.moravian.csci299.tictactoe;
+
+/**
+ * Representative positions used by the benchmarks, written in the same notation as the unit tests:
+ * X and O for pieces, spaces for empty places, and | between rows.
+ */
+final class Positions {
+    private Positions() { }
+
+    /**
+     * Gets one of the named positions.
+     * @param name one of "opening", "midgame", or "endgame"
+     * @return a new board with that position
+     */
+    static Board get(String name) {
+        switch (name) {
+            case "opening": return fromString("   | O |   ");
+            case "midgame": return fromString("O  | X |  O");
+            case "endgame": return fromString("OX | O |XOX");
+            default: throw new IllegalArgumentException("unknown position " + name);
+        }
+    }
+
+    /**
+     * Gets the piece that plays next on a board, with 'O' going first like in Game.
+     * @param board the board being played on
+     * @return 'O' if both have played the same number of pieces, otherwise 'X'
+     */
+    static char nextPiece(Board board) {
+        return board.countPieces('O') > board.countPieces('X') ? 'X' : 'O';
+    }
+
+    /**
+     * Converts a String representation of a board to an actual board.
+     * @param board the string representation of the board
+     * @return the actual Board object
+     */
+    static Board fromString(String board) {
+        Board b = new Board();
+        int r = 0, c = 0;
+        for (char piece : board.toCharArray()) {
+            if (piece == '|') {
+                r++; c = 0;
+            } else {
+                if (piece != ' ') { b.playPiece(r, c, piece); }
+                c++;
+            }
+        }
+        return b;
+    }
+}
@@ -0,0 +1,107 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the Qubic board and AI. Move generation is measured by counting every position a few
+ * moves ahead with play and undo (each play also checks for a win), the win checks by finding all
+ * of the threats of a position and by checking every empty location for a win, and the AI by its
+ * search to a fixed depth (keeping its transposition table between calls, like during a game). Counts of positions are reported per second as the "nodes" counter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QubicBenchmark {
+    /** The number of random moves played before the position being benchmarked */
+    @Param({"0", "16"})
+    public int moves;
+
+    /** The position being benchmarked */
+    private QubicBoard board;
+    /** The next piece to play */
+    private char piece;
+    /** The AI searching the position */
+    private final QubicAI ai = new QubicAI(4, 0);
+
+    /** Counts the positions, reported per second */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() { nodes = 0; }
+    }
+
+    @Setup
+    public void setup() {
+        SplitRandom random = new SplitRandom(moves);
+        board = new QubicBoard();
+        piece = 'O';
+        while (board.getMoveCount() < moves) {
+            long empty = board.getEmptyMask();
+            for (int n = random.nextInt(Long.bitCount(empty)); n > 0; n--) { empty &= empty - 1; }
+            board.playPiece(Long.numberOfTrailingZeros(empty), piece);
+            if (board.isGameOver()) { board.undo(); continue; }
+            piece = piece == 'O' ? 'X' : 'O';
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public long perft(Counters counters) {
+        long count = perft(board, piece, 3);
+        counters.nodes += count;
+        return count;
+    }
+
+    @Benchmark
+    public long winningLocations() { return board.winningLocations(piece); }
+
+    @Benchmark
+    public int completesLine() {
+        int wins = 0;
+        for (long empty = board.getEmptyMask(); empty != 0; empty &= empty - 1) {
+            if (board.completesLine(Long.numberOfTrailingZeros(empty), piece)) { wins++; }
+        }
+        return wins;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int search(Counters counters) {
+        AI.SearchResult result = ai.selectMove(board, piece, Deadline.none());
+        counters.nodes += result.getNodes();
+        return result.getMove();
+    }
+
+    private static long perft(QubicBoard board, char piece, int depth) {
+        if (depth == 0 || board.isGameOver()) { return 1; }
+        long count = 1;
+        for (long empty = board.getEmptyMask(); empty != 0; empty &= empty - 1) {
+            board.playPiece(Long.numberOfTrailingZeros(empty), piece);
+            count += perft(board, piece == 'O' ? 'X' : 'O', depth - 1);
+            board.undo();
+        }
+        return count;
+    }
+}
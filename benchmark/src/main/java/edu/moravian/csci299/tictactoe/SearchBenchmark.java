@@ -0,0 +1,60 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares visiting every position of the entire 3x3 game tree by playing and taking back moves
+ * on a single board against copying the board for every position. Scores are nodes per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+    /** The number of positions in the entire game tree, including the empty board */
+    private static final int NODES = 549946;
+
+    @Benchmark
+    @OperationsPerInvocation(NODES)
+    public long undo() { return countWithUndo(new Board(), 'O'); }
+
+    @Benchmark
+    @OperationsPerInvocation(NODES)
+    public long copy() { return countWithCopy(new Board(), 'O'); }
+
+    private static long countWithUndo(Board board, char piece) {
+        long count = 1;
+        for (int i = 0; i < 9; i++) {
+            if (board.playPiece(i, piece)) {
+                count += countWithUndo(board, piece == 'O' ? 'X' : 'O');
+                board.undo();
+            }
+        }
+        return count;
+    }
+
+    private static long countWithCopy(Board board, char piece) {
+        long count = 1;
+        for (int i = 0; i < 9; i++) {
+            if (board.isLocationEmpty(i) && !board.isGameOver()) {
+                Board child = new Board(board);
+                child.playPiece(i, piece);
+                count += countWithCopy(child, piece == 'O' ? 'X' : 'O');
+            }
+        }
+        return count;
+    }
+}
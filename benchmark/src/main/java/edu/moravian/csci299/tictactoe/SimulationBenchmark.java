@@ -0,0 +1,61 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the batch simulation with different numbers of cores. The score is games per second,
+ * dividing it by the number of threads gives games per second per core, which should stay about
+ * the same as the number of threads grows (up to the number of cores on the machine).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulationBenchmark {
+    /** The number of games played by each benchmark call */
+    private static final int GAMES = 100000;
+
+    /** The number of worker threads */
+    @Param({"1", "2", "4", "8", "16", "32"})
+    public int threads;
+
+    /** If metrics are recorded, comparing both shows their overhead */
+    @Param({"true", "false"})
+    public boolean metrics;
+
+    /** The pool with that many threads */
+    private ForkJoinPool pool;
+    /** The simulation being run */
+    private Simulation simulation;
+
+    @Setup
+    public void setup() {
+        Metrics.getInstance().setEnabled(metrics);
+        pool = new ForkJoinPool(threads);
+        simulation = new Simulation(HardAI::new, EasyAI::new, Board.DEFAULT_SIZE, Board.DEFAULT_WIN_LENGTH, pool);
+    }
+
+    @TearDown
+    public void tearDown() { pool.shutdown(); }
+
+    @Benchmark
+    @OperationsPerInvocation(GAMES)
+    public long hardVsEasy() { return simulation.run(GAMES).getTies(); }
+}
@@ -0,0 +1,76 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures checkpointing and restoring a large number of matches in bulk through a memory-mapped
+ * SnapshotFile. Scores are matches per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+    /** The number of matches saved and restored for each call */
+    private static final int MATCHES = 200000;
+
+    private File path;
+    private SnapshotFile file;
+    private Match[] matches;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        path = File.createTempFile("matches", ".snapshots");
+        path.delete();
+        file = new SnapshotFile(path, MATCHES);
+        matches = new Match[MATCHES];
+        SplitRandom random = new SplitRandom(1);
+        for (int i = 0; i < MATCHES; i++) {
+            matches[i] = new Match();
+            matches[i].setAI(new EasyAI());
+            matches[i].setSeed(random.nextLong());
+            matches[i].startNewRound();
+            int location = new EasyAI().selectRandomMove(matches[i].getBoard());
+            matches[i].playPiece(location / 3, location % 3);
+        }
+        file.writeAll(0, matches);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        file.close();
+        path.delete();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MATCHES)
+    public SnapshotFile snapshot() {
+        file.writeAll(0, matches);
+        return file;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MATCHES)
+    public Match[] restore() {
+        file.readAll(0, matches);
+        return matches;
+    }
+}
@@ -0,0 +1,30 @@
+package edu.moravian.csci299.tictactoe;
+
+import java.util.Locale;
+
+/**
+ * Runs a round-robin Tournament between all of the AIs and prints the ratings. The arguments are
+ * the number of games each pair plays and the seed, so a run can be repeated exactly.
+ */
+public final class TournamentRunner {
+    private TournamentRunner() { }
+
+    /**
+     * Runs the tournament.
+     * @param args the games per pair (default 1000) and the seed (default 0)
+     */
+    public static void main(String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        Tournament tournament = new Tournament();
+        tournament.addPlayer("Easy", EasyAI::new);
+        tournament.addPlayer("Medium", MediumAI::new);
+        tournament.addPlayer("Hard", HardAI::new);
+        tournament.addPlayer("Perfect", PerfectAI::new);
+        tournament.addPlayer("MonteCarlo", () -> new MonteCarloAI(500, 0));
+        Tournament.Standings standings = tournament.run(games, seed);
+        System.out.print(standings);
+        System.out.printf(Locale.ROOT, "%d games per pair, seed %d, %.1f s%n",
+                games, standings.getSeed(), standings.getElapsedNanos() / 1e9);
+    }
+}
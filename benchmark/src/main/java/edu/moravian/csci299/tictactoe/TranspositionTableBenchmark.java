@@ -0,0 +1,74 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the off-heap transposition table by looking up and storing random positions in a
+ * full table, so almost every access misses the CPU caches once the table is bigger than them. The
+ * table is shared by all of the benchmark threads, so running with more threads (for example
+ * "-t 4") measures it being shared without locks, and "-prof gc" shows that it doesn't allocate
+ * anything. The statistics of the table are printed at the end of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-XX:MaxDirectMemorySize=1g")
+public class TranspositionTableBenchmark {
+    /** The size of the table in megabytes */
+    @Param({"1", "256"})
+    public int megabytes;
+
+    /** The replacement policy of the table */
+    @Param({"DEPTH_PREFERRED", "ALWAYS_REPLACE"})
+    public TranspositionTable.Replacement replacement;
+
+    /** The table being benchmarked */
+    private TranspositionTable table;
+
+    /** The random positions of each thread, different for every thread */
+    @State(Scope.Thread)
+    public static class Keys {
+        private final SplitRandom random = new SplitRandom(Thread.currentThread().getId());
+        /** The key of the next position */
+        long next() { return random.nextLong(); }
+    }
+
+    @Setup
+    public void setup() {
+        table = new TranspositionTable((long) megabytes << 20, replacement);
+        // fill the table so lookups have entries to check their keys against
+        SplitRandom random = new SplitRandom(0);
+        for (int i = 0; i < table.getCapacity(); i++) {
+            long key = random.nextLong();
+            table.store(key, (int) key, 1, TranspositionTable.EXACT, 0);
+        }
+        table.resetStatistics();
+    }
+
+    @TearDown
+    public void tearDown() { System.out.println(table); }
+
+    @Benchmark
+    public long probe(Keys keys) { return table.probe(keys.next()); }
+
+    @Benchmark
+    public void store(Keys keys) {
+        long key = keys.next();
+        table.store(key, (int) key, (int) (key >>> 58), TranspositionTable.EXACT, (int) (key >>> 32) & 0x3F);
+    }
+}
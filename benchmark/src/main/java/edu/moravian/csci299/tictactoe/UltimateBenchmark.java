@@ -0,0 +1,89 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the Ultimate Tic-Tac-Toe engine in nodes per second: the AI's search to a fixed depth
+ * (the "nodes" counter) and counting every position a few moves ahead with play and undo on a
+ * single board, which is the cost of the board alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UltimateBenchmark {
+    /** The number of moves played before the position being benchmarked */
+    @Param({"1", "20"})
+    public int moves;
+
+    /** The AI searching the position */
+    private final UltimateAI ai = new UltimateAI(UltimateAI.DEFAULT_DEPTH);
+    /** The position being benchmarked */
+    private UltimateBoard board;
+    /** The next piece to play */
+    private char piece;
+
+    /** Counts the positions searched, reported per second */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() { nodes = 0; }
+    }
+
+    @Setup
+    public void setup() {
+        // the same moves every time, chosen by a shallow search
+        UltimateAI opening = new UltimateAI(2);
+        board = new UltimateBoard();
+        piece = 'O';
+        for (int i = 0; i < moves; i++) {
+            board.playPiece(opening.selectMove(board, piece), piece);
+            piece = piece == 'O' ? 'X' : 'O';
+        }
+    }
+
+    @Benchmark
+    public int search(Counters counters) {
+        AI.SearchResult result = ai.selectMove(board, piece, Deadline.none());
+        counters.nodes += result.getNodes();
+        return result.getMove();
+    }
+
+    @Benchmark
+    public long perft(Counters counters) {
+        long count = perft(board, piece, 4, new int[5][UltimateBoard.LOCATIONS]);
+        counters.nodes += count;
+        return count;
+    }
+
+    private static long perft(UltimateBoard board, char piece, int depth, int[][] moves) {
+        if (depth == 0 || board.isGameOver()) { return 1; }
+        long count = 1;
+        int n = board.getLegalMoves(moves[depth]);
+        for (int i = 0; i < n; i++) {
+            board.playPiece(moves[depth][i], piece);
+            count += perft(board, piece == 'O' ? 'X' : 'O', depth - 1, moves);
+            board.undo();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,283 @@
+package edu.moravian.csci299.tictactoe;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A headless server hosting many human-vs-AI matches at once over HTTP with JSON responses. The
+ * requests are:
+ *
+ *   POST   /sessions?ai=Hard&think=50 create a session against an AI (Easy, Medium, Hard, Perfect,
+ *                                     MonteCarlo), optionally limiting its think time in ms
+ *   GET    /sessions/{id}             get the state of a session
+ *   POST   /sessions/{id}/round       start a new round
+ *   POST   /sessions/{id}/move?r=&c=  play a piece (the AI responds in the same request)
+ *   DELETE /sessions/{id}             end a session
+ *   GET    /stats                     get the number of sessions
+ *
+ * The server caps the think time of every AI at its own limit, if it has one.
+ *
+ * Sessions are described by Session.toJson(), and moves also report whether the piece was
+ * "played". Unknown sessions give 404, bad parameters 400, and playing or starting a round at the
+ * wrong time 409.
+ *
+ * Connections are accepted and parsed with the JDK's built-in HTTP server and each request is
+ * handled on its own virtual thread when the JVM has them (Java 21+), otherwise on a small pool of
+ * platform threads since handling a request never blocks.
+ */
+public class GameServer implements AutoCloseable {
+    /** The port used when none is given */
+    public static final int DEFAULT_PORT = 8080;
+    /** The idle timeout used when none is given, in seconds */
+    public static final long DEFAULT_IDLE_TIMEOUT_SECONDS = 300;
+    /** The number of connections the OS may queue before they are accepted */
+    private static final int BACKLOG = 4096;
+    /**
+     * The iterations of each move of a MonteCarlo AI, about 1 ms of work instead of the 20 ms of
+     * the default, since the move is made while the session is locked
+     */
+    static final int MONTE_CARLO_ITERATIONS = 1000;
+
+    /** The HTTP server */
+    private final HttpServer server;
+    /** Runs the request handlers */
+    private final ExecutorService executor;
+    /** The sessions being played */
+    private final SessionRegistry sessions;
+    /** The most time any AI may think about a move in milliseconds, 0 for no limit */
+    private final long maxThinkTimeMillis;
+
+    /**
+     * Creates a server, call start() to start accepting connections.
+     * @param port the port to listen on, or 0 for any free port
+     * @param idleTimeoutMillis how long a session can be unused before it is evicted, or 0 for never
+     * @throws IOException if the server cannot listen on the port
+     */
+    public GameServer(int port, long idleTimeoutMillis) throws IOException { this(port, idleTimeoutMillis, 0); }
+
+    /**
+     * Creates a server that limits how long every AI may think about a move, call start() to start
+     * accepting connections.
+     * @param port the port to listen on, or 0 for any free port
+     * @param idleTimeoutMillis how long a session can be unused before it is evicted, or 0 for never
+     * @param maxThinkTimeMillis the most time any AI may think about a move, or 0 for no limit
+     * @throws IOException if the server cannot listen on the port
+     */
+    public GameServer(int port, long idleTimeoutMillis, long maxThinkTimeMillis) throws IOException {
+        if (maxThinkTimeMillis < 0) { throw new IllegalArgumentException("negative think time"); }
+        this.maxThinkTimeMillis = maxThinkTimeMillis;
+        this.sessions = new SessionRegistry(idleTimeoutMillis);
+        this.executor = newExecutor(2 * Runtime.getRuntime().availableProcessors());
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::handle);
+    }
+
+    /**
+     * Starts accepting connections.
+     */
+    public void start() { server.start(); }
+
+    /**
+     * @return the port the server is listening on
+     */
+    public int getPort() { return server.getAddress().getPort(); }
+
+    /**
+     * @return the sessions being played
+     */
+    public SessionRegistry getSessions() { return sessions; }
+
+    /**
+     * Stops the server, closing all connections immediately.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        sessions.close();
+    }
+
+    /**
+     * Creates an executor that runs each task on its own virtual thread when the JVM supports them,
+     * otherwise on a fixed pool of platform threads.
+     * @param platformThreads the number of threads in the pool if virtual threads are not supported
+     * @return the executor
+     */
+    static ExecutorService newExecutor(int platformThreads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(platformThreads);
+        }
+    }
+
+    /**
+     * Creates an AI for a difficulty, the same ones offered by the app. MonteCarlo AIs get a
+     * smaller budget than in the app, and their trees are limited to the nodes their arrays hold
+     * between moves, so every session keeps only about 24 KB for them and never grows it.
+     * @param difficulty the name of the difficulty (Easy, Medium, Hard, Perfect, or MonteCarlo)
+     * @return the new AI
+     */
+    static AI createAI(String difficulty) {
+        switch (difficulty) {
+            case "Easy": return new EasyAI();
+            case "Medium": return new MediumAI();
+            case "Hard": return new HardAI();
+            case "Perfect": return new PerfectAI();
+            case "MonteCarlo": return new MonteCarloAI(MONTE_CARLO_ITERATIONS, 0, MonteCarloAI.INITIAL_NODES);
+            default: throw new IllegalArgumentException("unknown difficulty " + difficulty);
+        }
+    }
+
+    /**
+     * Handles a single request, always sending a response.
+     * @param exchange the request and response
+     * @throws IOException if the response cannot be sent
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        int status;
+        String body;
+        try {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            String method = exchange.getRequestMethod();
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            if (path.length == 2 && path[1].equals("stats") && method.equals("GET")) {
+                status = 200;
+                body = "{\"sessions\":" + sessions.size() + ",\"created\":" + sessions.getCreated() +
+                        ",\"evicted\":" + sessions.getEvicted() + '}';
+            } else if (path.length == 2 && path[1].equals("sessions") && method.equals("POST")) {
+                String difficulty = query.get("ai"), think = query.get("think");
+                long thinkTime = think == null ? maxThinkTimeMillis : Long.parseLong(think);
+                if (thinkTime < 0) { throw new IllegalArgumentException("negative think time"); }
+                if (maxThinkTimeMillis > 0 && (thinkTime == 0 || thinkTime > maxThinkTimeMillis)) { thinkTime = maxThinkTimeMillis; }
+                status = 201;
+                body = sessions.create(createAI(difficulty == null ? "Hard" : difficulty), thinkTime).toJson();
+            } else if (path.length >= 3 && path[1].equals("sessions")) {
+                long id = Long.parseLong(path[2]);
+                Session session = sessions.get(id);
+                String action = path.length == 4 ? path[3] : "";
+                if (session == null || path.length > 4) {
+                    status = 404;
+                    body = error("no such session");
+                } else if (action.isEmpty() && method.equals("GET")) {
+                    status = 200;
+                    body = session.toJson();
+                } else if (action.isEmpty() && method.equals("DELETE")) {
+                    sessions.remove(id);
+                    status = 204;
+                    body = null;
+                } else if (action.equals("round") && method.equals("POST")) {
+                    session.startNewRound();
+                    status = 200;
+                    body = session.toJson();
+                } else if (action.equals("move") && method.equals("POST")) {
+                    boolean played = session.playPiece(Integer.parseInt(query.get("r")), Integer.parseInt(query.get("c")));
+                    String json = session.toJson();
+                    status = 200;
+                    body = "{\"played\":" + played + ',' + json.substring(1);
+                } else {
+                    status = 404;
+                    body = error("unknown request");
+                }
+            } else {
+                status = 404;
+                body = error("unknown request");
+            }
+        } catch (IllegalStateException e) {
+            status = 409;
+            body = error(String.valueOf(e.getMessage()));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            // includes NumberFormatException for bad ids and locations
+            status = 400;
+            body = error(String.valueOf(e.getMessage()));
+        } catch (RuntimeException e) {
+            status = 500;
+            body = error("internal error: " + e);
+        }
+        send(exchange, status, body);
+    }
+
+    /**
+     * Sends a response and closes the exchange.
+     * @param exchange the request and response
+     * @param status the HTTP status code
+     * @param body the JSON body, or null for none
+     * @throws IOException if the response cannot be sent
+     */
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        try {
+            if (body == null) {
+                exchange.sendResponseHeaders(status, -1);
+            } else {
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(status, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) { out.write(bytes); }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Creates a JSON error response body.
+     * @param message the error message, which is escaped so it can contain any characters
+     * @return the JSON object
+     */
+    static String error(String message) {
+        StringBuilder sb = new StringBuilder(message.length() + 16).append("{\"error\":\"");
+        for (int i = 0; i < message.length(); i++) {
+            char ch = message.charAt(i);
+            if (ch == '"' || ch == '\\') { sb.append('\\').append(ch); }
+            else if (ch < 0x20) { sb.append(String.format("\\u%04x", (int) ch)); }
+            else { sb.append(ch); }
+        }
+        return sb.append("\"}").toString();
+    }
+
+    /**
+     * Parses the query of a request URI, ignoring any parameters without values.
+     * @param query the raw query, may be null
+     * @return the parameters of the query
+     */
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) { return parameters; }
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            if (equals > 0) { parameters.put(parameter.substring(0, equals), parameter.substring(equals + 1)); }
+        }
+        return parameters;
+    }
+
+    /**
+     * Runs the server until the process is killed.
+     * @param args optionally the port, the idle timeout in seconds, and the most time any AI may
+     *             think about a move in milliseconds
+     * @throws IOException if the server cannot listen on the port
+     */
+    public static void main(String[] args) throws IOException {
+        // Send small responses right away instead of waiting on delayed acknowledgements (Nagle's
+        // algorithm), which would otherwise add about 40 ms to every request on a kept-alive
+        // connection. This is read when the first HTTP server is created, and affects all of them.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        long idleTimeout = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_IDLE_TIMEOUT_SECONDS;
+        long maxThinkTime = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        GameServer server = new GameServer(port, idleTimeout * 1000, maxThinkTime);
+        server.start();
+        System.out.println("Game server listening on port " + server.getPort());
+    }
+}
@@ -0,0 +1,208 @@
+package edu.moravian.csci299.tictactoe;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives load against a running GameServer: it creates many sessions, keeps all of them open, and
+ * then has simulated players play rounds in every one of them with random moves, with a limited
+ * number of requests in flight at once. It reports the number of moves per second and the
+ * latency of the move requests (which include the AI's response).
+ */
+public class LoadDriver {
+    /** The base URL of the server */
+    private final String url;
+    /** The latency of every move request in nanoseconds */
+    private final long[] latencies;
+    /** The number of latencies recorded */
+    private final AtomicInteger moves = new AtomicInteger();
+    /** The number of requests that failed */
+    private final AtomicInteger failures = new AtomicInteger();
+
+    /**
+     * Creates a load driver.
+     * @param url the base URL of the server, like http://localhost:8080
+     * @param maxMoves the most moves that will be played
+     */
+    public LoadDriver(String url, int maxMoves) {
+        this.url = url;
+        this.latencies = new long[maxMoves];
+    }
+
+    /**
+     * Runs the load.
+     * @param sessions the number of sessions to create and keep open
+     * @param concurrency the most requests in flight at once
+     * @param rounds the number of rounds to play in each session
+     * @throws InterruptedException if interrupted while waiting for the sessions
+     */
+    public void run(int sessions, int concurrency, int rounds) throws InterruptedException {
+        ExecutorService executor = GameServer.newExecutor(concurrency);
+        Semaphore inFlight = new Semaphore(concurrency);
+        SplitRandom seeds = new SplitRandom(1);
+
+        // Create all of the sessions first so they are all open at the same time
+        long[] ids = new long[sessions];
+        CountDownLatch created = new CountDownLatch(sessions);
+        for (int i = 0; i < sessions; i++) {
+            final int index = i;
+            executor.execute(() -> {
+                try {
+                    inFlight.acquire();
+                    try { ids[index] = Long.parseLong(field(request("POST", "/sessions?ai=Hard"), "id")); }
+                    finally { inFlight.release(); }
+                } catch (IOException | InterruptedException | RuntimeException e) {
+                    failures.incrementAndGet();
+                }
+                created.countDown();
+            });
+        }
+        created.await();
+
+        // Play in all of the sessions at once
+        long start = System.nanoTime();
+        CountDownLatch done = new CountDownLatch(sessions);
+        for (int i = 0; i < sessions; i++) {
+            final long id = ids[i];
+            final SplitRandom random = seeds.split();
+            executor.execute(() -> {
+                try {
+                    for (int round = 0; round < rounds; round++) {
+                        playRound(id, random, inFlight);
+                    }
+                } catch (IOException | InterruptedException | RuntimeException e) {
+                    failures.incrementAndGet();
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        report(sessions, elapsed);
+    }
+
+    /**
+     * Plays a single round in a session, playing random moves until the round is over.
+     * @param id the id of the session
+     * @param random chooses the moves
+     * @param inFlight limits the number of requests in flight
+     * @throws IOException if a request fails
+     * @throws InterruptedException if interrupted while waiting to send a request
+     */
+    private void playRound(long id, SplitRandom random, Semaphore inFlight) throws IOException, InterruptedException {
+        String state = limited("POST", "/sessions/" + id + "/round", inFlight);
+        while (field(state, "status").equals("IN_PROGRESS")) {
+            String board = field(state, "board").replace("|", "");
+            int empty = 0;
+            for (int i = 0; i < board.length(); i++) { if (board.charAt(i) == ' ') { empty++; } }
+            int n = random.nextInt(empty), location = -1;
+            while (n >= 0) { if (board.charAt(++location) == ' ') { n--; } }
+            long before = System.nanoTime();
+            state = limited("POST", "/sessions/" + id + "/move?r=" + location / 3 + "&c=" + location % 3, inFlight);
+            int move = moves.getAndIncrement();
+            if (move < latencies.length) { latencies[move] = System.nanoTime() - before; }
+        }
+    }
+
+    /**
+     * Sends a request once fewer than the maximum number of requests are in flight.
+     * @param method the HTTP method
+     * @param path the path and query of the request
+     * @param inFlight limits the number of requests in flight
+     * @return the body of the response
+     * @throws IOException if the request fails
+     * @throws InterruptedException if interrupted while waiting to send the request
+     */
+    private String limited(String method, String path, Semaphore inFlight) throws IOException, InterruptedException {
+        inFlight.acquire();
+        try { return request(method, path); }
+        finally { inFlight.release(); }
+    }
+
+    /**
+     * Sends a request to the server.
+     * @param method the HTTP method
+     * @param path the path and query of the request
+     * @return the body of the response
+     * @throws IOException if the request fails or the response is not successful
+     */
+    private String request(String method, String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url + path).openConnection();
+        connection.setRequestMethod(method);
+        int status = connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+        byte[] buffer = new byte[256];
+        try (InputStream stream = in) {
+            for (int n; stream != null && (n = stream.read(buffer)) > 0; ) { body.write(buffer, 0, n); }
+        }
+        if (status >= 400) { throw new IOException(method + " " + path + " failed with " + status); }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the value of a field in a JSON object from the server (without the quotes of strings).
+     * @param json the JSON object
+     * @param name the name of the field
+     * @return the value of the field
+     */
+    static String field(String json, String name) {
+        int start = json.indexOf("\"" + name + "\":") + name.length() + 3;
+        if (json.charAt(start) == '"') { return json.substring(start + 1, json.indexOf('"', start + 1)); }
+        int end = start;
+        while (end < json.length() && json.charAt(end) != ',' && json.charAt(end) != '}') { end++; }
+        return json.substring(start, end);
+    }
+
+    /**
+     * Prints the moves per second and latency percentiles.
+     * @param sessions the number of sessions
+     * @param elapsed the time spent playing in nanoseconds
+     */
+    private void report(int sessions, long elapsed) {
+        int count = Math.min(moves.get(), latencies.length);
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        System.out.printf("sessions: %d, moves: %d, failures: %d, moves/s: %.0f%n",
+                sessions, count, failures.get(), count / (elapsed / 1e9));
+        if (count > 0) {
+            System.out.printf("move latency ms: p50 %.3f, p90 %.3f, p99 %.3f, max %.3f%n",
+                    percentile(sorted, 0.5), percentile(sorted, 0.9), percentile(sorted, 0.99), sorted[count - 1] / 1e6);
+        }
+    }
+
+    /**
+     * Gets a percentile of sorted latencies.
+     * @param sorted the latencies in nanoseconds, sorted
+     * @param fraction the percentile, from 0 to 1
+     * @return the latency in milliseconds
+     */
+    private static double percentile(long[] sorted, double fraction) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1)] / 1e6;
+    }
+
+    /**
+     * Runs the load driver.
+     * @param args optionally the server URL, number of sessions, concurrency, and rounds per session
+     * @throws InterruptedException if interrupted
+     */
+    public static void main(String[] args) throws InterruptedException {
+        String url = args.length > 0 ? args[0] : "http://localhost:" + GameServer.DEFAULT_PORT;
+        int sessions = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        // Keep enough connections alive for every request in flight
+        System.setProperty("http.maxConnections", Integer.toString(concurrency));
+        new LoadDriver(url, sessions * rounds * 5).run(sessions, concurrency, rounds);
+    }
+}
@@ -0,0 +1,94 @@
+package edu.moravian.csci299.tictactoe;
+
+/**
+ * A single human-vs-AI match being played on the game server. All access to the match is
+ * synchronized on the session, and every use of the session through the registry updates the time
+ * it was last used so that idle sessions can be evicted.
+ */
+public class Session {
+    /** The id of the session */
+    private final long id;
+    /** The match being played */
+    private final Match match = new Match();
+    /** When the session was last used, from System.nanoTime() */
+    private volatile long lastUsed;
+
+    /**
+     * Creates a new session.
+     * @param id the id of the session
+     * @param ai the AI to play against
+     * @param thinkTimeMillis the most time the AI may think about each move, or 0 for no limit
+     * @param now the current time, from System.nanoTime()
+     */
+    Session(long id, AI ai, long thinkTimeMillis, long now) {
+        this.id = id;
+        this.match.setAI(ai);
+        this.match.setThinkTime(thinkTimeMillis);
+        this.lastUsed = now;
+    }
+
+    /**
+     * @return the id of the session
+     */
+    public long getId() { return id; }
+
+    /**
+     * @return when the session was last used, from System.nanoTime()
+     */
+    public long getLastUsed() { return lastUsed; }
+
+    /**
+     * Records that the session is being used.
+     * @param now the current time, from System.nanoTime()
+     */
+    void touch(long now) { lastUsed = now; }
+
+    /**
+     * Starts a new round, see Match.startNewRound().
+     */
+    public synchronized void startNewRound() { match.startNewRound(); }
+
+    /**
+     * Has the human play a piece (and the AI respond), see Match.playPiece().
+     * @param r the row to play in
+     * @param c the column to play in
+     * @return true the player's piece was successfully played, false otherwise
+     */
+    public synchronized boolean playPiece(int r, int c) { return match.playPiece(r, c); }
+
+    /**
+     * Gets the state of the session as a JSON object: the board (rows separated by '|', null before
+     * the first round), the human's piece, the status of the round, and the number of rounds won
+     * by each player and tied.
+     * @return the JSON object
+     */
+    public synchronized String toJson() {
+        StringBuilder json = new StringBuilder(160).append("{\"id\":").append(id);
+        Board board = match.getBoard();
+        if (board == null) {
+            json.append(",\"board\":null,\"player\":null,\"status\":null");
+        } else {
+            json.append(",\"board\":\"");
+            for (int r = 0; r < board.getSize(); r++) {
+                if (r > 0) { json.append('|'); }
+                for (int c = 0; c < board.getSize(); c++) { json.append(board.getPiece(r, c)); }
+            }
+            json.append("\",\"player\":\"").append(match.getPlayerPiece())
+                    .append("\",\"status\":\"").append(board.getStatus()).append('"');
+        }
+        return json.append(",\"playerWins\":").append(match.getPlayerWins())
+                .append(",\"aiWins\":").append(match.getAIWins())
+                .append(",\"ties\":").append(match.getTies()).append('}').toString();
+    }
+
+
+    ////////// General Object Methods //////////
+
+    @Override
+    public synchronized String toString() {
+        return "Session{" +
+                "id=" + id +
+                ", match=" + match +
+                '}';
+    }
+}
@@ -0,0 +1,131 @@
+package edu.moravian.csci299.tictactoe;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * All of the sessions on the game server, by id. Sessions that have not been used for longer than
+ * the idle timeout are evicted by a background thread.
+ */
+public class SessionRegistry implements AutoCloseable {
+    /** The sessions by id */
+    private final ConcurrentHashMap<Long, Session> sessions = new ConcurrentHashMap<>();
+    /** The id for the next session */
+    private final AtomicLong nextId = new AtomicLong(1);
+    /** The number of sessions that have been evicted */
+    private final AtomicLong evicted = new AtomicLong();
+    /** How long a session can be unused before it is evicted, in nanoseconds */
+    private final long idleTimeoutNanos;
+    /** Runs the eviction, null if there is no timeout */
+    private final ScheduledExecutorService evictor;
+
+    /**
+     * Creates an empty registry.
+     * @param idleTimeoutMillis how long a session can be unused before it is evicted, in
+     *                          milliseconds, or 0 to never evict sessions
+     */
+    public SessionRegistry(long idleTimeoutMillis) {
+        if (idleTimeoutMillis < 0) { throw new IllegalArgumentException("negative idle timeout"); }
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        if (idleTimeoutMillis == 0) {
+            this.evictor = null;
+        } else {
+            this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "session-evictor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = Math.max(idleTimeoutMillis / 4, 1);
+            evictor.scheduleWithFixedDelay(() -> evictIdle(System.nanoTime()), period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Creates and registers a new session.
+     * @param ai the AI the session plays against
+     * @return the new session
+     */
+    public Session create(AI ai) { return create(ai, 0); }
+
+    /**
+     * Creates and registers a new session where the AI's think time is limited.
+     * @param ai the AI the session plays against
+     * @param thinkTimeMillis the most time the AI may think about each move, or 0 for no limit
+     * @return the new session
+     */
+    public Session create(AI ai, long thinkTimeMillis) {
+        Session session = new Session(nextId.getAndIncrement(), ai, thinkTimeMillis, System.nanoTime());
+        sessions.put(session.getId(), session);
+        return session;
+    }
+
+    /**
+     * Gets a session, marking it as used. This is done while holding the session's lock, which the
+     * eviction also holds, so a session is never returned at the same moment it is evicted.
+     * @param id the id of the session
+     * @return the session, or null if there is no session with that id (or it was evicted)
+     */
+    public Session get(long id) {
+        Session session = sessions.get(id);
+        if (session == null) { return null; }
+        synchronized (session) {
+            if (sessions.get(id) != session) { return null; } // evicted since it was looked up
+            session.touch(System.nanoTime());
+        }
+        return session;
+    }
+
+    /**
+     * Removes a session.
+     * @param id the id of the session
+     * @return true if the session was removed, false if there was no session with that id
+     */
+    public boolean remove(long id) { return sessions.remove(id) != null; }
+
+    /**
+     * Removes all of the sessions that have not been used for longer than the idle timeout. This is
+     * called regularly by the background thread. Each session is checked and removed while holding
+     * its lock, so a session being fetched by get() at the same time is either kept or not found.
+     * @param now the current time, from System.nanoTime()
+     * @return the number of sessions removed
+     */
+    public int evictIdle(long now) {
+        if (idleTimeoutNanos == 0) { return 0; }
+        int count = 0;
+        for (Map.Entry<Long, Session> entry : sessions.entrySet()) {
+            Session session = entry.getValue();
+            synchronized (session) {
+                if (now - session.getLastUsed() > idleTimeoutNanos && sessions.remove(entry.getKey(), session)) { count++; }
+            }
+        }
+        evicted.addAndGet(count);
+        return count;
+    }
+
+    /**
+     * @return the number of sessions
+     */
+    public int size() { return sessions.size(); }
+
+    /**
+     * @return the number of sessions ever created
+     */
+    public long getCreated() { return nextId.get() - 1; }
+
+    /**
+     * @return the number of sessions that have been evicted for being idle
+     */
+    public long getEvicted() { return evicted.get(); }
+
+    /**
+     * Stops evicting sessions.
+     */
+    @Override
+    public void close() {
+        if (evictor != null) { evictor.shutdownNow(); }
+    }
+}
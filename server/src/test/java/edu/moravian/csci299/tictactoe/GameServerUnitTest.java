@@ -0,0 +1,134 @@
+package edu.moravian.csci299.tictactoe;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static edu.moravian.csci299.tictactoe.LoadDriver.field;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the game server by sending it real requests. Depends on Match and the AIs so make sure
+ * those are working first.
+ */
+public class GameServerUnitTest {
+    private GameServer server;
+
+    @Before
+    public void startServer() throws IOException {
+        server = new GameServer(0, 0);
+        server.start();
+    }
+
+    @After
+    public void stopServer() { server.close(); }
+
+    /**
+     * Sends a request to the server.
+     * @param method the HTTP method
+     * @param path the path and query
+     * @param expectedStatus the status the response must have
+     * @return the body of the response
+     */
+    private String request(String method, String path, int expectedStatus) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+        connection.setRequestMethod(method);
+        assertEquals(method + " " + path, expectedStatus, connection.getResponseCode());
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream in = expectedStatus < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            byte[] buffer = new byte[256];
+            for (int n; in != null && (n = in.read(buffer)) > 0; ) { body.write(buffer, 0, n); }
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Check playing a whole round against the perfect AI, which can never be won.
+     */
+    @Test
+    public void playRound() throws IOException {
+        String state = request("POST", "/sessions?ai=Perfect", 201);
+        String id = field(state, "id");
+        assertEquals("null", field(state, "board"));
+        request("POST", "/sessions/" + id + "/move?r=0&c=0", 409); // no round yet
+
+        state = request("POST", "/sessions/" + id + "/round", 200);
+        while (field(state, "status").equals("IN_PROGRESS")) {
+            int location = field(state, "board").replace("|", "").indexOf(' ');
+            state = request("POST", "/sessions/" + id + "/move?r=" + location / 3 + "&c=" + location % 3, 200);
+            assertEquals("true", field(state, "played"));
+        }
+        assertNotEquals(field(state, "player") + "_WON", field(state, "status"));
+        assertEquals("0", field(state, "playerWins"));
+        assertEquals(1, Integer.parseInt(field(state, "aiWins")) + Integer.parseInt(field(state, "ties")));
+        assertEquals(state, "{\"played\":true," + request("GET", "/sessions/" + id, 200).substring(1));
+
+        request("POST", "/sessions/" + id + "/move?r=0&c=0", 409); // round is over
+        request("DELETE", "/sessions/" + id, 204);
+        request("GET", "/sessions/" + id, 404);
+    }
+
+    /**
+     * Check bad requests.
+     */
+    @Test
+    public void badRequests() throws IOException {
+        String id = field(request("POST", "/sessions?ai=Easy", 201), "id");
+        request("POST", "/sessions?ai=Impossible", 400);
+        request("POST", "/sessions/" + id + "/round", 200);
+        request("POST", "/sessions/" + id + "/move?r=5&c=0", 400);
+        request("POST", "/sessions/" + id + "/move?r=x", 400);
+        // the message of the NumberFormatException has quotes, which must be escaped
+        assertEquals("{\"error\":\"For input string: \\\"abc\\\"\"}", request("GET", "/sessions/abc", 400));
+        request("GET", "/sessions/12345", 404);
+        request("GET", "/nothing", 404);
+        assertEquals("1", field(request("GET", "/stats", 200), "sessions"));
+    }
+
+    /**
+     * Check that MonteCarlo AIs on the server get a small budget and a tree that never outgrows the
+     * arrays they keep between moves.
+     */
+    @Test
+    public void monteCarloBudget() {
+        MonteCarloAI ai = (MonteCarloAI) GameServer.createAI("MonteCarlo");
+        AI.SearchResult result = ai.selectMove(new Board(), 'O', Deadline.none());
+        assertEquals(GameServer.MONTE_CARLO_ITERATIONS, result.getNodes());
+        assertTrue(ai.getNodeCount() <= MonteCarloAI.INITIAL_NODES);
+        assertEquals(MonteCarloAI.INITIAL_NODES, ai.getCapacity());
+    }
+
+    /**
+     * Check that error messages are escaped so the response is always valid JSON.
+     */
+    @Test
+    public void errorEscaping() {
+        assertEquals("{\"error\":\"plain\"}", GameServer.error("plain"));
+        assertEquals("{\"error\":\"a \\\"b\\\" c\\\\d\\u000a\"}", GameServer.error("a \"b\" c\\d\n"));
+    }
+
+    /**
+     * Check that idle sessions are evicted.
+     */
+    @Test
+    public void evictIdle() {
+        SessionRegistry registry = new SessionRegistry(1000);
+        Session a = registry.create(new EasyAI()), b = registry.create(new EasyAI());
+        long now = System.nanoTime();
+        assertEquals(0, registry.evictIdle(now));
+        a.touch(now + 2000000000L);
+        assertEquals(1, registry.evictIdle(now + 2500000000L));
+        assertNull(registry.get(b.getId()));
+        assertSame(a, registry.get(a.getId()));
+        assertEquals(1, registry.size());
+        assertEquals(1, registry.getEvicted());
+        registry.close();
+    }
+}